@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubeAnimationSource;
+import de.reimanndaniel.ledcube.player.LEDCubeCompiledSource;
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures playing and seeking the wipe of the demonstrator as list of
+ *  elements and compiled.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubeAnimationBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32" } )
+    public int size;
+
+    /**
+     *  The source of the animation as list of elements.
+     */
+    private LEDCubeAnimationSource listed;
+    /**
+     *  The source of the compiled animation.
+     */
+    private LEDCubeCompiledSource compiled;
+    /**
+     *  The frame to render into.
+     */
+    private LEDCubeState frame;
+    /**
+     *  The number of calls so far.
+     */
+    private int calls;
+
+    /**
+     *  Creates a wipe that switches on and off every LED one by one.
+     */
+    @Setup
+    public void setup() {
+        LEDCubeDimension dim = new LEDCubeDimension( size );
+        LEDCubeAnimation anime = new LEDCubeAnimation( new LEDCubeState( dim ) );
+        for( int ai = 0; ai < dim.getVolume(); ai++ ) {
+            anime.add( new LEDCubeLight( dim.getX( ai ), dim.getY( ai ), dim.getZ( ai ), LEDCubeColor.BLUE ) );
+        }
+        for( int ai = 0; ai < dim.getVolume(); ai++ ) {
+            anime.add( new LEDCubeLight( dim.getX( ai ), dim.getY( ai ), dim.getZ( ai ), LEDCubeColor.BLACK ) );
+        }
+        listed = anime.createSource();
+        compiled = anime.compile().createSource();
+        frame = new LEDCubeState( dim );
+    }
+
+    /**
+     *  Renders the next frame, starting again at the end.
+     *
+     *  @param source the source
+     *  @return the frame
+     */
+    private LEDCubeState next( LEDCubeFrameSource source ) {
+        if( !source.next( frame ) ) {
+            source.rewind();
+            source.next( frame );
+        }
+        return frame;
+    }
+
+    /**
+     *  Plays the list of elements.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public LEDCubeState list() {
+        return next( listed );
+    }
+
+    /**
+     *  Plays the compiled animation.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public LEDCubeState compiled() {
+        return next( compiled );
+    }
+
+    /**
+     *  Seeks to a frame of the compiled animation and renders it.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public LEDCubeState seek() {
+        calls = ( calls + 7919 ) % compiled.getFrameCount();
+        compiled.seek( calls );
+        return next( compiled );
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Random;
+
+/**
+ *  Helpers shared by the benchmarks.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+final class LEDCubeBench {
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeBench() {
+    }
+
+    /**
+     *  Creates two random states that differ in a part of their LEDs.
+     *
+     *  @param dim the dimension of the states
+     *  @param density the part of the LEDs that differ, 0 - 1
+     *  @param random the source of the colors
+     *  @return the two states
+     */
+    static LEDCubeState[] states( LEDCubeDimension dim, float density, Random random ) {
+        LEDCubeState first = new LEDCubeState( dim );
+        int[] rgba = first.getBuffer();
+        for( int ai = 0; ai < rgba.length; ai++ ) {
+            rgba[ai] = random.nextInt();
+        }
+        LEDCubeState second = new LEDCubeState( first );
+        int[] changed = second.getBuffer();
+        int[] order = shuffled( rgba.length, random );
+        int count = Math.max( 1, Math.round( rgba.length * density ) );
+        for( int ai = 0; ai < count; ai++ ) {
+            changed[order[ai]] = ~changed[order[ai]];
+        }
+        return new LEDCubeState[] { first, second };
+    }
+
+    /**
+     *  Returns the numbers 0 up to a size in random order.
+     *
+     *  @param size the number of numbers
+     *  @param random the source of the order
+     *  @return the shuffled numbers
+     */
+    static int[] shuffled( int size, Random random ) {
+        int[] order = new int[size];
+        for( int ai = 0; ai < size; ai++ ) {
+            order[ai] = ai;
+        }
+        for( int ai = size - 1; ai > 0; ai-- ) {
+            int bi = random.nextInt( ai + 1 );
+            int swap = order[ai];
+            order[ai] = order[bi];
+            order[bi] = swap;
+        }
+        return order;
+    }
+
+}
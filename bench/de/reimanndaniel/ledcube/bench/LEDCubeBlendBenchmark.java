@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.effect.LEDCubeBlend;
+import de.reimanndaniel.ledcube.effect.LEDCubeBlender;
+import de.reimanndaniel.ledcube.effect.LEDCubeVectorBlender;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures compositing four layers with all blend modes, once with the
+ *  scalar and once with the vector blender.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector" )
+public class LEDCubeBlendBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+
+    /**
+     *  The layers to composite.
+     */
+    private int[][] layers;
+    /**
+     *  The composited frame.
+     */
+    private int[] frame;
+    /**
+     *  The vector blender.
+     */
+    private LEDCubeBlender vector;
+
+    /**
+     *  Fills the layers with random colors.
+     */
+    @Setup
+    public void setup() {
+        int volume = size * size * size;
+        Random random = new Random( 42 );
+        layers = new int[4][volume];
+        for( int ai = 0; ai < layers.length; ai++ ) {
+            for( int bi = 0; bi < volume; bi++ ) {
+                layers[ai][bi] = random.nextInt();
+            }
+        }
+        frame = new int[volume];
+        vector = new LEDCubeVectorBlender();
+    }
+
+    /**
+     *  Composites the layers with the scalar blender.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public int[] scalar() {
+        return composite( LEDCubeBlend.SCALAR );
+    }
+
+    /**
+     *  Composites the layers with the vector blender.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public int[] vector() {
+        return composite( vector );
+    }
+
+    /**
+     *  Puts the other layers over the first one with one mode each.
+     *
+     *  @param blender the blender to use
+     *  @return the frame
+     */
+    private int[] composite( LEDCubeBlender blender ) {
+        System.arraycopy( layers[0], 0, frame, 0, frame.length );
+        blender.blend( LEDCubeBlend.ModeAdd, frame, layers[1], frame.length );
+        blender.blend( LEDCubeBlend.ModeMultiply, frame, layers[2], frame.length );
+        blender.blend( LEDCubeBlend.ModeOver, frame, layers[3], frame.length );
+        blender.blend( LEDCubeBlend.ModeMax, frame, layers[1], frame.length );
+        return frame;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.effect.LEDCubeKernel;
+import de.reimanndaniel.ledcube.effect.LEDCubeKernelEngine;
+import de.reimanndaniel.ledcube.effect.LEDCubeKernels;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures evaluating a plasma kernel on one thread and on the common pool.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubeKernelBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+
+    /**
+     *  The kernel to evaluate.
+     */
+    private LEDCubeKernel kernel;
+    /**
+     *  The engine that never splits.
+     */
+    private LEDCubeKernelEngine single;
+    /**
+     *  The engine on the common pool.
+     */
+    private LEDCubeKernelEngine parallel;
+    /**
+     *  The state to render into.
+     */
+    private LEDCubeState frame;
+    /**
+     *  The time of the frame.
+     */
+    private float time;
+
+    /**
+     *  Creates the kernel and the engines.
+     */
+    @Setup
+    public void setup() {
+        LEDCubeDimension dim = new LEDCubeDimension( size );
+        kernel = LEDCubeKernels.plasma( dim, 1f, 1f );
+        single = new LEDCubeKernelEngine( ForkJoinPool.commonPool(), Integer.MAX_VALUE );
+        parallel = new LEDCubeKernelEngine();
+        frame = new LEDCubeState( dim );
+    }
+
+    /**
+     *  Evaluates the kernel on the calling thread.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public LEDCubeState single() {
+        time += 1f / 60f;
+        single.render( kernel, time, frame );
+        return frame;
+    }
+
+    /**
+     *  Evaluates the kernel in slabs on the common pool.
+     *
+     *  @return the frame
+     */
+    @Benchmark
+    public LEDCubeState parallel() {
+        time += 1f / 60f;
+        parallel.render( kernel, time, frame );
+        return frame;
+    }
+
+}
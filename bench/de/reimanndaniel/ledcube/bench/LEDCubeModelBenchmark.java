@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeChange;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures changing the cube and notifying its observers.
+ *  Each observer reads all changed LEDs like a viewer does, all LEDs if
+ *  the whole cube changed. Only showing states depends on the density of
+ *  the changes, so the density is a parameter of its own state.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubeModelBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+    /**
+     *  The number of observers.
+     */
+    @Param( { "0", "1", "4" } )
+    public int observers;
+
+    /**
+     *  The cube.
+     */
+    private LEDCube cube;
+    /**
+     *  The number of calls so far.
+     */
+    private int calls;
+    /**
+     *  The sum of the colors read by the observers.
+     */
+    private int sink;
+
+    /**
+     *  Creates the cube and its observers.
+     */
+    @Setup
+    public void setup() {
+        LEDCubeDimension dim = new LEDCubeDimension( size );
+        cube = new LEDCube( dim );
+        for( int ai = 0; ai < observers; ai++ ) {
+            cube.addObserver( new Observer() {
+
+                @Override
+                public void update( Observable o, Object arg ) {
+                    if( arg instanceof LEDCubeChange ) {
+                        LEDCubeChange change = (LEDCubeChange) arg;
+                        for( int bi = change.nextChanged( 0 ); bi >= 0; bi = change.nextChanged( bi + 1 ) ) {
+                            sink += cube.getRGBA( bi );
+                        }
+                    }
+                    else if( arg == null ) {
+                        int volume = cube.getDimension().getVolume();
+                        for( int bi = 0; bi < volume; bi++ ) {
+                            sink += cube.getRGBA( bi );
+                        }
+                    }
+                }
+            } );
+        }
+    }
+
+    /**
+     *  Fills the whole cube.
+     *
+     *  @return the sum of the read colors
+     */
+    @Benchmark
+    public int fill() {
+        cube.fill( ( calls++ & 1 ) == 0 ? LEDCubeColor.RED : LEDCubeColor.BLUE );
+        return sink;
+    }
+
+    /**
+     *  Shows the next state, changing the density of the LEDs.
+     *
+     *  @param changes the states to show
+     *  @return the sum of the read colors
+     */
+    @Benchmark
+    public int setState( Changes changes ) {
+        cube.setState( changes.states[calls++ & 1] );
+        return sink;
+    }
+
+    /**
+     *  Sets a single LED.
+     *
+     *  @return the sum of the read colors
+     */
+    @Benchmark
+    public int setColor() {
+        int volume = cube.getDimension().getVolume();
+        cube.setColor( calls++ % volume, calls );
+        return sink;
+    }
+
+    /**
+     *  Two states that differ in the density of their LEDs.
+     */
+    @State( Scope.Thread )
+    public static class Changes {
+
+        /**
+         *  The part of the LEDs changed by each new state.
+         */
+        @Param( { "0.01", "0.1", "1" } )
+        public float density;
+
+        /**
+         *  The two states shown in turn.
+         */
+        LEDCubeState[] states;
+
+        /**
+         *  Creates the states for the size of the benchmark.
+         *
+         *  @param bench the benchmark
+         */
+        @Setup
+        public void setup( LEDCubeModelBenchmark bench ) {
+            states = LEDCubeBench.states( new LEDCubeDimension( bench.size ), density, new Random( 42 ) );
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.player.LEDCubeGenerator;
+import de.reimanndaniel.ledcube.player.LEDCubePlayer;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures the player showing frames on a cube.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubePlayerBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+    /**
+     *  The part of the LEDs changed by each frame.
+     */
+    @Param( { "0.01", "0.1", "1" } )
+    public float density;
+
+    /**
+     *  The player showing the frames.
+     */
+    private LEDCubePlayer player;
+    /**
+     *  The two states shown in turn.
+     */
+    private LEDCubeState[] states;
+    /**
+     *  The number of calls so far.
+     */
+    private int calls;
+
+    /**
+     *  Creates the player playing a generator that changes the density of
+     *  the LEDs in each frame.
+     */
+    @Setup
+    public void setup() {
+        LEDCubeDimension dim = new LEDCubeDimension( size );
+        states = LEDCubeBench.states( dim, density, new Random( 42 ) );
+        player = new LEDCubePlayer( new LEDCube( dim ) );
+        player.play( new LEDCubeGenerator( dim ) {
+
+            @Override
+            protected void render( LEDCubeState frame, long number ) {
+                frame.copyFrom( states[(int) ( number & 1 )] );
+            }
+        } );
+    }
+
+    /**
+     *  Shows the next state.
+     *
+     *  @return the player
+     */
+    @Benchmark
+    public LEDCubePlayer show() {
+        player.show( states[calls++ & 1] );
+        return player;
+    }
+
+    /**
+     *  Advances the player by one frame of its frame rate.
+     *
+     *  @return the player
+     */
+    @Benchmark
+    public LEDCubePlayer update() {
+        player.update( 1f / 60f );
+        return player;
+    }
+
+}
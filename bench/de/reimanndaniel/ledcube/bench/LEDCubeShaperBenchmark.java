@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubePoint;
+import de.reimanndaniel.ledcube.system.LEDCubeShape;
+import de.reimanndaniel.ledcube.util.LEDCubeShaper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ *  Measures creating and walking shapes.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubeShaperBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+
+    /**
+     *  The dimension of the shapes.
+     */
+    private LEDCubeDimension dim;
+    /**
+     *  A shaper with filled cache.
+     */
+    private LEDCubeShaper cached;
+
+    /**
+     *  Creates the shaper.
+     */
+    @Setup
+    public void setup() {
+        dim = new LEDCubeDimension( size );
+        cached = new LEDCubeShaper( dim );
+        cached.fullCube();
+    }
+
+    /**
+     *  Looks up the full cube.
+     *
+     *  @return the shape
+     */
+    @Benchmark
+    public LEDCubeShape fullCubeCached() {
+        return cached.fullCube();
+    }
+
+    /**
+     *  Creates the full cube without cache.
+     *
+     *  @return the shape
+     */
+    @Benchmark
+    public LEDCubeShape fullCube() {
+        return new LEDCubeShaper( dim ).fullCube();
+    }
+
+    /**
+     *  Walks all points of the full cube.
+     *
+     *  @param hole consumes the points
+     */
+    @Benchmark
+    public void fullCubePoints( Blackhole hole ) {
+        for( LEDCubePoint point: cached.fullCube() ) {
+            hole.consume( point );
+        }
+    }
+
+    /**
+     *  Rasterizes a hollow sphere without cache.
+     *
+     *  @return the shape
+     */
+    @Benchmark
+    public LEDCubeShape sphere() {
+        float center = ( size - 1 ) / 2f;
+        return new LEDCubeShaper( dim ).sphere( center, center, center, center, false );
+    }
+
+}
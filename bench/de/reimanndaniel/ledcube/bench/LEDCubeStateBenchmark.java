@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.bench;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  Measures reading and writing all LEDs of a state.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LEDCubeStateBenchmark {
+
+    /**
+     *  The length of the sides of the cube.
+     */
+    @Param( { "8", "16", "32", "64" } )
+    public int size;
+
+    /**
+     *  The state to read and write.
+     */
+    private LEDCubeState state;
+    /**
+     *  Another state to copy from.
+     */
+    private LEDCubeState other;
+
+    /**
+     *  Creates the states.
+     */
+    @Setup
+    public void setup() {
+        LEDCubeState[] states = LEDCubeBench.states( new LEDCubeDimension( size ), 1f, new Random( 42 ) );
+        state = states[0];
+        other = states[1];
+    }
+
+    /**
+     *  Sets all LEDs by their coordinates.
+     *
+     *  @return the state
+     */
+    @Benchmark
+    public LEDCubeState setRGBA() {
+        LEDCubeDimension dim = state.getDimension();
+        for( int ai = 0; ai < dim.getWidth(); ai++ ) {
+            for( int bi = 0; bi < dim.getHeight(); bi++ ) {
+                for( int ci = 0; ci < dim.getDepth(); ci++ ) {
+                    state.setRGBA( ai, bi, ci, ai ^ bi ^ ci );
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     *  Reads all LEDs by their coordinates.
+     *
+     *  @return the sum of the colors
+     */
+    @Benchmark
+    public int getRGBA() {
+        LEDCubeDimension dim = state.getDimension();
+        int sum = 0;
+        for( int ai = 0; ai < dim.getWidth(); ai++ ) {
+            for( int bi = 0; bi < dim.getHeight(); bi++ ) {
+                for( int ci = 0; ci < dim.getDepth(); ci++ ) {
+                    sum += state.getRGBA( ai, bi, ci );
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     *  Copies all LEDs of another state.
+     *
+     *  @return the state
+     */
+    @Benchmark
+    public LEDCubeState copyFrom() {
+        state.copyFrom( other );
+        return state;
+    }
+
+}
@@ -28,7 +28,7 @@ import com.jme3.input.controls.MouseAxisTrigger;
 import com.jme3.input.controls.MouseButtonTrigger;
 import com.jme3.renderer.Camera;
 import de.reimanndaniel.ledcube.system.LEDCubeDimension;
-import de.reimanndaniel.ledcube.system.LEDCubeViewer;
+import de.reimanndaniel.ledcube.viewer.LEDCubeViewer;
 
 /**
  *  A circling camera for the LED cube.
@@ -23,20 +23,23 @@ import com.jme3.app.SimpleApplication;
 import com.jme3.input.KeyInput;
 import com.jme3.input.controls.ActionListener;
 import com.jme3.input.controls.KeyTrigger;
-import com.jme3.math.ColorRGBA;
 import com.jme3.post.FilterPostProcessor;
 import com.jme3.post.filters.BloomFilter;
 import com.jme3.system.AppSettings;
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
 import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
 import de.reimanndaniel.ledcube.player.LEDCubePlayer;
 import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
 import de.reimanndaniel.ledcube.system.LEDCubeDimension;
 import de.reimanndaniel.ledcube.system.LEDCubeLight;
 import de.reimanndaniel.ledcube.system.LEDCubePoint;
 import de.reimanndaniel.ledcube.system.LEDCubeShape;
 import de.reimanndaniel.ledcube.system.LEDCubeState;
-import de.reimanndaniel.ledcube.system.LEDCubeViewer;
 import de.reimanndaniel.ledcube.util.LEDCubeShaper;
+import de.reimanndaniel.ledcube.viewer.LEDCubeBatchViewer;
+import de.reimanndaniel.ledcube.viewer.LEDCubeViewer;
+import javax.management.JMException;
 
 /**
  *  The example for a working LED cube.
@@ -55,19 +58,42 @@ public class LEDCubeDemonstrator extends SimpleApplication implements ActionList
      *  The player to use.
      */
     private LEDCubePlayer player;
+    /**
+     *  Draws all LEDs as one mesh.
+     */
+    private boolean batch = false;
+    /**
+     *  The viewer of the cube.
+     */
+    private LEDCubeViewer viewer;
+    /**
+     *  The camera circling the cube.
+     */
+    private LEDCubeCamera chaser;
 
     /**
      *  Starts the example.
      *
-     *  @param args shell arguments
+     *  @param args shell arguments, {@code --batch} draws all LEDs as one mesh
      */
     public static void main( String[] args ) {
         LEDCubeDemonstrator demo = new LEDCubeDemonstrator();
+        for( String arg: args ) {
+            if( arg.equals( "--batch" ) ) {
+                demo.batch = true;
+            }
+        }
         AppSettings settings = new AppSettings( true );
         settings.setTitle( "JLEDCube Demo" );
         settings.setResolution( 800, 600 );
         demo.setSettings( settings );
         demo.setShowSettings( false );
+        try {
+            LEDCubeMetrics.register();
+        }
+        catch( JMException e ) {
+            System.err.println( "The metrics could not be registered: " + e.getMessage() );
+        }
         demo.start();
     }
 
@@ -78,19 +104,24 @@ public class LEDCubeDemonstrator extends SimpleApplication implements ActionList
     public void simpleInitApp() {
         // view
         LEDCubeDimension dim = new LEDCubeDimension( 8 );
-        LEDCube cube = new LEDCube( dim, ColorRGBA.Green );
-        LEDCubeViewer viewer = new LEDCubeViewer( cube, assetManager );
+        LEDCube cube = new LEDCube( dim, LEDCubeColor.GREEN );
+        if( batch ) {
+            viewer = new LEDCubeBatchViewer( cube, assetManager );
+        }
+        else {
+            viewer = new LEDCubeViewer( cube, assetManager );
+        }
         viewer.paint();
 
         // post processor bloom
         FilterPostProcessor fpp = new FilterPostProcessor( assetManager );
-        BloomFilter bloom = new BloomFilter( BloomFilter.GlowMode.Objects );
+        BloomFilter bloom = new BloomFilter( batch ? BloomFilter.GlowMode.Scene : BloomFilter.GlowMode.Objects );
         fpp.addFilter( bloom );
         viewPort.addProcessor( fpp );
 
         // for the variable view
         flyCam.setEnabled( false );
-        LEDCubeCamera chaser = new LEDCubeCamera( cam, viewer );
+        chaser = new LEDCubeCamera( cam, viewer );
         chaser.registerWithSpecialInput( inputManager );
         inputManager.setCursorVisible( false );
 
@@ -106,15 +137,15 @@ public class LEDCubeDemonstrator extends SimpleApplication implements ActionList
         LEDCubeShaper shaper = new LEDCubeShaper( dim );
         LEDCubeShape points = shaper.fullCube();
         for( LEDCubePoint point: points ) {
-            anime.add( new LEDCubeLight( point, ColorRGBA.Blue ) );
+            anime.add( new LEDCubeLight( point, LEDCubeColor.BLUE ) );
         }
         for( LEDCubePoint point: points ) {
-            anime.add( new LEDCubeLight( point, ColorRGBA.Black ) );
+            anime.add( new LEDCubeLight( point, LEDCubeColor.BLACK ) );
         }
 
         // player
         player = new LEDCubePlayer( cube );
-        player.play( anime );
+        player.play( anime.createSource() );
     }
 
     /**
@@ -129,6 +160,7 @@ public class LEDCubeDemonstrator extends SimpleApplication implements ActionList
             this.stop();
         }
         player.update( tpf );
+        viewer.updateLOD( chaser.getDistanceToTarget() );
     }
 
     @Override
@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.demo;
+
+import de.reimanndaniel.ledcube.io.LEDCubeMappedAnimation;
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
+import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.player.LEDCubeRunner;
+import de.reimanndaniel.ledcube.render.LEDCubeImageExporter;
+import de.reimanndaniel.ledcube.render.LEDCubeRenderer;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
+import de.reimanndaniel.ledcube.system.LEDCubePoint;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import de.reimanndaniel.ledcube.util.LEDCubeShaper;
+import java.io.File;
+import java.io.IOException;
+import javax.management.JMException;
+
+/**
+ *  Plays an animation without a window as fast as possible.
+ *  Needs no jMonkeyEngine and prints the reached frame rate.
+ *  The metrics are registered as MBean for a JMX console.
+ *  With {@code --export <dir>} the frames are rendered into PNG images
+ *  instead, to preview an animation on a computer without graphics card.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeHeadless {
+
+    /**
+     *  Starts the headless run.
+     *
+     *  @param args shell arguments, {@code --frames <n>} the number of frames
+     *      to show, {@code --export <dir>} the directory for images of the
+     *      frames, else an animation file to play instead of the demo
+     *  @throws IOException if the animation file could not be read
+     */
+    public static void main( String[] args ) throws IOException {
+        long max = 100000;
+        String file = null;
+        String export = null;
+        for( int ai = 0; ai < args.length; ai++ ) {
+            if( args[ai].equals( "--frames" ) && ai + 1 < args.length ) {
+                max = Long.parseLong( args[++ai] );
+            }
+            else if( args[ai].equals( "--export" ) && ai + 1 < args.length ) {
+                export = args[++ai];
+            }
+            else {
+                file = args[ai];
+            }
+        }
+        try {
+            LEDCubeMetrics.register();
+        }
+        catch( JMException e ) {
+            System.err.println( "The metrics could not be registered: " + e.getMessage() );
+        }
+        LEDCubeFrameSource source;
+        LEDCubeMappedAnimation mapped = null;
+        if( file != null ) {
+            mapped = new LEDCubeMappedAnimation( new File( file ) );
+            source = mapped;
+        }
+        else {
+            source = demo( new LEDCubeDimension( 8 ) ).compile().createSource();
+        }
+        try {
+            if( export != null ) {
+                LEDCubeRenderer renderer = new LEDCubeRenderer( source.getDimension(), 640, 480 );
+                long start = System.nanoTime();
+                long frames = new LEDCubeImageExporter( renderer, new File( export ) ).export( source, max );
+                System.out.println( frames + " images in " + ( System.nanoTime() - start ) / 1000000 + " ms" );
+                return;
+            }
+            LEDCubeRunner runner = new LEDCubeRunner( new LEDCube( source.getDimension() ) );
+            runner.run( source, max, true );
+            System.out.println(
+                runner.getFrames() + " frames in " + runner.getNanos() / 1000000 + " ms, "
+                + Math.round( runner.getFrameRate() ) + " frames per second"
+            );
+        }
+        finally {
+            if( mapped != null ) {
+                mapped.close();
+            }
+        }
+    }
+
+    /**
+     *  Creates the animation of the demonstrator.
+     *
+     *  @param dim the dimension of the animation
+     *  @return the animation
+     */
+    private static LEDCubeAnimation demo( LEDCubeDimension dim ) {
+        LEDCubeAnimation anime = new LEDCubeAnimation( new LEDCubeState( dim ) );
+        LEDCubeShaper shaper = new LEDCubeShaper( dim );
+        for( LEDCubePoint point: shaper.fullCube() ) {
+            anime.add( new LEDCubeLight( point, LEDCubeColor.BLUE ) );
+        }
+        for( LEDCubePoint point: shaper.fullCube() ) {
+            anime.add( new LEDCubeLight( point, LEDCubeColor.BLACK ) );
+        }
+        return anime;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Arrays;
+
+/**
+ *  Blends states of the same dimension.
+ *  Uses the {@code LEDCubeVectorBlender} if the module
+ *  {@code jdk.incubator.vector} is there, else the scalar blender.
+ *  Setting the system property {@code de.reimanndaniel.ledcube.scalar} to
+ *  {@code true} always uses the scalar blender.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeCompositor
+ */
+public final class LEDCubeBlend {
+
+    /**
+     *  Enum like value for adding the colors, each channel is cut at 255.
+     */
+    public static final int ModeAdd = 1;
+    /**
+     *  Enum like value for the brighter color in each channel.
+     */
+    public static final int ModeMax = 2;
+    /**
+     *  Enum like value for putting the colors over by their alpha.
+     */
+    public static final int ModeOver = 3;
+    /**
+     *  Enum like value for multiplying the colors, 255 is 1.
+     */
+    public static final int ModeMultiply = 4;
+
+    /**
+     *  The scalar blender.
+     */
+    public static final LEDCubeBlender SCALAR = new LEDCubeScalarBlender();
+
+    /**
+     *  The fastest blender of the platform.
+     */
+    private static final LEDCubeBlender BLENDER = load();
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeBlend() {
+    }
+
+    /**
+     *  Loads the vector blender if possible.
+     *
+     *  @return the vector blender or the scalar blender
+     */
+    private static LEDCubeBlender load() {
+        if( Boolean.getBoolean( "de.reimanndaniel.ledcube.scalar" ) ) {
+            return SCALAR;
+        }
+        try {
+            Class<? extends LEDCubeBlender> type = Class.forName( "de.reimanndaniel.ledcube.effect.LEDCubeVectorBlender" )
+                .asSubclass( LEDCubeBlender.class );
+            LEDCubeBlender blender = type.getDeclaredConstructor().newInstance();
+            // the module may be there but not work on this platform
+            return matches( blender ) ? blender : SCALAR;
+        }
+        catch( ReflectiveOperationException e ) {
+            return SCALAR;
+        }
+        catch( LinkageError e ) {
+            return SCALAR;
+        }
+        catch( RuntimeException e ) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     *  Compares a blender with the scalar blender in all modes.
+     *  The probe is longer than the widest vector, so the vector loop and
+     *  the rest both run.
+     *
+     *  @param blender the blender to check
+     *  @return whether it blends like the scalar blender
+     */
+    private static boolean matches( LEDCubeBlender blender ) {
+        int length = 67;
+        int[] src = new int[length];
+        int[] probe = new int[length];
+        int seed = 0x2545F491;
+        for( int ai = 0; ai < length; ai++ ) {
+            seed = seed * 1103515245 + 12345;
+            src[ai] = seed;
+            seed = seed * 1103515245 + 12345;
+            probe[ai] = seed;
+        }
+        for( int mode = ModeAdd; mode <= ModeMultiply; mode++ ) {
+            int[] expected = probe.clone();
+            int[] actual = probe.clone();
+            SCALAR.blend( mode, expected, src, length );
+            blender.blend( mode, actual, src, length );
+            if( !Arrays.equals( expected, actual ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  @return the blender used by {@code blend()}
+     */
+    public static LEDCubeBlender getBlender() {
+        return BLENDER;
+    }
+
+    /**
+     *  @return whether the vector API is used
+     */
+    public static boolean isVectorized() {
+        return BLENDER != SCALAR;
+    }
+
+    /**
+     *  Blends a state onto another.
+     *
+     *  @param mode one of the {@code Mode} values
+     *  @param dst the state below, changed to the result
+     *  @param src the state on top
+     */
+    public static void blend( int mode, LEDCubeState dst, LEDCubeState src ) {
+        if( !dst.getDimension().equals( src.getDimension() ) ) {
+            throw new IllegalArgumentException( "The dimensions of the states differ." );
+        }
+        int[] buffer = dst.getBuffer();
+        BLENDER.blend( mode, buffer, src.getBuffer(), buffer.length );
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+/**
+ *  Blends buffers of packed colors.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBlend
+ */
+public interface LEDCubeBlender {
+
+    /**
+     *  Blends colors onto colors.
+     *
+     *  @param mode one of the {@code Mode} values of {@code LEDCubeBlend}
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param length the number of colors
+     */
+    public void blend( int mode, int[] dst, int[] src, int length );
+
+}
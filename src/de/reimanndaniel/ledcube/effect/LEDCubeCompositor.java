@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Arrays;
+
+/**
+ *  Composites the frames of several sources into one frame.
+ *  The first layer is the base and ends the composition when it ends, the
+ *  other layers are blended over it in the order they were added and start
+ *  again when they end. A layer whose source can not start again, like a
+ *  stream, is left out after its end. Each layer renders into its own
+ *  state, so the sources keep their previous frame.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBlend
+ */
+public class LEDCubeCompositor implements LEDCubeFrameSource {
+
+    /**
+     *  The dimension of the frames.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The sources of the layers.
+     */
+    private LEDCubeFrameSource[] sources;
+    /**
+     *  The blend modes of the layers.
+     */
+    private int[] modes;
+    /**
+     *  The frames of the layers.
+     */
+    private LEDCubeState[] states;
+    /**
+     *  Whether each layer ended and can not start again.
+     */
+    private boolean[] ended;
+    /**
+     *  The number of layers.
+     */
+    private int count;
+
+    /**
+     *  Creates a compositor with a base layer.
+     *
+     *  @param base the source of the base layer
+     */
+    public LEDCubeCompositor( LEDCubeFrameSource base ) {
+        this.dim = base.getDimension();
+        this.sources = new LEDCubeFrameSource[4];
+        this.modes = new int[4];
+        this.states = new LEDCubeState[4];
+        this.ended = new boolean[4];
+        add( base, LEDCubeBlend.ModeOver );
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the number of layers including the base
+     */
+    public int getLayerCount() {
+        return count;
+    }
+
+    /**
+     *  Adds a layer on top.
+     *
+     *  @param source the source of the layer
+     *  @param mode one of the {@code Mode} values of {@code LEDCubeBlend}
+     *  @return this compositor
+     */
+    public LEDCubeCompositor add( LEDCubeFrameSource source, int mode ) {
+        if( !dim.equals( source.getDimension() ) ) {
+            throw new IllegalArgumentException( "The source has another dimension." );
+        }
+        if( mode < LEDCubeBlend.ModeAdd || mode > LEDCubeBlend.ModeMultiply ) {
+            throw new IllegalArgumentException( "The blend mode is unknown." );
+        }
+        if( count == sources.length ) {
+            sources = Arrays.copyOf( sources, count * 2 );
+            modes = Arrays.copyOf( modes, count * 2 );
+            states = Arrays.copyOf( states, count * 2 );
+            ended = Arrays.copyOf( ended, count * 2 );
+        }
+        sources[count] = source;
+        modes[count] = mode;
+        states[count] = new LEDCubeState( dim );
+        count++;
+        return this;
+    }
+
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        if( !sources[0].next( states[0] ) ) {
+            return false;
+        }
+        int[] buffer = frame.getBuffer();
+        System.arraycopy( states[0].getBuffer(), 0, buffer, 0, buffer.length );
+        LEDCubeBlender blender = LEDCubeBlend.getBlender();
+        for( int ai = 1; ai < count; ai++ ) {
+            if( ended[ai] ) {
+                continue;
+            }
+            if( !sources[ai].next( states[ai] ) ) {
+                if( !sources[ai].canRewind() ) {
+                    ended[ai] = true;
+                    continue;
+                }
+                sources[ai].rewind();
+                if( !sources[ai].next( states[ai] ) ) {
+                    continue;
+                }
+            }
+            blender.blend( modes[ai], buffer, states[ai].getBuffer(), buffer.length );
+        }
+        return true;
+    }
+
+    /**
+     *  @return whether the base layer can start again
+     */
+    @Override
+    public boolean canRewind() {
+        return sources[0].canRewind();
+    }
+
+    /**
+     *  Starts all layers again.
+     *  Layers that can not start again keep their position.
+     *
+     *  @throws UnsupportedOperationException if the base can not start again
+     */
+    @Override
+    public void rewind() {
+        sources[0].rewind();
+        for( int ai = 1; ai < count; ai++ ) {
+            if( sources[ai].canRewind() ) {
+                sources[ai].rewind();
+                ended[ai] = false;
+            }
+        }
+    }
+
+}
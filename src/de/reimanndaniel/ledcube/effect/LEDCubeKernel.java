@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+/**
+ *  An effect as a function of the position of a LED and the time.
+ *  A kernel must not change any state while it is evaluated, because the
+ *  engine evaluates it for many LEDs at once on many threads.
+ *  The parameters of an effect are final fields of the kernel.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeKernelEngine
+ *  @see LEDCubeKernels
+ */
+public interface LEDCubeKernel {
+
+    /**
+     *  Computes the color of a LED.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @param t the time since the start of the effect in seconds
+     *  @return the packed color of the LED
+     */
+    public int color( int x, int y, int z, float t );
+
+}
@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  Evaluates a kernel for all LEDs of a state.
+ *  Above a threshold of LEDs the cube is split into slabs along the x axis,
+ *  which are evaluated as tasks of a fork join pool. Each slab is a
+ *  contiguous part of the buffer, so the threads do not share cache lines
+ *  except at the borders.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeKernel
+ */
+public class LEDCubeKernelEngine {
+
+    /**
+     *  The pool to evaluate on.
+     */
+    protected final ForkJoinPool pool;
+    /**
+     *  The number of LEDs below which a slab is not split any more.
+     */
+    protected final int threshold;
+
+    /**
+     *  Creates an engine on the common pool that splits slabs down to
+     *  4096 LEDs.
+     */
+    public LEDCubeKernelEngine() {
+        this( ForkJoinPool.commonPool(), 4096 );
+    }
+
+    /**
+     *  Creates an engine.
+     *
+     *  @param pool the pool to evaluate on
+     *  @param threshold the number of LEDs below which a slab is not split
+     */
+    public LEDCubeKernelEngine( ForkJoinPool pool, int threshold ) {
+        if( threshold < 1 ) {
+            throw new IllegalArgumentException( "The threshold has to be >= 1." );
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     *  @return the pool to evaluate on
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     *  @return the number of LEDs below which a slab is not split
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     *  Evaluates a kernel for all LEDs.
+     *
+     *  @param kernel the kernel
+     *  @param t the time since the start of the effect in seconds
+     *  @param frame the state to write the colors into
+     */
+    public void render( LEDCubeKernel kernel, float t, LEDCubeState frame ) {
+        LEDCubeDimension dim = frame.getDimension();
+        if( dim.getVolume() <= threshold || pool.getParallelism() < 2 ) {
+            slab( kernel, t, frame, 0, dim.getWidth() );
+        }
+        else {
+            pool.invoke( new Slab( kernel, t, frame, 0, dim.getWidth() ) );
+        }
+    }
+
+    /**
+     *  Evaluates a kernel for the LEDs of a slab.
+     *
+     *  @param kernel the kernel
+     *  @param t the time since the start of the effect in seconds
+     *  @param frame the state to write the colors into
+     *  @param from the first x layer of the slab
+     *  @param to the x layer after the slab
+     */
+    protected static void slab( LEDCubeKernel kernel, float t, LEDCubeState frame, int from, int to ) {
+        LEDCubeDimension dim = frame.getDimension();
+        int height = dim.getHeight();
+        int depth = dim.getDepth();
+        int[] leds = frame.getBuffer();
+        int index = dim.index( from, 0, 0 );
+        for( int ax = from; ax < to; ax++ ) {
+            for( int ay = 0; ay < height; ay++ ) {
+                for( int az = 0; az < depth; az++ ) {
+                    leds[index++] = kernel.color( ax, ay, az, t );
+                }
+            }
+        }
+    }
+
+    /**
+     *  A task that splits a slab in halves until it is below the threshold.
+     */
+    protected class Slab extends RecursiveAction {
+
+        /**
+         *  For serialization of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         *  The kernel.
+         */
+        private final LEDCubeKernel kernel;
+        /**
+         *  The time since the start of the effect in seconds.
+         */
+        private final float t;
+        /**
+         *  The state to write the colors into.
+         */
+        private final LEDCubeState frame;
+        /**
+         *  The first x layer of the slab.
+         */
+        private final int from;
+        /**
+         *  The x layer after the slab.
+         */
+        private final int to;
+
+        /**
+         *  Creates a task.
+         *
+         *  @param kernel the kernel
+         *  @param t the time since the start of the effect in seconds
+         *  @param frame the state to write the colors into
+         *  @param from the first x layer of the slab
+         *  @param to the x layer after the slab
+         */
+        Slab( LEDCubeKernel kernel, float t, LEDCubeState frame, int from, int to ) {
+            this.kernel = kernel;
+            this.t = t;
+            this.frame = frame;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            LEDCubeDimension dim = frame.getDimension();
+            int layer = dim.getHeight() * dim.getDepth();
+            if( to - from < 2 || ( to - from ) * layer <= threshold ) {
+                slab( kernel, t, frame, from, to );
+                return;
+            }
+            int half = ( from + to ) >>> 1;
+            invokeAll( new Slab( kernel, t, frame, from, half ), new Slab( kernel, t, frame, half, to ) );
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import de.reimanndaniel.ledcube.player.LEDCubeGenerator;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+
+/**
+ *  An endless source that evaluates a kernel for each frame.
+ *  The time of a frame is its number divided by the frame rate.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeKernelEngine
+ */
+public class LEDCubeKernelSource extends LEDCubeGenerator {
+
+    /**
+     *  The kernel of the effect.
+     */
+    protected final LEDCubeKernel kernel;
+    /**
+     *  The engine to evaluate the kernel.
+     */
+    protected final LEDCubeKernelEngine engine;
+    /**
+     *  The frames per second.
+     */
+    protected final float framerate;
+
+    /**
+     *  Creates a source of 60 frames per second on the common pool.
+     *
+     *  @param dim the dimension of the frames
+     *  @param kernel the kernel of the effect
+     */
+    public LEDCubeKernelSource( LEDCubeDimension dim, LEDCubeKernel kernel ) {
+        this( dim, kernel, new LEDCubeKernelEngine(), 60f );
+    }
+
+    /**
+     *  Creates a source.
+     *
+     *  @param dim the dimension of the frames
+     *  @param kernel the kernel of the effect
+     *  @param engine the engine to evaluate the kernel
+     *  @param framerate the frames per second
+     */
+    public LEDCubeKernelSource( LEDCubeDimension dim, LEDCubeKernel kernel, LEDCubeKernelEngine engine, float framerate ) {
+        super( dim );
+        if( !( framerate > 0f ) ) {
+            throw new IllegalArgumentException( "The frame rate has to be > 0." );
+        }
+        this.kernel = kernel;
+        this.engine = engine;
+        this.framerate = framerate;
+    }
+
+    /**
+     *  @return the kernel of the effect
+     */
+    public LEDCubeKernel getKernel() {
+        return kernel;
+    }
+
+    @Override
+    protected void render( LEDCubeState frame, long number ) {
+        engine.render( kernel, (float) ( number / (double) framerate ), frame );
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+
+/**
+ *  The standard kernels.
+ *  Positions are measured in LEDs from the center of the cube, times in
+ *  seconds.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeKernel
+ */
+public final class LEDCubeKernels {
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeKernels() {
+    }
+
+    /**
+     *  A kernel of one color.
+     *
+     *  @param rgba the packed color
+     *  @return the kernel
+     */
+    public static LEDCubeKernel solid( final int rgba ) {
+        return new LEDCubeKernel() {
+            @Override
+            public int color( int x, int y, int z, float t ) {
+                return rgba;
+            }
+        };
+    }
+
+    /**
+     *  A gradient along an axis that moves with the time.
+     *  Standing still the first layer has the color from and the last layer
+     *  the color to. Moving, the gradient runs on mirrored, so after the
+     *  color to it goes back to from and has no edge.
+     *
+     *  @param dim the dimension of the cube
+     *  @param axis the axis of the gradient
+     *  @param from the packed color of the first layer
+     *  @param to the packed color of the last layer
+     *  @param speed the layers per second the gradient moves, 0 to stand still
+     *  @return the kernel
+     */
+    public static LEDCubeKernel gradient( LEDCubeDimension dim, final int axis, final int from, final int to, final float speed ) {
+        final float span = Math.max( 1, dim.getSize( axis ) - 1 );
+        return new LEDCubeKernel() {
+            @Override
+            public int color( int x, int y, int z, float t ) {
+                int layer = axis == LEDCubeDimension.AxisX ? x : axis == LEDCubeDimension.AxisY ? y : z;
+                float f = ( layer + t * speed ) / span;
+                // from 0 to 2 and mirrored back, 0 - 1 is the gradient at rest
+                f = f - 2f * (float) Math.floor( f / 2f );
+                return LEDCubeColor.mix( from, to, f > 1f ? 2f - f : f );
+            }
+        };
+    }
+
+    /**
+     *  A plasma of overlapping sine waves in all colors.
+     *
+     *  @param dim the dimension of the cube
+     *  @param scale the size of the structures, 1 is about the cube
+     *  @param speed the speed of the plasma, 1 is one change per second
+     *  @return the kernel
+     */
+    public static LEDCubeKernel plasma( LEDCubeDimension dim, float scale, final float speed ) {
+        final float cx = ( dim.getWidth() - 1 ) / 2f;
+        final float cy = ( dim.getHeight() - 1 ) / 2f;
+        final float cz = ( dim.getDepth() - 1 ) / 2f;
+        final float k = (float) ( 2 * Math.PI / ( scale * Math.max( Math.max( dim.getWidth(), dim.getHeight() ), dim.getDepth() ) ) );
+        return new LEDCubeKernel() {
+            @Override
+            public int color( int x, int y, int z, float t ) {
+                float px = ( x - cx ) * k;
+                float py = ( y - cy ) * k;
+                float pz = ( z - cz ) * k;
+                float s = t * speed;
+                double v = Math.sin( px + s )
+                    + Math.sin( py - s * 0.7 )
+                    + Math.sin( ( px + py + pz ) * 0.5 + s * 1.3 )
+                    + Math.sin( Math.sqrt( px * px + py * py + pz * pz ) - s );
+                return LEDCubeColor.hsv( (float) ( v / 8.0 ) + s * 0.05f, 1f, 1f );
+            }
+        };
+    }
+
+    /**
+     *  Waves running out of the center of the cube.
+     *
+     *  @param dim the dimension of the cube
+     *  @param wavelength the distance between two waves in LEDs
+     *  @param speed the waves per second
+     *  @param rgba the packed color of the waves
+     *  @return the kernel
+     */
+    public static LEDCubeKernel waves( LEDCubeDimension dim, final float wavelength, final float speed, final int rgba ) {
+        if( !( wavelength > 0f ) ) {
+            throw new IllegalArgumentException( "The wavelength has to be > 0." );
+        }
+        final float cx = ( dim.getWidth() - 1 ) / 2f;
+        final float cy = ( dim.getHeight() - 1 ) / 2f;
+        final float cz = ( dim.getDepth() - 1 ) / 2f;
+        return new LEDCubeKernel() {
+            @Override
+            public int color( int x, int y, int z, float t ) {
+                float dx = x - cx;
+                float dy = y - cy;
+                float dz = z - cz;
+                double d = Math.sqrt( dx * dx + dy * dy + dz * dz );
+                double v = 0.5 + 0.5 * Math.cos( 2 * Math.PI * ( d / wavelength - t * speed ) );
+                return LEDCubeColor.mix( LEDCubeColor.BLACK, rgba, (float) ( v * v ) );
+            }
+        };
+    }
+
+    /**
+     *  Smooth value noise flowing through the cube.
+     *  The same seed gives the same noise.
+     *
+     *  @param seed the seed of the noise
+     *  @param scale the size of the structures in LEDs
+     *  @param speed the LEDs per second the noise flows along the z axis
+     *  @param from the packed color of the lowest noise
+     *  @param to the packed color of the highest noise
+     *  @return the kernel
+     */
+    public static LEDCubeKernel noise( final long seed, final float scale, final float speed, final int from, final int to ) {
+        if( !( scale > 0f ) ) {
+            throw new IllegalArgumentException( "The scale has to be > 0." );
+        }
+        return new LEDCubeKernel() {
+            @Override
+            public int color( int x, int y, int z, float t ) {
+                float v = noise( seed, x / scale, y / scale, ( z + t * speed ) / scale );
+                return LEDCubeColor.mix( from, to, v );
+            }
+        };
+    }
+
+    /**
+     *  Computes smooth value noise at a point.
+     *
+     *  @param seed the seed of the noise
+     *  @param x the x coordinate
+     *  @param y the y coordinate
+     *  @param z the z coordinate
+     *  @return the noise, 0 - 1
+     */
+    public static float noise( long seed, float x, float y, float z ) {
+        int ix = (int) Math.floor( x );
+        int iy = (int) Math.floor( y );
+        int iz = (int) Math.floor( z );
+        float fx = smooth( x - ix );
+        float fy = smooth( y - iy );
+        float fz = smooth( z - iz );
+        float x00 = lerp( hash( seed, ix, iy, iz ), hash( seed, ix + 1, iy, iz ), fx );
+        float x10 = lerp( hash( seed, ix, iy + 1, iz ), hash( seed, ix + 1, iy + 1, iz ), fx );
+        float x01 = lerp( hash( seed, ix, iy, iz + 1 ), hash( seed, ix + 1, iy, iz + 1 ), fx );
+        float x11 = lerp( hash( seed, ix, iy + 1, iz + 1 ), hash( seed, ix + 1, iy + 1, iz + 1 ), fx );
+        return lerp( lerp( x00, x10, fy ), lerp( x01, x11, fy ), fz );
+    }
+
+    /**
+     *  Hashes a lattice point to a value.
+     *
+     *  @param seed the seed of the noise
+     *  @param x the x coordinate
+     *  @param y the y coordinate
+     *  @param z the z coordinate
+     *  @return the value, 0 - 1
+     */
+    private static float hash( long seed, int x, int y, int z ) {
+        long h = seed ^ ( x * 0x9E3779B97F4A7C15L ) ^ ( y * 0xC2B2AE3D27D4EB4FL ) ^ ( z * 0x165667B19E3779F9L );
+        h = ( h ^ ( h >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+        h = ( h ^ ( h >>> 27 ) ) * 0x94D049BB133111EBL;
+        h = h ^ ( h >>> 31 );
+        return ( h >>> 40 ) / (float) ( 1 << 24 );
+    }
+
+    /**
+     *  Eases a fraction, so the noise has no edges at the lattice points.
+     *
+     *  @param f the fraction, 0 - 1
+     *  @return the eased fraction
+     */
+    private static float smooth( float f ) {
+        return f * f * ( 3f - 2f * f );
+    }
+
+    /**
+     *  Interpolates linearly.
+     *
+     *  @param a the value at 0
+     *  @param b the value at 1
+     *  @param f the fraction
+     *  @return the interpolated value
+     */
+    private static float lerp( float a, float b, float f ) {
+        return a + ( b - a ) * f;
+    }
+
+}
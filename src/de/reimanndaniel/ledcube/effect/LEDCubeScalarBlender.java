@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+/**
+ *  Blends packed colors one by one.
+ *  Each channel is computed on its own. The other blenders give exactly
+ *  the same results as this one.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBlend
+ */
+public class LEDCubeScalarBlender implements LEDCubeBlender {
+
+    @Override
+    public void blend( int mode, int[] dst, int[] src, int length ) {
+        blend( mode, dst, src, 0, length );
+    }
+
+    /**
+     *  Blends a part of the colors.
+     *
+     *  @param mode one of the {@code Mode} values of {@code LEDCubeBlend}
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param from the first color
+     *  @param to the color after the last
+     */
+    public static void blend( int mode, int[] dst, int[] src, int from, int to ) {
+        switch( mode ) {
+            case LEDCubeBlend.ModeAdd:
+                for( int ai = from; ai < to; ai++ ) {
+                    dst[ai] = add( dst[ai], src[ai] );
+                }
+                break;
+            case LEDCubeBlend.ModeMax:
+                for( int ai = from; ai < to; ai++ ) {
+                    dst[ai] = max( dst[ai], src[ai] );
+                }
+                break;
+            case LEDCubeBlend.ModeOver:
+                for( int ai = from; ai < to; ai++ ) {
+                    dst[ai] = over( dst[ai], src[ai] );
+                }
+                break;
+            case LEDCubeBlend.ModeMultiply:
+                for( int ai = from; ai < to; ai++ ) {
+                    dst[ai] = multiply( dst[ai], src[ai] );
+                }
+                break;
+            default:
+                throw new IllegalArgumentException( "The blend mode is unknown." );
+        }
+    }
+
+    /**
+     *  Adds two colors, each channel is cut at 255.
+     *
+     *  @param d the packed color below
+     *  @param s the packed color on top
+     *  @return the packed sum
+     */
+    public static int add( int d, int s ) {
+        int r = Math.min( 255, ( d >>> 24 ) + ( s >>> 24 ) );
+        int g = Math.min( 255, ( ( d >>> 16 ) & 0xFF ) + ( ( s >>> 16 ) & 0xFF ) );
+        int b = Math.min( 255, ( ( d >>> 8 ) & 0xFF ) + ( ( s >>> 8 ) & 0xFF ) );
+        int a = Math.min( 255, ( d & 0xFF ) + ( s & 0xFF ) );
+        return r << 24 | g << 16 | b << 8 | a;
+    }
+
+    /**
+     *  Takes the brighter of two colors in each channel.
+     *
+     *  @param d the packed color below
+     *  @param s the packed color on top
+     *  @return the packed maximum
+     */
+    public static int max( int d, int s ) {
+        int r = Math.max( d >>> 24, s >>> 24 );
+        int g = Math.max( ( d >>> 16 ) & 0xFF, ( s >>> 16 ) & 0xFF );
+        int b = Math.max( ( d >>> 8 ) & 0xFF, ( s >>> 8 ) & 0xFF );
+        int a = Math.max( d & 0xFF, s & 0xFF );
+        return r << 24 | g << 16 | b << 8 | a;
+    }
+
+    /**
+     *  Puts a color over another by its alpha.
+     *
+     *  @param d the packed color below
+     *  @param s the packed color on top
+     *  @return the packed result
+     */
+    public static int over( int d, int s ) {
+        int sa = s & 0xFF;
+        int da = 255 - sa;
+        int r = div255( ( s >>> 24 ) * sa + ( d >>> 24 ) * da );
+        int g = div255( ( ( s >>> 16 ) & 0xFF ) * sa + ( ( d >>> 16 ) & 0xFF ) * da );
+        int b = div255( ( ( s >>> 8 ) & 0xFF ) * sa + ( ( d >>> 8 ) & 0xFF ) * da );
+        int a = sa + div255( ( d & 0xFF ) * da );
+        return r << 24 | g << 16 | b << 8 | a;
+    }
+
+    /**
+     *  Multiplies two colors, 255 is 1.
+     *
+     *  @param d the packed color below
+     *  @param s the packed color on top
+     *  @return the packed product
+     */
+    public static int multiply( int d, int s ) {
+        int r = div255( ( d >>> 24 ) * ( s >>> 24 ) );
+        int g = div255( ( ( d >>> 16 ) & 0xFF ) * ( ( s >>> 16 ) & 0xFF ) );
+        int b = div255( ( ( d >>> 8 ) & 0xFF ) * ( ( s >>> 8 ) & 0xFF ) );
+        int a = div255( ( d & 0xFF ) * ( s & 0xFF ) );
+        return r << 24 | g << 16 | b << 8 | a;
+    }
+
+    /**
+     *  Divides by 255 and rounds, exact for 0 - 65025.
+     *
+     *  @param x the value
+     *  @return the rounded quotient
+     */
+    public static int div255( int x ) {
+        x += 128;
+        return ( x + ( x >>> 8 ) ) >>> 8;
+    }
+
+}
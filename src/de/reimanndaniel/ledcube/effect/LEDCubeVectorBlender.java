@@ -0,0 +1,191 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ *  Blends packed colors with the vector API.
+ *  As many colors as fit into the vector registers are blended at once,
+ *  the rest with the {@code LEDCubeScalarBlender}. Adding and the maximum
+ *  work on the bytes, the other modes on two channels per int. The results are exactly
+ *  the same as of the scalar blender.
+ *  Needs the module {@code jdk.incubator.vector}, so it is only loaded by
+ *  name and {@code LEDCubeBlend} falls back to the scalar blender without.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBlend
+ */
+public class LEDCubeVectorBlender implements LEDCubeBlender {
+
+    /**
+     *  The preferred vector shape of the platform.
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    /**
+     *  The red and blue channels or the green and alpha channels of a
+     *  packed color, each in the low byte of a 16 bit field.
+     */
+    private static final int FIELDS = 0x00FF00FF;
+    /**
+     *  The rounding of {@code div255} in both fields.
+     */
+    private static final int ROUND = 0x00800080;
+
+    @Override
+    public void blend( int mode, int[] dst, int[] src, int length ) {
+        int bound = SPECIES.loopBound( length );
+        switch( mode ) {
+            case LEDCubeBlend.ModeAdd:
+                add( dst, src, bound );
+                break;
+            case LEDCubeBlend.ModeMax:
+                max( dst, src, bound );
+                break;
+            case LEDCubeBlend.ModeOver:
+                over( dst, src, bound );
+                break;
+            case LEDCubeBlend.ModeMultiply:
+                multiply( dst, src, bound );
+                break;
+            default:
+                throw new IllegalArgumentException( "The blend mode is unknown." );
+        }
+        LEDCubeScalarBlender.blend( mode, dst, src, bound, length );
+    }
+
+    /**
+     *  Adds the colors on the bytes, each channel is cut at 255.
+     *  Adding the unsigned minimum of the top and the inverted bottom can
+     *  not overflow a byte.
+     *
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param bound the number of colors, a multiple of the vector length
+     */
+    private static void add( int[] dst, int[] src, int bound ) {
+        for( int ai = 0; ai < bound; ai += SPECIES.length() ) {
+            ByteVector d = IntVector.fromArray( SPECIES, dst, ai ).reinterpretAsBytes();
+            ByteVector s = IntVector.fromArray( SPECIES, src, ai ).reinterpretAsBytes();
+            d.add( umin( s, d.not() ) ).reinterpretAsInts().intoArray( dst, ai );
+        }
+    }
+
+    /**
+     *  Takes the brighter color in each channel on the bytes.
+     *
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param bound the number of colors, a multiple of the vector length
+     */
+    private static void max( int[] dst, int[] src, int bound ) {
+        for( int ai = 0; ai < bound; ai += SPECIES.length() ) {
+            ByteVector d = IntVector.fromArray( SPECIES, dst, ai ).reinterpretAsBytes();
+            ByteVector s = IntVector.fromArray( SPECIES, src, ai ).reinterpretAsBytes();
+            // flipping the sign bit orders unsigned bytes like signed ones
+            d.lanewise( VectorOperators.XOR, (byte) 0x80 )
+                .max( s.lanewise( VectorOperators.XOR, (byte) 0x80 ) )
+                .lanewise( VectorOperators.XOR, (byte) 0x80 )
+                .reinterpretAsInts().intoArray( dst, ai );
+        }
+    }
+
+    /**
+     *  Puts the colors over by their alpha.
+     *  Two channels are blended at once in the fields of an int, the
+     *  products of two bytes fit into 16 bits.
+     *
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param bound the number of colors, a multiple of the vector length
+     */
+    private static void over( int[] dst, int[] src, int bound ) {
+        for( int ai = 0; ai < bound; ai += SPECIES.length() ) {
+            IntVector d = IntVector.fromArray( SPECIES, dst, ai );
+            IntVector s = IntVector.fromArray( SPECIES, src, ai );
+            IntVector sa = s.and( 0xFF );
+            IntVector da = sa.neg().add( 255 );
+            IntVector rb = s.lanewise( VectorOperators.LSHR, 8 ).and( FIELDS ).mul( sa )
+                .add( d.lanewise( VectorOperators.LSHR, 8 ).and( FIELDS ).mul( da ) );
+            // the alpha of the top is added after dividing
+            IntVector ga = s.and( 0x00FF0000 ).mul( sa )
+                .add( d.and( FIELDS ).mul( da ) );
+            div255( rb ).lanewise( VectorOperators.LSHL, 8 )
+                .or( div255( ga ).add( sa ) )
+                .intoArray( dst, ai );
+        }
+    }
+
+    /**
+     *  Multiplies the colors, 255 is 1.
+     *
+     *  @param dst the packed colors below, changed to the result
+     *  @param src the packed colors on top
+     *  @param bound the number of colors, a multiple of the vector length
+     */
+    private static void multiply( int[] dst, int[] src, int bound ) {
+        for( int ai = 0; ai < bound; ai += SPECIES.length() ) {
+            IntVector d = IntVector.fromArray( SPECIES, dst, ai );
+            IntVector s = IntVector.fromArray( SPECIES, src, ai );
+            // the fields of the bottom times single channels of the top
+            IntVector drb = d.lanewise( VectorOperators.LSHR, 8 ).and( FIELDS );
+            IntVector dga = d.and( FIELDS );
+            IntVector r = drb.and( 0x00FF0000 ).mul( s.lanewise( VectorOperators.LSHR, 24 ) );
+            IntVector b = drb.and( 0xFF ).mul( s.lanewise( VectorOperators.LSHR, 8 ).and( 0xFF ) );
+            IntVector g = dga.and( 0x00FF0000 ).mul( s.lanewise( VectorOperators.LSHR, 16 ).and( 0xFF ) );
+            IntVector a = dga.and( 0xFF ).mul( s.and( 0xFF ) );
+            div255( r.or( b ) ).lanewise( VectorOperators.LSHL, 8 )
+                .or( div255( g.or( a ) ) )
+                .intoArray( dst, ai );
+        }
+    }
+
+    /**
+     *  Takes the unsigned minimum of bytes.
+     *
+     *  @param a the bytes
+     *  @param b the other bytes
+     *  @return the unsigned minimum
+     */
+    private static ByteVector umin( ByteVector a, ByteVector b ) {
+        return a.lanewise( VectorOperators.XOR, (byte) 0x80 )
+            .min( b.lanewise( VectorOperators.XOR, (byte) 0x80 ) )
+            .lanewise( VectorOperators.XOR, (byte) 0x80 );
+    }
+
+    /**
+     *  Divides both fields by 255 and rounds like
+     *  {@code LEDCubeScalarBlender.div255}.
+     *
+     *  @param x the fields, each 0 - 65025
+     *  @return the rounded quotients in the low bytes of the fields
+     */
+    private static IntVector div255( IntVector x ) {
+        IntVector y = x.add( ROUND );
+        return y.add( y.lanewise( VectorOperators.LSHR, 8 ).and( FIELDS ) )
+            .lanewise( VectorOperators.LSHR, 8 ).and( FIELDS );
+    }
+
+}
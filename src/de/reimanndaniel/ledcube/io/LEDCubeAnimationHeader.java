@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ *  The header of an animation file.
+ *  The file starts with the magic {@code JLCA}, the version byte, the
+ *  width, height and depth, the keyframe interval and the frame rate.
+ *  Each frame follows as record of a type byte, the length of the payload
+ *  as int and the payload encoded by {@code LEDCubeFrameCodec}.
+ *  All numbers are big endian.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeFrameCodec
+ */
+public class LEDCubeAnimationHeader {
+
+    /**
+     *  The magic at the start of the file.
+     */
+    public static final int MAGIC = 0x4A4C4341;
+    /**
+     *  The version of the file format.
+     */
+    public static final byte VERSION = 1;
+    /**
+     *  The size of the header in bytes.
+     */
+    public static final int SIZE = 25;
+    /**
+     *  The size of the record head of a frame in bytes.
+     */
+    public static final int RECORD_SIZE = 5;
+    /**
+     *  Record type of a keyframe.
+     */
+    public static final byte KEYFRAME = 1;
+    /**
+     *  Record type of a delta frame.
+     */
+    public static final byte DELTA = 2;
+
+    /**
+     *  The dimension of the animation.
+     */
+    private final LEDCubeDimension dim;
+    /**
+     *  The number of frames between keyframes.
+     */
+    private final int keyinterval;
+    /**
+     *  The frames per second.
+     */
+    private final float framerate;
+
+    /**
+     *  Creates a header.
+     *
+     *  @param dim the dimension of the animation
+     *  @param keyinterval the number of frames between keyframes
+     *  @param framerate the frames per second
+     */
+    public LEDCubeAnimationHeader( LEDCubeDimension dim, int keyinterval, float framerate ) {
+        if( keyinterval < 1 ) {
+            throw new IllegalArgumentException( "The keyframe interval has to be >= 1." );
+        }
+        if( !( framerate > 0f ) ) {
+            throw new IllegalArgumentException( "The frame rate has to be > 0." );
+        }
+        this.dim = dim;
+        this.keyinterval = keyinterval;
+        this.framerate = framerate;
+    }
+
+    /**
+     *  Reads a header.
+     *
+     *  @param in the buffer with the header at its position
+     *  @return the header
+     *  @throws IOException if the buffer has no valid header
+     */
+    public static LEDCubeAnimationHeader read( ByteBuffer in ) throws IOException {
+        if( in.remaining() < SIZE || in.getInt() != MAGIC ) {
+            throw new IOException( "This is no JLEDCube animation." );
+        }
+        byte version = in.get();
+        if( version != VERSION ) {
+            throw new IOException( "The animation version " + version + " is not supported." );
+        }
+        try {
+            LEDCubeDimension dim = new LEDCubeDimension( in.getInt(), in.getInt(), in.getInt() );
+            return new LEDCubeAnimationHeader( dim, in.getInt(), in.getFloat() );
+        }
+        catch( IllegalArgumentException e ) {
+            throw new IOException( "The animation header is corrupt.", e );
+        }
+    }
+
+    /**
+     *  Writes the header.
+     *
+     *  @param out the buffer to write to
+     */
+    public void write( ByteBuffer out ) {
+        out.putInt( MAGIC );
+        out.put( VERSION );
+        out.putInt( dim.getWidth() );
+        out.putInt( dim.getHeight() );
+        out.putInt( dim.getDepth() );
+        out.putInt( keyinterval );
+        out.putFloat( framerate );
+    }
+
+    /**
+     *  @return the dimension of the animation
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the number of frames between keyframes
+     */
+    public int getKeyframeInterval() {
+        return keyinterval;
+    }
+
+    /**
+     *  @return the frames per second
+     */
+    public float getFrameRate() {
+        return framerate;
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ *  Reads the frames of an animation file one after another.
+ *  As frame source it can not rewind, so a repeating player ends it
+ *  instead. Use {@code LEDCubeMappedAnimation} for files that should repeat.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimationWriter
+ */
+public class LEDCubeAnimationReader implements LEDCubeFrameSource, Closeable {
+
+    /**
+     *  The stream to read from.
+     */
+    protected final DataInputStream in;
+    /**
+     *  The header of the animation.
+     */
+    protected final LEDCubeAnimationHeader header;
+    /**
+     *  The current frame.
+     */
+    private final int[] current;
+    /**
+     *  The buffer for one record.
+     */
+    private final ByteBuffer record;
+    /**
+     *  The number of read frames.
+     */
+    private long frames;
+
+    /**
+     *  Creates a reader and reads the header.
+     *
+     *  @param in the stream to read from
+     *  @throws IOException if the stream has no valid header
+     */
+    public LEDCubeAnimationReader( InputStream in ) throws IOException {
+        this.in = new DataInputStream( in );
+        byte[] head = new byte[LEDCubeAnimationHeader.SIZE];
+        try {
+            this.in.readFully( head );
+        }
+        catch( EOFException e ) {
+            throw new IOException( "This is no JLEDCube animation.", e );
+        }
+        this.header = LEDCubeAnimationHeader.read( ByteBuffer.wrap( head ) );
+        LEDCubeDimension dim = header.getDimension();
+        int size = dim.getWidth() * dim.getHeight() * dim.getDepth();
+        this.current = new int[size];
+        this.record = ByteBuffer.allocate( LEDCubeFrameCodec.maxFrameSize( size ) );
+    }
+
+    /**
+     *  @return the header of the animation
+     */
+    public LEDCubeAnimationHeader getHeader() {
+        return header;
+    }
+
+    /**
+     *  @return the dimension of the animation
+     */
+    @Override
+    public LEDCubeDimension getDimension() {
+        return header.getDimension();
+    }
+
+    /**
+     *  @return the number of read frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     *  Reads the next frame.
+     *
+     *  @param state the state to write the frame into
+     *  @return whether there was another frame
+     *  @throws IOException if the frame could not be read
+     */
+    public boolean readFrame( LEDCubeState state ) throws IOException {
+        int type = in.read();
+        if( type < 0 ) {
+            return false;
+        }
+        int length = in.readInt();
+        if( length < 0 || length > record.capacity() ) {
+            throw new IOException( "The frame " + frames + " is corrupt." );
+        }
+        in.readFully( record.array(), 0, length );
+        record.clear();
+        record.limit( length );
+        try {
+            if( type == LEDCubeAnimationHeader.KEYFRAME ) {
+                LEDCubeFrameCodec.decodeKeyframe( record, current );
+            }
+            else if( type == LEDCubeAnimationHeader.DELTA && frames > 0 ) {
+                LEDCubeFrameCodec.decodeDelta( record, current );
+            }
+            else {
+                throw new IOException( "The frame " + frames + " has an unknown type." );
+            }
+        }
+        catch( IllegalArgumentException e ) {
+            throw new IOException( "The frame " + frames + " is corrupt.", e );
+        }
+        catch( BufferUnderflowException e ) {
+            throw new IOException( "The frame " + frames + " is corrupt.", e );
+        }
+        state.copyFrom( current );
+        frames++;
+        return true;
+    }
+
+    /**
+     *  Reads the next frame.
+     *
+     *  @param frame the state to write the frame into
+     *  @return whether there was another frame
+     *  @throws UncheckedIOException if the frame could not be read
+     */
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        try {
+            return readFrame( frame );
+        }
+        catch( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     *  @return false, a stream can not start again
+     */
+    @Override
+    public boolean canRewind() {
+        return false;
+    }
+
+    /**
+     *  A stream can not start again.
+     *
+     *  @throws UnsupportedOperationException always
+     */
+    @Override
+    public void rewind() {
+        throw new UnsupportedOperationException( "A stream can not start again." );
+    }
+
+    /**
+     *  Reads all remaining frames into an animation of states.
+     *
+     *  @return the animation or null if there are no frames
+     *  @throws IOException if a frame could not be read
+     */
+    public LEDCubeAnimation readAnimation() throws IOException {
+        LEDCubeState frame = new LEDCubeState( header.getDimension() );
+        if( !readFrame( frame ) ) {
+            return null;
+        }
+        LEDCubeAnimation anime = new LEDCubeAnimation( frame );
+        frame = new LEDCubeState( header.getDimension() );
+        while( readFrame( frame ) ) {
+            anime.add( frame );
+            frame = new LEDCubeState( header.getDimension() );
+        }
+        return anime;
+    }
+
+    /**
+     *  Closes the stream.
+     *
+     *  @throws IOException if the stream could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
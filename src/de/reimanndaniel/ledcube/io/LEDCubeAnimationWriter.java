@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ *  Writes frames into an animation file.
+ *  Every keyframe interval a full keyframe is written, in between only the
+ *  LEDs changed since the previous frame.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimationHeader
+ *  @see LEDCubeAnimationReader
+ */
+public class LEDCubeAnimationWriter implements Closeable {
+
+    /**
+     *  The stream to write to.
+     */
+    protected final OutputStream out;
+    /**
+     *  The header of the animation.
+     */
+    protected final LEDCubeAnimationHeader header;
+    /**
+     *  The previous frame.
+     */
+    private final int[] prev;
+    /**
+     *  The buffer for one record.
+     */
+    private final ByteBuffer record;
+    /**
+     *  The number of written frames.
+     */
+    private long frames;
+
+    /**
+     *  Creates a writer with a keyframe every 60 frames at 60 frames per second.
+     *
+     *  @param out the stream to write to
+     *  @param dim the dimension of the animation
+     *  @throws IOException if the header could not be written
+     */
+    public LEDCubeAnimationWriter( OutputStream out, LEDCubeDimension dim ) throws IOException {
+        this( out, new LEDCubeAnimationHeader( dim, 60, 60f ) );
+    }
+
+    /**
+     *  Creates a writer.
+     *
+     *  @param out the stream to write to
+     *  @param header the header of the animation
+     *  @throws IOException if the header could not be written
+     */
+    public LEDCubeAnimationWriter( OutputStream out, LEDCubeAnimationHeader header ) throws IOException {
+        this.out = out;
+        this.header = header;
+        LEDCubeDimension dim = header.getDimension();
+        int size = dim.getWidth() * dim.getHeight() * dim.getDepth();
+        this.prev = new int[size];
+        this.record = ByteBuffer.allocate( LEDCubeAnimationHeader.RECORD_SIZE + LEDCubeFrameCodec.maxFrameSize( size ) );
+        header.write( record );
+        out.write( record.array(), 0, record.position() );
+    }
+
+    /**
+     *  @return the header of the animation
+     */
+    public LEDCubeAnimationHeader getHeader() {
+        return header;
+    }
+
+    /**
+     *  @return the number of written frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     *  Writes the next frame.
+     *
+     *  @param state the frame
+     *  @throws IOException if the frame could not be written
+     */
+    public void writeFrame( LEDCubeState state ) throws IOException {
+        if( !header.getDimension().equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        int[] frame = state.getBuffer();
+        record.clear();
+        record.position( LEDCubeAnimationHeader.RECORD_SIZE );
+        byte type = LEDCubeAnimationHeader.DELTA;
+        if( frames % header.getKeyframeInterval() == 0 ) {
+            type = LEDCubeAnimationHeader.KEYFRAME;
+        }
+        else if( LEDCubeFrameCodec.encodeDelta( prev, frame, record ) * 2 > frame.length ) {
+            // a delta of most LEDs is bigger than a keyframe
+            record.position( LEDCubeAnimationHeader.RECORD_SIZE );
+            type = LEDCubeAnimationHeader.KEYFRAME;
+        }
+        if( type == LEDCubeAnimationHeader.KEYFRAME ) {
+            LEDCubeFrameCodec.encodeKeyframe( frame, record );
+        }
+        int length = record.position();
+        record.put( 0, type );
+        record.putInt( 1, length - LEDCubeAnimationHeader.RECORD_SIZE );
+        out.write( record.array(), 0, length );
+        System.arraycopy( frame, 0, prev, 0, frame.length );
+        frames++;
+    }
+
+    /**
+     *  Writes the frames of a source until it ends.
+     *  The source is used from its current position.
+     *
+     *  @param source the source of the frames
+     *  @param max the maximal number of frames to write
+     *  @return the number of written frames
+     *  @throws IOException if a frame could not be written
+     */
+    public long write( LEDCubeFrameSource source, long max ) throws IOException {
+        LEDCubeState frame = new LEDCubeState( header.getDimension() );
+        long written = 0;
+        while( written < max && source.next( frame ) ) {
+            writeFrame( frame );
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     *  Writes an animation with one frame for each element.
+     *
+     *  @param anime the animation
+     *  @throws IOException if the animation could not be written
+     */
+    public void writeAnimation( LEDCubeAnimation anime ) throws IOException {
+        write( anime.createSource(), Long.MAX_VALUE );
+    }
+
+    /**
+     *  Flushes the stream.
+     *
+     *  @throws IOException if the stream could not be flushed
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     *  Closes the stream.
+     *
+     *  @throws IOException if the stream could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
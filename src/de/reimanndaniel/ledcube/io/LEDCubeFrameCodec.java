@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ *  Encodes and decodes the packed colors of a frame.
+ *  A keyframe is a list of runs of equal colors, each stored as varint
+ *  length and color. A delta frame is a varint number of runs of changed
+ *  LEDs, each stored as varint gap to the end of the previous run, varint
+ *  length and the new colors.
+ *  Colors are stored as big endian RGBA8 ints.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimationWriter
+ */
+public final class LEDCubeFrameCodec {
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeFrameCodec() {
+    }
+
+    /**
+     *  Returns the maximal size of an encoded frame.
+     *
+     *  @param size the number of LEDs
+     *  @return the maximal number of bytes of a keyframe or delta frame
+     */
+    public static int maxFrameSize( int size ) {
+        // worst case is a keyframe without two equal neighbours
+        return size * 5 + 16;
+    }
+
+    /**
+     *  Encodes a keyframe.
+     *
+     *  @param frame the packed colors of the frame
+     *  @param out the buffer to write to
+     */
+    public static void encodeKeyframe( int[] frame, ByteBuffer out ) {
+        int ai = 0;
+        while( ai < frame.length ) {
+            int color = frame[ai];
+            int run = 1;
+            while( ai + run < frame.length && frame[ai + run] == color ) {
+                run++;
+            }
+            putVarInt( out, run );
+            out.putInt( color );
+            ai += run;
+        }
+    }
+
+    /**
+     *  Decodes a keyframe.
+     *
+     *  @param in the buffer to read from
+     *  @param frame the packed colors to overwrite
+     */
+    public static void decodeKeyframe( ByteBuffer in, int[] frame ) {
+        int ai = 0;
+        while( ai < frame.length ) {
+            int run = getVarInt( in );
+            int color = in.getInt();
+            if( run <= 0 || ai + run > frame.length ) {
+                throw new IllegalArgumentException( "The keyframe is corrupt." );
+            }
+            for( int end = ai + run; ai < end; ai++ ) {
+                frame[ai] = color;
+            }
+        }
+    }
+
+    /**
+     *  Encodes the difference between two frames.
+     *
+     *  @param prev the packed colors of the previous frame
+     *  @param frame the packed colors of the frame
+     *  @param out the buffer to write to
+     *  @return the number of changed LEDs
+     */
+    public static int encodeDelta( int[] prev, int[] frame, ByteBuffer out ) {
+        int runs = 0;
+        int changed = 0;
+        for( int ai = 0; ai < frame.length; ai++ ) {
+            if( prev[ai] != frame[ai] ) {
+                runs++;
+                while( ai < frame.length && prev[ai] != frame[ai] ) {
+                    ai++;
+                }
+            }
+        }
+        putVarInt( out, runs );
+        int last = 0;
+        int ai = 0;
+        while( ai < frame.length ) {
+            if( prev[ai] == frame[ai] ) {
+                ai++;
+                continue;
+            }
+            int start = ai;
+            while( ai < frame.length && prev[ai] != frame[ai] ) {
+                ai++;
+            }
+            putVarInt( out, start - last );
+            putVarInt( out, ai - start );
+            for( int bi = start; bi < ai; bi++ ) {
+                out.putInt( frame[bi] );
+            }
+            changed += ai - start;
+            last = ai;
+        }
+        return changed;
+    }
+
+    /**
+     *  Decodes a delta frame on top of the previous frame.
+     *
+     *  @param in the buffer to read from
+     *  @param frame the packed colors of the previous frame to change
+     *  @return the number of changed LEDs
+     */
+    public static int decodeDelta( ByteBuffer in, int[] frame ) {
+        int runs = getVarInt( in );
+        int pos = 0;
+        int changed = 0;
+        for( int ai = 0; ai < runs; ai++ ) {
+            pos += getVarInt( in );
+            int run = getVarInt( in );
+            if( pos < 0 || run < 0 || pos + run > frame.length ) {
+                throw new IllegalArgumentException( "The delta frame is corrupt." );
+            }
+            for( int end = pos + run; pos < end; pos++ ) {
+                frame[pos] = in.getInt();
+            }
+            changed += run;
+        }
+        return changed;
+    }
+
+    /**
+     *  Writes a non negative int with 7 bits per byte.
+     *
+     *  @param out the buffer to write to
+     *  @param value the value
+     */
+    public static void putVarInt( ByteBuffer out, int value ) {
+        while( ( value & ~0x7F ) != 0 ) {
+            out.put( (byte) ( ( value & 0x7F ) | 0x80 ) );
+            value >>>= 7;
+        }
+        out.put( (byte) value );
+    }
+
+    /**
+     *  Reads an int written by {@code putVarInt}.
+     *
+     *  @param in the buffer to read from
+     *  @return the value
+     */
+    public static int getVarInt( ByteBuffer in ) {
+        int value = 0;
+        for( int shift = 0; shift < 35; shift += 7 ) {
+            byte b = in.get();
+            value |= ( b & 0x7F ) << shift;
+            if( b >= 0 ) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException( "The varint is too long." );
+    }
+
+}
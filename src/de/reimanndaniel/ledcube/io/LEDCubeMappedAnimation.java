@@ -0,0 +1,302 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.player.LEDCubeSeekableSource;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ *  An animation file mapped into memory.
+ *  The frames are decoded straight from the mapped file into the state.
+ *  Opening the file builds an index of all frames and keyframes, so a seek
+ *  only has to decode from the nearest keyframe before the frame.
+ *  Files have to be smaller than 2 GB.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimationWriter
+ */
+public class LEDCubeMappedAnimation implements LEDCubeSeekableSource, Closeable {
+
+    /**
+     *  The mapped file.
+     */
+    protected final FileChannel channel;
+    /**
+     *  The mapped content of the file.
+     */
+    protected final MappedByteBuffer map;
+    /**
+     *  The header of the animation.
+     */
+    protected final LEDCubeAnimationHeader header;
+    /**
+     *  The position of each frame record in the file.
+     */
+    private int[] frames;
+    /**
+     *  The number of frames.
+     */
+    private int count;
+    /**
+     *  The frame numbers of all keyframes in ascending order.
+     */
+    private int[] keyframes;
+    /**
+     *  The number of keyframes.
+     */
+    private int keycount;
+    /**
+     *  The buffer of the state the last frame was decoded into.
+     */
+    private int[] target;
+    /**
+     *  The number of the frame decoded into the target, -1 if none.
+     */
+    private int decoded;
+    /**
+     *  The number of the frame the next read returns.
+     */
+    private int next;
+
+    /**
+     *  Maps an animation file and indexes its frames.
+     *
+     *  @param file the animation file
+     *  @throws IOException if the file is no valid animation
+     */
+    public LEDCubeMappedAnimation( File file ) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        this.channel = raf.getChannel();
+        boolean mapped = false;
+        try {
+            if( channel.size() > Integer.MAX_VALUE ) {
+                throw new IOException( "The animation is too big to map." );
+            }
+            this.map = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            this.header = LEDCubeAnimationHeader.read( map );
+            index();
+            mapped = true;
+        }
+        finally {
+            if( !mapped ) {
+                raf.close();
+            }
+        }
+        this.decoded = -1;
+        this.next = 0;
+    }
+
+    /**
+     *  Builds the index of the frames.
+     *
+     *  @throws IOException if a record is corrupt
+     */
+    private void index() throws IOException {
+        frames = new int[64];
+        keyframes = new int[16];
+        int pos = LEDCubeAnimationHeader.SIZE;
+        int end = map.limit();
+        while( pos < end ) {
+            if( pos + LEDCubeAnimationHeader.RECORD_SIZE > end ) {
+                throw new IOException( "The frame " + count + " is truncated." );
+            }
+            byte type = map.get( pos );
+            int length = map.getInt( pos + 1 );
+            if( length < 0 || length > end - pos - LEDCubeAnimationHeader.RECORD_SIZE ) {
+                throw new IOException( "The frame " + count + " is truncated." );
+            }
+            if( type == LEDCubeAnimationHeader.KEYFRAME ) {
+                if( keycount == keyframes.length ) {
+                    keyframes = Arrays.copyOf( keyframes, keycount * 2 );
+                }
+                keyframes[keycount++] = count;
+            }
+            else if( type != LEDCubeAnimationHeader.DELTA || count == 0 ) {
+                throw new IOException( "The frame " + count + " has an unknown type." );
+            }
+            if( count == frames.length ) {
+                frames = Arrays.copyOf( frames, count * 2 );
+            }
+            frames[count++] = pos;
+            pos += LEDCubeAnimationHeader.RECORD_SIZE + length;
+        }
+    }
+
+    /**
+     *  @return the header of the animation
+     */
+    public LEDCubeAnimationHeader getHeader() {
+        return header;
+    }
+
+    /**
+     *  @return the dimension of the animation
+     */
+    @Override
+    public LEDCubeDimension getDimension() {
+        return header.getDimension();
+    }
+
+    /**
+     *  @return the number of frames
+     */
+    @Override
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     *  @return the number of the frame the next read returns
+     */
+    @Override
+    public int getPosition() {
+        return next;
+    }
+
+    /**
+     *  Moves to a frame.
+     *  The frame is decoded by the next read from the keyframe before it,
+     *  so the state read into may hold anything.
+     *
+     *  @param frame the number of the frame, 0 - frame count
+     */
+    @Override
+    public void seek( int frame ) {
+        if( frame < 0 || frame > count ) {
+            throw new IllegalArgumentException( "The frame is out of range." );
+        }
+        next = frame;
+        target = null;
+        decoded = -1;
+    }
+
+    /**
+     *  Moves to the frame shown at a point in time.
+     *  Times after the end move to the end.
+     *
+     *  @param seconds the time since the start of the animation
+     */
+    public void seekTime( float seconds ) {
+        if( seconds < 0f ) {
+            throw new IllegalArgumentException( "The time has to be >= 0." );
+        }
+        seek( (int) Math.min( count, (long) ( seconds * header.getFrameRate() ) ) );
+    }
+
+    /**
+     *  Reads the next frame.
+     *
+     *  @param state the state to write the frame into
+     *  @return whether there was another frame
+     */
+    public boolean readFrame( LEDCubeState state ) {
+        if( next >= count ) {
+            return false;
+        }
+        if( !header.getDimension().equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        decode( next, state.getBuffer() );
+        next++;
+        return true;
+    }
+
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        return readFrame( frame );
+    }
+
+    /**
+     *  @return true, a file can always start again
+     */
+    @Override
+    public boolean canRewind() {
+        return true;
+    }
+
+    @Override
+    public void rewind() {
+        seek( 0 );
+    }
+
+    /**
+     *  Decodes a frame into a buffer.
+     *  Continues from the previous frame if the last read decoded it into
+     *  the same buffer and there is no keyframe in between, else starts at
+     *  the nearest keyframe before the frame.
+     *
+     *  @param frame the number of the frame
+     *  @param buffer the packed colors of the state to decode into
+     */
+    private void decode( int frame, int[] buffer ) {
+        if( buffer != target ) {
+            target = buffer;
+            decoded = -1;
+        }
+        int key = Arrays.binarySearch( keyframes, 0, keycount, frame );
+        if( key < 0 ) {
+            key = keyframes[-key - 2];
+        }
+        else {
+            key = keyframes[key];
+        }
+        int from = key;
+        if( decoded >= key && decoded == frame - 1 ) {
+            from = decoded + 1;
+        }
+        // a corrupt record leaves the buffer half decoded
+        decoded = -1;
+        for( int ai = from; ai <= frame; ai++ ) {
+            int pos = frames[ai];
+            map.limit( map.capacity() );
+            map.position( pos + LEDCubeAnimationHeader.RECORD_SIZE );
+            map.limit( map.position() + map.getInt( pos + 1 ) );
+            if( map.get( pos ) == LEDCubeAnimationHeader.KEYFRAME ) {
+                LEDCubeFrameCodec.decodeKeyframe( map, buffer );
+            }
+            else {
+                LEDCubeFrameCodec.decodeDelta( map, buffer );
+            }
+            decoded = ai;
+        }
+    }
+
+    /**
+     *  Closes the file.
+     *  The mapping is released when it is garbage collected.
+     *
+     *  @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
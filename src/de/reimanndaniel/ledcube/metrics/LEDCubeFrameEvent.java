@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *  A Flight Recorder event of one stage a frame goes through.
+ *  The stages are generating the frame by the source, showing or applying
+ *  it by the player, committing it to the cube, reflecting it in the viewer
+ *  and encoding it for the output. All stages of a frame carry the number
+ *  of the frame on the cube, so a recording shows which stage takes the
+ *  time of a frame. Only the generating stage carries the tick of the
+ *  player, as a generated frame that changes no LED does not advance the
+ *  frames of the cube.
+ *  Without a running recording {@code begin()} returns null and nothing
+ *  is allocated.
+ *
+ *  <pre>
+ *  LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageShow );
+ *  cube.setState( state );
+ *  LEDCubeFrameEvent.end( event, cube.getFrame(), size );
+ *  </pre>
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see de.reimanndaniel.ledcube.system.LEDCube#getFrame()
+ */
+@Name( "de.reimanndaniel.ledcube.Frame" )
+@Label( "LED Cube Frame" )
+@Description( "A stage of a frame of the LED cube" )
+@Category( { "LED Cube" } )
+@StackTrace( false )
+public class LEDCubeFrameEvent extends Event {
+
+    /**
+     *  The stage of generating a frame by the source.
+     */
+    public static final String StageGenerate = "generate";
+    /**
+     *  The stage of showing a frame by the player.
+     */
+    public static final String StageShow = "show";
+    /**
+     *  The stage of applying a single LED by the player.
+     */
+    public static final String StageApply = "apply";
+    /**
+     *  The stage of committing a frame to the cube and notifying the observers.
+     */
+    public static final String StageCommit = "commit";
+    /**
+     *  The stage of reflecting a frame in the viewer.
+     */
+    public static final String StageView = "view";
+    /**
+     *  The stage of encoding a frame for the output.
+     */
+    public static final String StageOutput = "output";
+
+    /**
+     *  The type of the event, to check if a recording is running.
+     */
+    private static final EventType TYPE = EventType.getEventType( LEDCubeFrameEvent.class );
+
+    /**
+     *  The stage.
+     */
+    @Label( "Stage" )
+    protected String stage;
+    /**
+     *  The number of the frame on the cube, the tick of the player when generating.
+     */
+    @Label( "Frame" )
+    protected long frame;
+    /**
+     *  The number of LEDs handled in the stage.
+     */
+    @Label( "LEDs" )
+    protected int leds;
+
+    /**
+     *  Starts the timing of a stage.
+     *
+     *  @param stage the stage, one of the {@code Stage} constants
+     *  @return the started event or null if no recording is running
+     */
+    public static LEDCubeFrameEvent begin( String stage ) {
+        if( !TYPE.isEnabled() ) {
+            return null;
+        }
+        LEDCubeFrameEvent event = new LEDCubeFrameEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    /**
+     *  Ends the timing of a stage and commits it to the recording.
+     *
+     *  @param event the event from {@code begin()}, may be null
+     *  @param frame the number of the frame on the cube, the tick of the player when generating
+     *  @param leds the number of LEDs handled in the stage
+     */
+    public static void end( LEDCubeFrameEvent event, long frame, int leds ) {
+        if( event == null ) {
+            return;
+        }
+        event.frame = frame;
+        event.leds = leds;
+        event.commit();
+    }
+
+    /**
+     *  @return the stage
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     *  @return the number of the frame on the cube, the tick of the player when generating
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     *  @return the number of LEDs handled in the stage
+     */
+    public int getLEDs() {
+        return leds;
+    }
+
+}
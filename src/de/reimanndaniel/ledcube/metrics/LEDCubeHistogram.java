@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  A histogram of non negative values in buckets of powers of two.
+ *  Recording is lock-free and striped, so many threads can record without
+ *  contention. Percentiles are estimated with the upper bound of a bucket,
+ *  so they are at most twice the real value.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeMetrics
+ */
+public class LEDCubeHistogram {
+
+    /**
+     *  The counts of the buckets, bucket {@code i} holds values below {@code 2^i}.
+     */
+    private final LongAdder[] buckets;
+    /**
+     *  The sum of all values.
+     */
+    private final LongAdder sum;
+    /**
+     *  The biggest value.
+     */
+    private final AtomicLong max;
+
+    /**
+     *  Creates an empty histogram.
+     */
+    public LEDCubeHistogram() {
+        this.buckets = new LongAdder[64];
+        for( int ai = 0; ai < buckets.length; ai++ ) {
+            buckets[ai] = new LongAdder();
+        }
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     *  Records a value.
+     *  Negative values are recorded as 0.
+     *
+     *  @param value the value
+     */
+    public void record( long value ) {
+        if( value < 0 ) {
+            value = 0;
+        }
+        buckets[64 - Long.numberOfLeadingZeros( value )].increment();
+        sum.add( value );
+        long prev = max.get();
+        while( value > prev && !max.compareAndSet( prev, value ) ) {
+            prev = max.get();
+        }
+    }
+
+    /**
+     *  @return the number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for( int ai = 0; ai < buckets.length; ai++ ) {
+            count += buckets[ai].sum();
+        }
+        return count;
+    }
+
+    /**
+     *  @return the sum of the recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     *  @return the mean of the recorded values, 0 if there are none
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     *  @return the biggest recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     *  Estimates a percentile.
+     *
+     *  @param percent the percentile, 0 - 100
+     *  @return the upper bound of the bucket holding the percentile
+     */
+    public long getPercentile( double percent ) {
+        if( percent < 0 || percent > 100 ) {
+            throw new IllegalArgumentException( "The percentile has to be 0 - 100." );
+        }
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        for( int ai = 0; ai < buckets.length; ai++ ) {
+            counts[ai] = buckets[ai].sum();
+            count += counts[ai];
+        }
+        long rank = (long) Math.ceil( count * percent / 100 );
+        long seen = 0;
+        for( int ai = 0; ai < counts.length; ai++ ) {
+            seen += counts[ai];
+            if( seen >= rank && counts[ai] > 0 ) {
+                return ai == 0 ? 0 : Math.min( ( 1L << ai ) - 1, getMax() );
+            }
+        }
+        return 0;
+    }
+
+    /**
+     *  Removes all recorded values.
+     *  Values recorded at the same time may be lost.
+     */
+    public void reset() {
+        for( int ai = 0; ai < buckets.length; ai++ ) {
+            buckets[ai].reset();
+        }
+        sum.reset();
+        max.set( 0 );
+    }
+
+}
@@ -0,0 +1,350 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ *  A registry of counters, histograms and tags exposed as MBean.
+ *  The hot paths look up their counters and histograms once and keep
+ *  them, counting is lock-free. Each counter {@code name} is shown as the
+ *  attributes {@code name} and {@code name.rate}, the count per second
+ *  since the previous read. Each histogram is shown as {@code name.count},
+ *  {@code name.mean}, {@code name.p50}, {@code name.p99} and {@code name.max}.
+ *  Tags like the playing animation and the size of the cube are shown as
+ *  string attributes to correlate the numbers with the show.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeHistogram
+ */
+public class LEDCubeMetrics implements DynamicMBean {
+
+    /**
+     *  The name of the default registry in the platform MBean server.
+     */
+    public static final String NAME = "de.reimanndaniel.ledcube:type=Metrics";
+
+    /**
+     *  The registry used by the cube, player and viewer.
+     */
+    private static final LEDCubeMetrics DEFAULT = new LEDCubeMetrics();
+
+    /**
+     *  The counters by name.
+     */
+    private final ConcurrentMap<String, LongAdder> counters;
+    /**
+     *  The histograms by name.
+     */
+    private final ConcurrentMap<String, LEDCubeHistogram> histograms;
+    /**
+     *  The tags by name.
+     */
+    private final ConcurrentMap<String, String> tags;
+    /**
+     *  The count and time of the previous rate read of each counter.
+     */
+    private final Map<String, long[]> rates;
+
+    /**
+     *  Creates an empty registry.
+     */
+    public LEDCubeMetrics() {
+        this.counters = new ConcurrentHashMap<String, LongAdder>();
+        this.histograms = new ConcurrentHashMap<String, LEDCubeHistogram>();
+        this.tags = new ConcurrentHashMap<String, String>();
+        this.rates = new TreeMap<String, long[]>();
+    }
+
+    /**
+     *  @return the registry used by the cube, player and viewer
+     */
+    public static LEDCubeMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     *  Registers the default registry in the platform MBean server.
+     *  Does nothing if it is registered already.
+     *
+     *  @throws JMException if the registry could not be registered
+     */
+    public static void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName( NAME );
+        if( !server.isRegistered( name ) ) {
+            server.registerMBean( DEFAULT, name );
+        }
+    }
+
+    /**
+     *  Returns a counter, creating it if needed.
+     *
+     *  @param name the name of the counter
+     *  @return the counter
+     */
+    public LongAdder counter( String name ) {
+        LongAdder counter = counters.get( name );
+        if( counter == null ) {
+            LongAdder created = new LongAdder();
+            counter = counters.putIfAbsent( name, created );
+            if( counter == null ) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     *  Returns a histogram, creating it if needed.
+     *
+     *  @param name the name of the histogram
+     *  @return the histogram
+     */
+    public LEDCubeHistogram histogram( String name ) {
+        LEDCubeHistogram histogram = histograms.get( name );
+        if( histogram == null ) {
+            LEDCubeHistogram created = new LEDCubeHistogram();
+            histogram = histograms.putIfAbsent( name, created );
+            if( histogram == null ) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     *  Sets a tag.
+     *
+     *  @param name the name of the tag
+     *  @param value the value, null to remove the tag
+     */
+    public void tag( String name, String value ) {
+        if( value == null ) {
+            tags.remove( name );
+        }
+        else {
+            tags.put( name, value );
+        }
+    }
+
+    /**
+     *  Returns a tag.
+     *
+     *  @param name the name of the tag
+     *  @return the value or null if the tag is not set
+     */
+    public String getTag( String name ) {
+        return tags.get( name );
+    }
+
+    /**
+     *  Resets all counters and histograms.
+     */
+    public void reset() {
+        for( LongAdder counter: counters.values() ) {
+            counter.reset();
+        }
+        for( LEDCubeHistogram histogram: histograms.values() ) {
+            histogram.reset();
+        }
+        synchronized( rates ) {
+            rates.clear();
+        }
+    }
+
+    /**
+     *  Returns the rate of a counter since the previous read.
+     *
+     *  @param name the name of the counter
+     *  @param counter the counter
+     *  @return the count per second
+     */
+    private double rate( String name, LongAdder counter ) {
+        long now = System.nanoTime();
+        long count = counter.sum();
+        synchronized( rates ) {
+            long[] prev = rates.get( name );
+            rates.put( name, new long[] { count, now } );
+            if( prev == null || now == prev[1] ) {
+                return 0;
+            }
+            return ( count - prev[0] ) * 1e9 / ( now - prev[1] );
+        }
+    }
+
+    @Override
+    public Object getAttribute( String attribute ) throws AttributeNotFoundException {
+        String value = tags.get( attribute );
+        if( value != null ) {
+            return value;
+        }
+        LongAdder counter = counters.get( attribute );
+        if( counter != null ) {
+            return counter.sum();
+        }
+        int dot = attribute.lastIndexOf( '.' );
+        if( dot > 0 ) {
+            String name = attribute.substring( 0, dot );
+            String part = attribute.substring( dot + 1 );
+            counter = counters.get( name );
+            if( counter != null && part.equals( "rate" ) ) {
+                return rate( name, counter );
+            }
+            LEDCubeHistogram histogram = histograms.get( name );
+            if( histogram != null ) {
+                if( part.equals( "count" ) ) {
+                    return histogram.getCount();
+                }
+                if( part.equals( "mean" ) ) {
+                    return histogram.getMean();
+                }
+                if( part.equals( "p50" ) ) {
+                    return histogram.getPercentile( 50 );
+                }
+                if( part.equals( "p99" ) ) {
+                    return histogram.getPercentile( 99 );
+                }
+                if( part.equals( "max" ) ) {
+                    return histogram.getMax();
+                }
+            }
+        }
+        throw new AttributeNotFoundException( "The attribute " + attribute + " is unknown." );
+    }
+
+    @Override
+    public AttributeList getAttributes( String[] attributes ) {
+        AttributeList list = new AttributeList();
+        for( String attribute: attributes ) {
+            try {
+                list.add( new Attribute( attribute, getAttribute( attribute ) ) );
+            }
+            catch( AttributeNotFoundException e ) {
+                // left out like the MBean server does
+            }
+        }
+        return list;
+    }
+
+    /**
+     *  The metrics are read only.
+     *
+     *  @param attribute the attribute
+     *  @throws AttributeNotFoundException always
+     */
+    @Override
+    public void setAttribute( Attribute attribute ) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException( "The metrics are read only." );
+    }
+
+    /**
+     *  The metrics are read only.
+     *
+     *  @param attributes the attributes
+     *  @return an empty list
+     */
+    @Override
+    public AttributeList setAttributes( AttributeList attributes ) {
+        return new AttributeList();
+    }
+
+    /**
+     *  Invokes the operation {@code reset}.
+     *
+     *  @param action the name of the operation
+     *  @param params the parameters
+     *  @param signature the types of the parameters
+     *  @return null
+     *  @throws ReflectionException if the operation is unknown
+     */
+    @Override
+    public Object invoke( String action, Object[] params, String[] signature ) throws ReflectionException {
+        if( action.equals( "reset" ) && ( params == null || params.length == 0 ) ) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException( new NoSuchMethodException( action ) );
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for( String name: new TreeMap<String, String>( tags ).keySet() ) {
+            attributes.add( info( name, String.class, "Tag" ) );
+        }
+        for( String name: new TreeMap<String, LongAdder>( counters ).keySet() ) {
+            attributes.add( info( name, Long.class, "Count" ) );
+            attributes.add( info( name + ".rate", Double.class, "Count per second since the previous read" ) );
+        }
+        for( String name: new TreeMap<String, LEDCubeHistogram>( histograms ).keySet() ) {
+            attributes.add( info( name + ".count", Long.class, "Number of values" ) );
+            attributes.add( info( name + ".mean", Double.class, "Mean value" ) );
+            attributes.add( info( name + ".p50", Long.class, "Median, upper bound of its bucket" ) );
+            attributes.add( info( name + ".p99", Long.class, "99th percentile, upper bound of its bucket" ) );
+            attributes.add( info( name + ".max", Long.class, "Biggest value" ) );
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo(
+            "reset", "Resets all counters and histograms", null, "void", MBeanOperationInfo.ACTION
+        );
+        return new MBeanInfo(
+            getClass().getName(),
+            "Metrics of the LED cube",
+            attributes.toArray( new MBeanAttributeInfo[attributes.size()] ),
+            null,
+            new MBeanOperationInfo[] { reset },
+            new MBeanNotificationInfo[0]
+        );
+    }
+
+    /**
+     *  Describes a read only attribute.
+     *
+     *  @param name the name of the attribute
+     *  @param type the type of the attribute
+     *  @param description the description
+     *  @return the description of the attribute
+     */
+    private static MBeanAttributeInfo info( String name, Class<?> type, String description ) {
+        return new MBeanAttributeInfo( name, type.getName(), description, true, false, false );
+    }
+
+}
@@ -0,0 +1,439 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.net;
+
+import de.reimanndaniel.ledcube.io.LEDCubeFrameCodec;
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+/**
+ *  Receives frames streamed by a {@code LEDCubeStreamServer}.
+ *  As frame source it returns the newest complete frame, so a player
+ *  shows a remote cube. Older and incomplete frames are skipped, the
+ *  socket is non-blocking and read on each {@code next()}.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeStreamProtocol
+ */
+public class LEDCubeStreamClient implements LEDCubeFrameSource, Closeable {
+
+    /**
+     *  The socket connected to the server.
+     */
+    protected final DatagramChannel channel;
+    /**
+     *  The dimension of the frames.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The recently decoded frames as base for deltas.
+     */
+    private final int[][] history;
+    /**
+     *  The sequence numbers of the recently decoded frames.
+     */
+    private final int[] historyseq;
+    /**
+     *  The buffer for received datagrams.
+     */
+    private final ByteBuffer in;
+    /**
+     *  The buffer for sent datagrams.
+     */
+    private final ByteBuffer out;
+    /**
+     *  The payload of the frame being assembled.
+     */
+    private final ByteBuffer payload;
+    /**
+     *  The received fragments of the frame being assembled.
+     */
+    private final boolean[] fragments;
+    /**
+     *  Whether a keyframe of the session was received.
+     */
+    private boolean joined;
+    /**
+     *  The session of the server.
+     */
+    private int session;
+    /**
+     *  Whether a frame is being assembled.
+     */
+    private boolean assembling;
+    /**
+     *  The sequence number of the frame being assembled.
+     */
+    private int aseq;
+    /**
+     *  The base of the frame being assembled.
+     */
+    private int abase;
+    /**
+     *  The number of fragments of the frame being assembled.
+     */
+    private int acount;
+    /**
+     *  The number of received fragments of the frame being assembled.
+     */
+    private int areceived;
+    /**
+     *  The send time of the frame being assembled.
+     */
+    private long atime;
+    /**
+     *  The sequence number of the newest decoded frame, -1 if none.
+     */
+    private int last;
+    /**
+     *  Whether a frame was decoded since the last {@code next()}.
+     */
+    private boolean fresh;
+    /**
+     *  The time of the last hello in nanoseconds.
+     */
+    private long hello;
+    /**
+     *  The number of decoded frames.
+     */
+    private long frames;
+    /**
+     *  The number of frames never received completely.
+     */
+    private long lost;
+    /**
+     *  The number of complete frames without their base.
+     */
+    private long undecodable;
+
+    /**
+     *  Creates a client and subscribes to a server.
+     *
+     *  @param server the address of the server
+     *  @param dim the dimension of the frames
+     *  @throws IOException if the socket could not be opened
+     */
+    public LEDCubeStreamClient( SocketAddress server, LEDCubeDimension dim ) throws IOException {
+        this.dim = dim;
+        this.history = new int[LEDCubeStreamProtocol.HISTORY][dim.getVolume()];
+        this.historyseq = new int[LEDCubeStreamProtocol.HISTORY];
+        Arrays.fill( historyseq, -1 );
+        this.in = ByteBuffer.allocateDirect( LEDCubeStreamProtocol.PACKET_SIZE );
+        this.out = ByteBuffer.allocateDirect( LEDCubeStreamProtocol.PACKET_SIZE );
+        int max = LEDCubeFrameCodec.maxFrameSize( dim.getVolume() );
+        this.payload = ByteBuffer.allocate( max );
+        this.fragments = new boolean[LEDCubeStreamProtocol.fragments( max )];
+        this.last = -1;
+        this.channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking( false );
+            channel.connect( server );
+            sendHello( System.nanoTime() );
+        }
+        catch( IOException e ) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the session of the server, only valid after the first frame
+     */
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     *  @return the sequence number of the newest decoded frame, -1 if none
+     */
+    public int getSequence() {
+        return last;
+    }
+
+    /**
+     *  @return the number of decoded frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     *  @return the number of frames never received completely
+     */
+    public long getLost() {
+        return lost;
+    }
+
+    /**
+     *  @return the number of complete frames that could not be decoded
+     */
+    public long getUndecodable() {
+        return undecodable;
+    }
+
+    /**
+     *  Returns the newest complete frame.
+     *  Keeps the previous frame if no new frame arrived.
+     *
+     *  @param frame the state to write the frame into
+     *  @return whether the client is still open
+     *  @throws UncheckedIOException if the socket failed
+     */
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        if( !channel.isOpen() ) {
+            return false;
+        }
+        try {
+            poll();
+        }
+        catch( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+        if( fresh ) {
+            frame.copyFrom( history[last & ( LEDCubeStreamProtocol.HISTORY - 1 )] );
+            fresh = false;
+        }
+        return true;
+    }
+
+    /**
+     *  @return false, a live stream can not start again
+     */
+    @Override
+    public boolean canRewind() {
+        return false;
+    }
+
+    /**
+     *  A live stream can not start again.
+     *
+     *  @throws UnsupportedOperationException always
+     */
+    @Override
+    public void rewind() {
+        throw new UnsupportedOperationException( "A live stream can not start again." );
+    }
+
+    /**
+     *  Handles all received fragments and renews the subscription.
+     *
+     *  @throws IOException if the socket failed
+     */
+    public void poll() throws IOException {
+        long now = System.nanoTime();
+        if( now - hello >= LEDCubeStreamProtocol.HELLO_INTERVAL ) {
+            sendHello( now );
+        }
+        while( true ) {
+            in.clear();
+            try {
+                if( channel.read( in ) <= 0 ) {
+                    break;
+                }
+            }
+            catch( PortUnreachableException e ) {
+                // the server is not up yet, the next hello tries again
+                break;
+            }
+            in.flip();
+            if( LEDCubeStreamProtocol.getType( in ) == LEDCubeStreamProtocol.FRAME ) {
+                receive();
+            }
+        }
+    }
+
+    /**
+     *  Handles a fragment.
+     *
+     *  @throws IOException if the acknowledgement could not be sent
+     */
+    private void receive() throws IOException {
+        if( in.remaining() < LEDCubeStreamProtocol.FRAME_HEAD - 5 ) {
+            return;
+        }
+        int sid = in.getInt();
+        int seq = in.getInt();
+        int base = in.getInt();
+        int index = in.getShort() & 0xFFFF;
+        int count = in.getShort() & 0xFFFF;
+        int length = in.getInt();
+        long time = in.getLong();
+        if(
+            length < 0 || length > payload.capacity() ||
+            count != LEDCubeStreamProtocol.fragments( length ) || index >= count
+        ) {
+            return;
+        }
+        int offset = index * LEDCubeStreamProtocol.CHUNK_SIZE;
+        if( in.remaining() != Math.min( LEDCubeStreamProtocol.CHUNK_SIZE, length - offset ) ) {
+            return;
+        }
+        if( !joined || sid != session ) {
+            if( base >= 0 ) {
+                // deltas of another session have no base here
+                return;
+            }
+            join( sid );
+        }
+        if( last >= 0 && seq - last <= 0 ) {
+            // older than the newest decoded frame
+            return;
+        }
+        if( !assembling || seq - aseq > 0 ) {
+            assembling = true;
+            aseq = seq;
+            abase = base;
+            acount = count;
+            areceived = 0;
+            atime = time;
+            Arrays.fill( fragments, 0, count, false );
+            payload.clear();
+            payload.limit( length );
+        }
+        else if( seq != aseq ) {
+            return;
+        }
+        if( !fragments[index] ) {
+            fragments[index] = true;
+            areceived++;
+            in.get( payload.array(), offset, in.remaining() );
+        }
+        if( areceived == acount ) {
+            assembling = false;
+            complete();
+        }
+    }
+
+    /**
+     *  Starts the sequence numbers of a new session of the server.
+     *
+     *  @param sid the session of the server
+     */
+    private void join( int sid ) {
+        joined = true;
+        session = sid;
+        last = -1;
+        assembling = false;
+        Arrays.fill( historyseq, -1 );
+    }
+
+    /**
+     *  Decodes the assembled frame and acknowledges it.
+     *
+     *  @throws IOException if the acknowledgement could not be sent
+     */
+    private void complete() throws IOException {
+        int slot = aseq & ( LEDCubeStreamProtocol.HISTORY - 1 );
+        int[] target = history[slot];
+        try {
+            if( abase < 0 ) {
+                LEDCubeFrameCodec.decodeKeyframe( payload, target );
+            }
+            else {
+                int distance = aseq - abase;
+                int baseslot = abase & ( LEDCubeStreamProtocol.HISTORY - 1 );
+                if( distance <= 0 || distance >= LEDCubeStreamProtocol.HISTORY || historyseq[baseslot] != abase ) {
+                    undecodable++;
+                    return;
+                }
+                System.arraycopy( history[baseslot], 0, target, 0, target.length );
+                LEDCubeFrameCodec.decodeDelta( payload, target );
+            }
+        }
+        catch( IllegalArgumentException e ) {
+            historyseq[slot] = -1;
+            undecodable++;
+            return;
+        }
+        catch( BufferUnderflowException e ) {
+            historyseq[slot] = -1;
+            undecodable++;
+            return;
+        }
+        historyseq[slot] = aseq;
+        if( last >= 0 ) {
+            lost += aseq - last - 1;
+        }
+        last = aseq;
+        fresh = true;
+        frames++;
+        out.clear();
+        LEDCubeStreamProtocol.putAck( out, aseq, atime );
+        out.flip();
+        write();
+    }
+
+    /**
+     *  Subscribes to the server.
+     *
+     *  @param now the current time in nanoseconds
+     *  @throws IOException if the socket failed
+     */
+    private void sendHello( long now ) throws IOException {
+        hello = now;
+        out.clear();
+        LEDCubeStreamProtocol.putHello( out, dim );
+        out.flip();
+        write();
+    }
+
+    /**
+     *  Sends the datagram in the out buffer to the server.
+     *
+     *  @throws IOException if the socket failed
+     */
+    private void write() throws IOException {
+        try {
+            channel.write( out );
+        }
+        catch( PortUnreachableException e ) {
+            // the server is not up yet, the next hello tries again
+        }
+    }
+
+    /**
+     *  Closes the socket.
+     *
+     *  @throws IOException if the socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
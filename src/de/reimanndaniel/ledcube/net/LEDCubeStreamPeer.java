@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.net;
+
+import java.net.SocketAddress;
+
+/**
+ *  A client subscribed to a server with its statistics.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeStreamServer
+ */
+public class LEDCubeStreamPeer {
+
+    /**
+     *  The address of the client.
+     */
+    private final SocketAddress address;
+    /**
+     *  The sequence number of the newest acknowledged frame, -1 if none.
+     */
+    private int acked;
+    /**
+     *  The time of the last datagram from the client in nanoseconds.
+     */
+    private long seen;
+    /**
+     *  The number of frames sent to the client.
+     */
+    private long sent;
+    /**
+     *  The number of acknowledged frames.
+     */
+    private long acks;
+    /**
+     *  The number of frames sent as keyframe.
+     */
+    private long keyframes;
+    /**
+     *  The smoothed round trip time in nanoseconds, -1 if unknown.
+     */
+    private long rtt;
+
+    /**
+     *  Creates a peer.
+     *
+     *  @param address the address of the client
+     *  @param now the current time in nanoseconds
+     */
+    LEDCubeStreamPeer( SocketAddress address, long now ) {
+        this.address = address;
+        this.acked = -1;
+        this.seen = now;
+        this.rtt = -1;
+    }
+
+    /**
+     *  @return the address of the client
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     *  @return the sequence number of the newest acknowledged frame, -1 if none
+     */
+    public int getAcked() {
+        return acked;
+    }
+
+    /**
+     *  @return the number of frames sent to the client
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     *  @return the number of acknowledged frames
+     */
+    public long getAcks() {
+        return acks;
+    }
+
+    /**
+     *  @return the number of frames sent as keyframe
+     */
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    /**
+     *  @return the smoothed round trip time in nanoseconds, -1 if unknown
+     */
+    public long getRoundTrip() {
+        return rtt;
+    }
+
+    /**
+     *  Estimates the loss from the frames that were not acknowledged.
+     *  Frames still on their way count as lost.
+     *
+     *  @return the part of the lost frames, 0 - 1
+     */
+    public float getLoss() {
+        if( sent == 0 ) {
+            return 0f;
+        }
+        return 1f - (float) acks / sent;
+    }
+
+    /**
+     *  @return the time of the last datagram from the client in nanoseconds
+     */
+    long getSeen() {
+        return seen;
+    }
+
+    /**
+     *  Notes a datagram from the client.
+     *
+     *  @param now the current time in nanoseconds
+     */
+    void touch( long now ) {
+        seen = now;
+    }
+
+    /**
+     *  Notes a sent frame.
+     *
+     *  @param keyframe whether it was a keyframe
+     */
+    void sent( boolean keyframe ) {
+        sent++;
+        if( keyframe ) {
+            keyframes++;
+        }
+    }
+
+    /**
+     *  Notes an acknowledgement.
+     *
+     *  @param seq the sequence number of the frame
+     *  @param sample the round trip time of the frame in nanoseconds
+     */
+    void ack( int seq, long sample ) {
+        acks++;
+        if( seq - acked > 0 || acked < 0 ) {
+            acked = seq;
+        }
+        // smoothed like the TCP round trip time
+        rtt = rtt < 0 ? sample : ( 7 * rtt + sample ) / 8;
+    }
+
+}
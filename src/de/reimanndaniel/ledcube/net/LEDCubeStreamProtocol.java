@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.net;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import java.nio.ByteBuffer;
+
+/**
+ *  The datagrams of the frame stream.
+ *  Each datagram starts with the magic {@code JLCS} and a type byte.
+ *  A client announces itself with a hello of its dimension, every second
+ *  to stay subscribed. A frame is sent as fragments of the session of the
+ *  server, the sequence number, the sequence number of the frame the delta
+ *  is based on or -1 for a keyframe, the fragment index and count, the
+ *  length of the payload, the send time and a part of the payload encoded
+ *  by {@code LEDCubeFrameCodec}. A server picks a new session each time it
+ *  starts, so a client starts its sequence numbers again with the first
+ *  keyframe of another session.
+ *  The client acknowledges each complete frame with its sequence number
+ *  and the send time, which gives the round trip time.
+ *  All numbers are big endian.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeStreamServer
+ *  @see LEDCubeStreamClient
+ */
+public final class LEDCubeStreamProtocol {
+
+    /**
+     *  The magic at the start of each datagram.
+     */
+    public static final int MAGIC = 0x4A4C4353;
+    /**
+     *  Datagram type of a hello from a client.
+     */
+    public static final byte HELLO = 1;
+    /**
+     *  Datagram type of a fragment of a frame.
+     */
+    public static final byte FRAME = 2;
+    /**
+     *  Datagram type of an acknowledgement of a frame.
+     */
+    public static final byte ACK = 3;
+    /**
+     *  The maximal size of a datagram, below the usual MTU.
+     */
+    public static final int PACKET_SIZE = 1400;
+    /**
+     *  The size of the head of a frame fragment.
+     */
+    public static final int FRAME_HEAD = 33;
+    /**
+     *  The maximal payload of a frame fragment.
+     */
+    public static final int CHUNK_SIZE = PACKET_SIZE - FRAME_HEAD;
+    /**
+     *  The number of frames kept on both sides as base for deltas.
+     */
+    public static final int HISTORY = 16;
+    /**
+     *  Nanoseconds between two hellos of a client.
+     */
+    public static final long HELLO_INTERVAL = 1000000000L;
+    /**
+     *  Nanoseconds without hello or acknowledgement until a client is dropped.
+     */
+    public static final long TIMEOUT = 5 * HELLO_INTERVAL;
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeStreamProtocol() {
+    }
+
+    /**
+     *  Writes a hello.
+     *
+     *  @param out the buffer to write to
+     *  @param dim the dimension of the client
+     */
+    public static void putHello( ByteBuffer out, LEDCubeDimension dim ) {
+        out.putInt( MAGIC );
+        out.put( HELLO );
+        out.putInt( dim.getWidth() );
+        out.putInt( dim.getHeight() );
+        out.putInt( dim.getDepth() );
+    }
+
+    /**
+     *  Writes the head of a frame fragment.
+     *
+     *  @param out the buffer to write to
+     *  @param session the session of the server
+     *  @param seq the sequence number of the frame
+     *  @param base the sequence number of the base frame, -1 for a keyframe
+     *  @param index the index of the fragment
+     *  @param count the number of fragments
+     *  @param length the length of the whole payload
+     *  @param time the send time in nanoseconds
+     */
+    public static void putFrameHead( ByteBuffer out, int session, int seq, int base, int index, int count, int length, long time ) {
+        out.putInt( MAGIC );
+        out.put( FRAME );
+        out.putInt( session );
+        out.putInt( seq );
+        out.putInt( base );
+        out.putShort( (short) index );
+        out.putShort( (short) count );
+        out.putInt( length );
+        out.putLong( time );
+    }
+
+    /**
+     *  Writes an acknowledgement.
+     *
+     *  @param out the buffer to write to
+     *  @param seq the sequence number of the frame
+     *  @param time the send time of the frame
+     */
+    public static void putAck( ByteBuffer out, int seq, long time ) {
+        out.putInt( MAGIC );
+        out.put( ACK );
+        out.putInt( seq );
+        out.putLong( time );
+    }
+
+    /**
+     *  Reads the magic and type of a datagram.
+     *
+     *  @param in the datagram
+     *  @return the type or -1 if it is no datagram of the stream
+     */
+    public static int getType( ByteBuffer in ) {
+        if( in.remaining() < 5 || in.getInt() != MAGIC ) {
+            return -1;
+        }
+        return in.get();
+    }
+
+    /**
+     *  Returns the number of fragments of a payload.
+     *
+     *  @param length the length of the payload
+     *  @return the number of fragments
+     */
+    public static int fragments( int length ) {
+        return Math.max( 1, ( length + CHUNK_SIZE - 1 ) / CHUNK_SIZE );
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.net;
+
+import de.reimanndaniel.ledcube.io.LEDCubeFrameCodec;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.Random;
+
+/**
+ *  Streams frames over UDP to all subscribed clients.
+ *  Each client gets the frame as delta to the newest frame it acknowledged,
+ *  or as keyframe if it acknowledged none of the recent frames. Clients
+ *  with the same base share the encoded payload. The socket is non-blocking
+ *  and incoming hellos and acknowledgements are handled on each send, so
+ *  the server can run in the update loop of the player.
+ *  As observer of a cube it sends the state of the cube after each change.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeStreamProtocol
+ */
+public class LEDCubeStreamServer implements Observer, Closeable {
+
+    /**
+     *  The socket of the server.
+     */
+    protected final DatagramChannel channel;
+    /**
+     *  The dimension of the frames.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The subscribed clients by address.
+     */
+    private final Map<SocketAddress, LEDCubeStreamPeer> peers;
+    /**
+     *  The recently sent frames as base for deltas.
+     */
+    private final int[][] history;
+    /**
+     *  The sequence numbers of the recently sent frames.
+     */
+    private final int[] historyseq;
+    /**
+     *  The buffer for received datagrams.
+     */
+    private final ByteBuffer in;
+    /**
+     *  The buffer for sent datagrams.
+     */
+    private final ByteBuffer out;
+    /**
+     *  The encoded frame.
+     */
+    private final ByteBuffer payload;
+    /**
+     *  The state copied from an observed cube.
+     */
+    private final LEDCubeState frame;
+    /**
+     *  The random session of this server.
+     */
+    private final int session;
+    /**
+     *  The sequence number of the next frame.
+     */
+    private int seq;
+    /**
+     *  The number of datagrams the socket did not take.
+     */
+    private long dropped;
+
+    /**
+     *  Creates a server on a port of all interfaces.
+     *
+     *  @param port the UDP port
+     *  @param dim the dimension of the frames
+     *  @throws IOException if the socket could not be bound
+     */
+    public LEDCubeStreamServer( int port, LEDCubeDimension dim ) throws IOException {
+        this( new InetSocketAddress( port ), dim );
+    }
+
+    /**
+     *  Creates a server.
+     *
+     *  @param address the address to bind to
+     *  @param dim the dimension of the frames
+     *  @throws IOException if the socket could not be bound
+     */
+    public LEDCubeStreamServer( SocketAddress address, LEDCubeDimension dim ) throws IOException {
+        this.dim = dim;
+        this.peers = new LinkedHashMap<SocketAddress, LEDCubeStreamPeer>();
+        this.history = new int[LEDCubeStreamProtocol.HISTORY][dim.getVolume()];
+        this.historyseq = new int[LEDCubeStreamProtocol.HISTORY];
+        this.in = ByteBuffer.allocateDirect( LEDCubeStreamProtocol.PACKET_SIZE );
+        this.out = ByteBuffer.allocateDirect( LEDCubeStreamProtocol.PACKET_SIZE );
+        this.payload = ByteBuffer.allocate( LEDCubeFrameCodec.maxFrameSize( dim.getVolume() ) );
+        this.frame = new LEDCubeState( dim );
+        this.session = new Random().nextInt();
+        this.channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking( false );
+            channel.bind( address );
+        }
+        catch( IOException e ) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     *  @return the dimension of the frames
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the address the server is bound to
+     *  @throws IOException if the socket is closed
+     */
+    public SocketAddress getAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     *  @return the subscribed clients
+     */
+    public Collection<LEDCubeStreamPeer> getPeers() {
+        return Collections.unmodifiableCollection( peers.values() );
+    }
+
+    /**
+     *  @return the random session of this server
+     */
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     *  @return the sequence number of the next frame
+     */
+    public int getSequence() {
+        return seq;
+    }
+
+    /**
+     *  @return the number of datagrams the socket did not take
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     *  Handles all received hellos and acknowledgements and drops clients
+     *  that timed out.
+     *
+     *  @throws IOException if the socket failed
+     */
+    public void poll() throws IOException {
+        long now = System.nanoTime();
+        while( true ) {
+            in.clear();
+            SocketAddress from = channel.receive( in );
+            if( from == null ) {
+                break;
+            }
+            in.flip();
+            int type = LEDCubeStreamProtocol.getType( in );
+            if( type == LEDCubeStreamProtocol.HELLO && in.remaining() >= 12 ) {
+                int width = in.getInt();
+                int height = in.getInt();
+                int depth = in.getInt();
+                if( width != dim.getWidth() || height != dim.getHeight() || depth != dim.getDepth() ) {
+                    continue;
+                }
+                LEDCubeStreamPeer peer = peers.get( from );
+                if( peer == null ) {
+                    peers.put( from, new LEDCubeStreamPeer( from, now ) );
+                }
+                else {
+                    peer.touch( now );
+                }
+            }
+            else if( type == LEDCubeStreamProtocol.ACK && in.remaining() >= 12 ) {
+                LEDCubeStreamPeer peer = peers.get( from );
+                if( peer != null ) {
+                    int acked = in.getInt();
+                    long time = in.getLong();
+                    peer.touch( now );
+                    peer.ack( acked, now - time );
+                }
+            }
+        }
+        Iterator<LEDCubeStreamPeer> it = peers.values().iterator();
+        while( it.hasNext() ) {
+            if( now - it.next().getSeen() > LEDCubeStreamProtocol.TIMEOUT ) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     *  Sends a frame to all subscribed clients.
+     *
+     *  @param state the frame
+     *  @throws IOException if the socket failed
+     */
+    public void send( LEDCubeState state ) throws IOException {
+        if( !dim.equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        poll();
+        int current = seq++;
+        int slot = current & ( LEDCubeStreamProtocol.HISTORY - 1 );
+        int[] data = state.getBuffer();
+        System.arraycopy( data, 0, history[slot], 0, data.length );
+        historyseq[slot] = current;
+        long now = System.nanoTime();
+        // the payload is encoded again only if the base changes
+        int encoded = 0;
+        int base = -1;
+        boolean first = true;
+        for( LEDCubeStreamPeer peer: peers.values() ) {
+            int wanted = peer.getAcked();
+            int distance = current - wanted;
+            if(
+                wanted < 0 || distance <= 0 || distance >= LEDCubeStreamProtocol.HISTORY ||
+                historyseq[wanted & ( LEDCubeStreamProtocol.HISTORY - 1 )] != wanted
+            ) {
+                wanted = -1;
+            }
+            if( first || wanted != encoded ) {
+                base = encode( data, wanted );
+                encoded = wanted;
+                first = false;
+            }
+            sendFrame( peer.getAddress(), current, base, now );
+            peer.sent( base < 0 );
+        }
+    }
+
+    /**
+     *  Encodes a frame into the payload.
+     *
+     *  @param data the packed colors of the frame
+     *  @param base the sequence number of the base frame, -1 for a keyframe
+     *  @return the sequence number of the used base, -1 if a keyframe was encoded
+     */
+    private int encode( int[] data, int base ) {
+        payload.clear();
+        if( base >= 0 ) {
+            int[] prev = history[base & ( LEDCubeStreamProtocol.HISTORY - 1 )];
+            if( LEDCubeFrameCodec.encodeDelta( prev, data, payload ) * 2 <= data.length ) {
+                return base;
+            }
+            // a delta of most LEDs is bigger than a keyframe
+            payload.clear();
+        }
+        LEDCubeFrameCodec.encodeKeyframe( data, payload );
+        return -1;
+    }
+
+    /**
+     *  Sends the payload as fragments.
+     *
+     *  @param to the address of the client
+     *  @param current the sequence number of the frame
+     *  @param base the sequence number of the base frame, -1 for a keyframe
+     *  @param now the send time in nanoseconds
+     *  @throws IOException if the socket failed
+     */
+    private void sendFrame( SocketAddress to, int current, int base, long now ) throws IOException {
+        int length = payload.position();
+        int count = LEDCubeStreamProtocol.fragments( length );
+        for( int ai = 0; ai < count; ai++ ) {
+            int offset = ai * LEDCubeStreamProtocol.CHUNK_SIZE;
+            out.clear();
+            LEDCubeStreamProtocol.putFrameHead( out, session, current, base, ai, count, length, now );
+            out.put( payload.array(), offset, Math.min( LEDCubeStreamProtocol.CHUNK_SIZE, length - offset ) );
+            out.flip();
+            if( channel.send( out, to ) == 0 ) {
+                dropped++;
+            }
+        }
+    }
+
+    /**
+     *  Sends the state of a cube after each change.
+     *
+     *  @param o the cube
+     *  @param arg a change to the cube
+     *  @throws UncheckedIOException if the socket failed
+     */
+    @Override
+    public void update( Observable o, Object arg ) {
+        if( o instanceof LEDCube ) {
+            ( (LEDCube) o ).copyState( frame );
+            try {
+                send( frame );
+            }
+            catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    /**
+     *  Closes the socket.
+     *
+     *  @throws IOException if the socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.output;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.nio.ByteBuffer;
+
+/**
+ *  Encodes states into bit planes for a layer multiplexed controller.
+ *  The layers are the planes of the y axis. For each layer, from the
+ *  bottom up, follow the bit planes of the bit angle modulation from the
+ *  most significant bit down. Each bit plane holds one bit for each
+ *  channel of each LED of the layer in wiring order, most significant bit
+ *  of a byte first, padded to whole bytes. A bit plane of bit {@code b}
+ *  has to be shown {@code 2^b} times as long as the plane of bit 0.
+ *  All frames are encoded into the same direct buffer.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeOutput
+ */
+public class LEDCubeBitPlaneEncoder {
+
+    /**
+     *  Enum like value for the channel order red, green, blue.
+     */
+    public static final int OrderRGB = 1;
+    /**
+     *  Enum like value for the channel order red, blue, green.
+     */
+    public static final int OrderRBG = 2;
+    /**
+     *  Enum like value for the channel order green, red, blue.
+     */
+    public static final int OrderGRB = 3;
+    /**
+     *  Enum like value for the channel order green, blue, red.
+     */
+    public static final int OrderGBR = 4;
+    /**
+     *  Enum like value for the channel order blue, red, green.
+     */
+    public static final int OrderBRG = 5;
+    /**
+     *  Enum like value for the channel order blue, green, red.
+     */
+    public static final int OrderBGR = 6;
+
+    /**
+     *  The dimension of the states.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The number of bits of each channel.
+     */
+    protected final int depth;
+    /**
+     *  The order of the channels.
+     */
+    protected final int order;
+    /**
+     *  The shifts of the channels in a packed color in output order.
+     */
+    private final int[] shifts;
+    /**
+     *  The index of the LED in layer 0 for each output position of a layer.
+     */
+    private final int[] offsets;
+    /**
+     *  The channel values of the current layer in output order.
+     */
+    private final int[] values;
+    /**
+     *  The number of bytes of one bit plane.
+     */
+    private final int planesize;
+    /**
+     *  The encoded frame.
+     */
+    private final ByteBuffer frame;
+
+    /**
+     *  Creates an encoder with 8 bits per channel in RGB order, wired row
+     *  by row along the z axis.
+     *
+     *  @param dim the dimension of the states
+     */
+    public LEDCubeBitPlaneEncoder( LEDCubeDimension dim ) {
+        this( dim, 8, OrderRGB, null );
+    }
+
+    /**
+     *  Creates an encoder.
+     *
+     *  @param dim the dimension of the states
+     *  @param depth the bits per channel, 1 - 8
+     *  @param order the order of the channels, e.g. {@code OrderGRB}
+     *  @param wiring for each output position of a layer the LED of the layer
+     *      at it as {@code x * depth + z}, null to wire row by row along the
+     *      z axis
+     */
+    public LEDCubeBitPlaneEncoder( LEDCubeDimension dim, int depth, int order, int[] wiring ) {
+        if( depth < 1 || depth > 8 ) {
+            throw new IllegalArgumentException( "The depth has to be 1 - 8." );
+        }
+        this.dim = dim;
+        this.depth = depth;
+        this.order = order;
+        this.shifts = shifts( order );
+        int leds = dim.getWidth() * dim.getDepth();
+        if( wiring != null && wiring.length != leds ) {
+            throw new IllegalArgumentException( "The wiring has to map each LED of a layer." );
+        }
+        this.offsets = new int[leds];
+        boolean[] wired = new boolean[leds];
+        for( int ai = 0; ai < leds; ai++ ) {
+            int led = wiring == null ? ai : wiring[ai];
+            if( led < 0 || led >= leds || wired[led] ) {
+                throw new IllegalArgumentException( "The wiring has to map each LED of a layer once." );
+            }
+            wired[led] = true;
+            offsets[ai] = dim.index( led / dim.getDepth(), 0, led % dim.getDepth() );
+        }
+        this.values = new int[leds * 3];
+        this.planesize = ( leds * 3 + 7 ) / 8;
+        this.frame = ByteBuffer.allocateDirect( dim.getHeight() * depth * planesize );
+    }
+
+    /**
+     *  Returns the shifts of the channels for an order.
+     *
+     *  @param order the order of the channels
+     *  @return the shifts of the channels in a packed color
+     */
+    private static int[] shifts( int order ) {
+        switch( order ) {
+            case OrderRGB:
+                return new int[] { 24, 16, 8 };
+            case OrderRBG:
+                return new int[] { 24, 8, 16 };
+            case OrderGRB:
+                return new int[] { 16, 24, 8 };
+            case OrderGBR:
+                return new int[] { 16, 8, 24 };
+            case OrderBRG:
+                return new int[] { 8, 24, 16 };
+            case OrderBGR:
+                return new int[] { 8, 16, 24 };
+            default:
+                throw new IllegalArgumentException( "The channel order is unknown." );
+        }
+    }
+
+    /**
+     *  @return the dimension of the states
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the bits per channel
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     *  @return the order of the channels
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     *  @return the number of bytes of one bit plane
+     */
+    public int getPlaneSize() {
+        return planesize;
+    }
+
+    /**
+     *  @return the number of bytes of an encoded frame
+     */
+    public int getFrameSize() {
+        return frame.capacity();
+    }
+
+    /**
+     *  Encodes a state.
+     *
+     *  @param state the state to encode
+     *  @return the encoded frame from position 0 to its limit, valid until
+     *      the next call
+     */
+    public ByteBuffer encode( LEDCubeState state ) {
+        if( !dim.equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        return encode( state.getBuffer() );
+    }
+
+    /**
+     *  Encodes packed colors in the order of a state.
+     *
+     *  @param rgba the packed colors
+     *  @return the encoded frame from position 0 to its limit, valid until
+     *      the next call
+     */
+    public ByteBuffer encode( int[] rgba ) {
+        if( rgba.length != dim.getVolume() ) {
+            throw new IllegalArgumentException( "The size of the buffer differs." );
+        }
+        frame.clear();
+        int layerstep = dim.getDepth();
+        int drop = 8 - depth;
+        for( int ai = 0; ai < dim.getHeight(); ai++ ) {
+            int layer = ai * layerstep;
+            // gather the channels of the layer once for all planes
+            int vi = 0;
+            for( int bi = 0; bi < offsets.length; bi++ ) {
+                int color = rgba[offsets[bi] + layer];
+                values[vi++] = ( ( color >>> shifts[0] ) & 0xFF ) >>> drop;
+                values[vi++] = ( ( color >>> shifts[1] ) & 0xFF ) >>> drop;
+                values[vi++] = ( ( color >>> shifts[2] ) & 0xFF ) >>> drop;
+            }
+            for( int bit = depth - 1; bit >= 0; bit-- ) {
+                int acc = 0;
+                int count = 0;
+                for( int ci = 0; ci < values.length; ci++ ) {
+                    acc = ( acc << 1 ) | ( ( values[ci] >>> bit ) & 1 );
+                    if( ++count == 8 ) {
+                        frame.put( (byte) acc );
+                        acc = 0;
+                        count = 0;
+                    }
+                }
+                if( count != 0 ) {
+                    frame.put( (byte) ( acc << ( 8 - count ) ) );
+                }
+            }
+        }
+        frame.flip();
+        return frame;
+    }
+
+}
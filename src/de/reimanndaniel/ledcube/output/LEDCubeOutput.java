@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.output;
+
+import de.reimanndaniel.ledcube.metrics.LEDCubeFrameEvent;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ *  Sends encoded frames to a controller.
+ *  The channel can be a file, a pipe, a serial device or a socket. On a
+ *  non-blocking channel a frame that could not be written completely is
+ *  finished first, so the controller never gets a torn frame. Meanwhile
+ *  only the newest state is kept and sent when the pending frame is done,
+ *  older ones are dropped. Call {@code flush()} regularly, for example once
+ *  per render frame, so the newest state is sent even if nothing changes.
+ *  As observer of a cube it sends the state of the cube after each change.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBitPlaneEncoder
+ */
+public class LEDCubeOutput implements Observer, Closeable {
+
+    /**
+     *  The channel to the controller.
+     */
+    protected final WritableByteChannel channel;
+    /**
+     *  The encoder of the frames.
+     */
+    protected final LEDCubeBitPlaneEncoder encoder;
+    /**
+     *  The state copied from an observed cube.
+     */
+    private final LEDCubeState frame;
+    /**
+     *  The newest state waiting for the pending frame.
+     */
+    private final LEDCubeState latest;
+    /**
+     *  Whether the newest state waits to be sent.
+     */
+    private boolean waiting;
+    /**
+     *  The frame being written, null if none.
+     */
+    private ByteBuffer pending;
+    /**
+     *  The number of sent frames.
+     */
+    private long frames;
+    /**
+     *  The number of dropped frames.
+     */
+    private long dropped;
+    /**
+     *  The number of written bytes.
+     */
+    private long bytes;
+
+    /**
+     *  Creates an output.
+     *
+     *  @param channel the channel to the controller
+     *  @param encoder the encoder of the frames
+     */
+    public LEDCubeOutput( WritableByteChannel channel, LEDCubeBitPlaneEncoder encoder ) {
+        this.channel = channel;
+        this.encoder = encoder;
+        this.frame = new LEDCubeState( encoder.getDimension() );
+        this.latest = new LEDCubeState( encoder.getDimension() );
+    }
+
+    /**
+     *  @return the encoder of the frames
+     */
+    public LEDCubeBitPlaneEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     *  @return the number of completely written frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     *  @return the number of states replaced by a newer one before they were sent
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     *  @return the number of written bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     *  Sends a state.
+     *  If a frame is still pending, the state is kept until the pending
+     *  frame is done and replaces any state kept before.
+     *
+     *  @param state the state to send
+     *  @return whether the state was encoded at once, false if it waits
+     *  @throws IOException if the channel failed
+     */
+    public boolean write( LEDCubeState state ) throws IOException {
+        if( pending != null && !flush() ) {
+            if( waiting ) {
+                dropped++;
+            }
+            latest.copyFrom( state );
+            waiting = true;
+            return false;
+        }
+        pending = encoder.encode( state );
+        flush();
+        return true;
+    }
+
+    /**
+     *  Continues writing a pending frame.
+     *  When it is done, the newest waiting state is encoded and written.
+     *
+     *  @return whether no frame is pending anymore
+     *  @throws IOException if the channel failed
+     */
+    public boolean flush() throws IOException {
+        while( pending != null ) {
+            while( pending.hasRemaining() ) {
+                int written = channel.write( pending );
+                if( written == 0 ) {
+                    return false;
+                }
+                bytes += written;
+            }
+            pending = null;
+            frames++;
+            if( waiting ) {
+                waiting = false;
+                pending = encoder.encode( latest );
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  Sends the state of a cube after each change.
+     *
+     *  @param o the cube
+     *  @param arg a change to the cube
+     *  @throws UncheckedIOException if the channel failed
+     */
+    @Override
+    public void update( Observable o, Object arg ) {
+        if( o instanceof LEDCube ) {
+            LEDCube cube = (LEDCube) o;
+            LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageOutput );
+            cube.copyState( frame );
+            try {
+                write( frame );
+            }
+            catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+            finally {
+                LEDCubeFrameEvent.end( event, cube.getFrame(), frame.getDimension().getVolume() );
+            }
+        }
+    }
+
+    /**
+     *  Closes the channel.
+     *
+     *  @throws IOException if the channel could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
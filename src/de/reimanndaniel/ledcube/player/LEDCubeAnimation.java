@@ -19,16 +19,25 @@
  */
 package de.reimanndaniel.ledcube.player;
 
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
 import de.reimanndaniel.ledcube.system.LEDCubeState;
 import java.util.LinkedList;
 
 /**
  *  An animation that can be played with the {@code LEDCubePlayer}.
+ *  Each element is one frame, either a {@code LEDCubeState} or a
+ *  {@code LEDCubeLight} changing the previous frame. A {@code LEDCubeOperation}
+ *  changes many LEDs of the previous frame at once. A {@code LEDCubeHold}
+ *  keeps the previous frame for a number of frames.
+ *  The animation only holds the elements, it is played by a source from
+ *  {@code createSource()}. Elements can be added while the animation
+ *  plays, the next frame continues at the same position.
  *
  *  @author Daniel Reimann <coding@reimanndaniel.de>
  *  @version 0.9.0
  *  @since 0.9.0
- *  @see LEDCubePlayer
+ *  @see LEDCubeAnimationSource
  */
 public class LEDCubeAnimation extends LinkedList<Object> {
 
@@ -42,4 +51,63 @@ public class LEDCubeAnimation extends LinkedList<Object> {
         add( state );
     }
 
+    /**
+     *  Returns the dimension of the first state.
+     *
+     *  @return the dimension of the animation
+     */
+    public LEDCubeDimension getDimension() {
+        return ( (LEDCubeState) getFirst() ).getDimension();
+    }
+
+    /**
+     *  Creates a source that plays the animation from its beginning.
+     *  Each player needs its own source.
+     *
+     *  @return the new source
+     */
+    public LEDCubeAnimationSource createSource() {
+        return new LEDCubeAnimationSource( this );
+    }
+
+    /**
+     *  @return the number of structural changes, to notice them while playing
+     */
+    int getModifications() {
+        return modCount;
+    }
+
+    /**
+     *  Compiles the animation for fast playing and seeking.
+     *  Later changes of the animation do not change the compiled one.
+     *  Play it with a source from {@code createSource()}.
+     *
+     *  @return the compiled animation
+     */
+    public LEDCubeCompiledAnimation compile() {
+        return new LEDCubeCompiledAnimation( this );
+    }
+
+    /**
+     *  Applies an element of an animation to a frame.
+     *  Lights out of the range of the frame are ignored.
+     *
+     *  @param element the element
+     *  @param frame the frame to change
+     */
+    public static void apply( Object element, LEDCubeState frame ) {
+        if( element instanceof LEDCubeState ) {
+            frame.copyFrom( (LEDCubeState) element );
+        }
+        else if( element instanceof LEDCubeLight ) {
+            LEDCubeLight light = (LEDCubeLight) element;
+            if( frame.getDimension().in( light ) ) {
+                frame.setRGBA( light.getX(), light.getY(), light.getZ(), light.getColor() );
+            }
+        }
+        else if( element instanceof LEDCubeOperation ) {
+            ( (LEDCubeOperation) element ).apply( frame );
+        }
+    }
+
 }
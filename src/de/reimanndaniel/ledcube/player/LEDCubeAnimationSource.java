@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.ListIterator;
+
+/**
+ *  Plays an animation element by element.
+ *  The source holds only the position, so any number of sources can play
+ *  the same animation. Elements can be added while the animation plays,
+ *  the next frame continues at the same position.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimation#createSource()
+ */
+public class LEDCubeAnimationSource implements LEDCubeFrameSource {
+
+    /**
+     *  The played animation.
+     */
+    protected final LEDCubeAnimation anime;
+    /**
+     *  The position of the next frame.
+     */
+    private ListIterator<Object> cursor;
+    /**
+     *  The index of the next element.
+     */
+    private int position;
+    /**
+     *  The modifications of the animation the cursor was created at.
+     */
+    private int expected;
+    /**
+     *  The remaining frames of the current hold.
+     */
+    private int hold;
+
+    /**
+     *  Creates a source at the beginning of an animation.
+     *
+     *  @param anime the animation
+     */
+    public LEDCubeAnimationSource( LEDCubeAnimation anime ) {
+        this.anime = anime;
+    }
+
+    /**
+     *  @return the played animation
+     */
+    public LEDCubeAnimation getAnimation() {
+        return anime;
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return anime.getDimension();
+    }
+
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        int modifications = anime.getModifications();
+        if( cursor == null || expected != modifications ) {
+            // a changed animation invalidates the cursor, continue at its index
+            cursor = anime.listIterator( Math.min( position, anime.size() ) );
+            expected = modifications;
+        }
+        if( hold > 0 ) {
+            hold--;
+            return true;
+        }
+        if( !cursor.hasNext() ) {
+            return false;
+        }
+        Object element = cursor.next();
+        position++;
+        if( element instanceof LEDCubeHold ) {
+            hold = ( (LEDCubeHold) element ).getTicks() - 1;
+            return true;
+        }
+        LEDCubeAnimation.apply( element, frame );
+        return true;
+    }
+
+    /**
+     *  @return true, an animation can always start again
+     */
+    @Override
+    public boolean canRewind() {
+        return true;
+    }
+
+    @Override
+    public void rewind() {
+        cursor = null;
+        position = 0;
+        hold = 0;
+    }
+
+}
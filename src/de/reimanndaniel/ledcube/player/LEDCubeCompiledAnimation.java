@@ -0,0 +1,501 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Arrays;
+
+/**
+ *  An animation compiled into operations on primitive arrays.
+ *  Each operation covers one or more frames: a keyframe, a fill, a delta of
+ *  many LEDs, a run of single LEDs with one LED per frame, a hold or a bulk
+ *  {@code LEDCubeOperation}.
+ *  Checkpoints are kept so that a seek replays about as many changes as the
+ *  cube has LEDs, or a few bulk operations. Long animations get fewer
+ *  checkpoints, so they never hold more frames than the keyframes and
+ *  changes, or at least 16.
+ *  The compiled animation is immutable and does not change when the
+ *  animation changes, so it can be shared. Each player plays its own
+ *  {@code LEDCubeCompiledSource}.
+ *
+ *  <pre>
+ *  LEDCubeCompiledAnimation compiled = anime.compile();
+ *  player.play( compiled.createSource() );
+ *  </pre>
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimation#compile()
+ */
+public final class LEDCubeCompiledAnimation {
+
+    /**
+     *  Enum like value for an operation that copies a whole frame.
+     */
+    public static final int OpKeyframe = 1;
+    /**
+     *  Enum like value for an operation that fills all LEDs with one color.
+     */
+    public static final int OpFill = 2;
+    /**
+     *  Enum like value for an operation that changes many LEDs in one frame.
+     */
+    public static final int OpDelta = 3;
+    /**
+     *  Enum like value for an operation that changes one LED per frame.
+     */
+    public static final int OpRun = 4;
+    /**
+     *  Enum like value for an operation that keeps the previous frame.
+     */
+    public static final int OpHold = 5;
+    /**
+     *  Enum like value for an operation that applies a {@code LEDCubeOperation}.
+     */
+    public static final int OpBulk = 6;
+
+    /**
+     *  The size of the frames.
+     */
+    final LEDCubeDimension dim;
+    /**
+     *  The type of each operation.
+     */
+    final byte[] types;
+    /**
+     *  The first frame of each operation and the number of frames at the end.
+     */
+    final int[] firsts;
+    /**
+     *  The first entry of each operation in the keyframes or the changes.
+     */
+    final int[] starts;
+    /**
+     *  The end of the changes of each operation.
+     */
+    final int[] ends;
+    /**
+     *  The number of operations.
+     */
+    final int count;
+    /**
+     *  The colors of all keyframes.
+     */
+    final int[] keys;
+    /**
+     *  The LED indices of all changes.
+     */
+    final int[] indices;
+    /**
+     *  The colors of all changes and fills.
+     */
+    final int[] colors;
+    /**
+     *  The bulk operations.
+     */
+    final LEDCubeOperation[] bulks;
+    /**
+     *  The frames a seek can start at.
+     */
+    final int[] bases;
+    /**
+     *  The start of the frame before each base in the checkpoints, -1 if the
+     *  base is a keyframe or a fill.
+     */
+    final int[] copies;
+    /**
+     *  The colors of all checkpoints.
+     */
+    final int[] checkpoints;
+
+    /**
+     *  Compiles an animation.
+     *  States equal to the previous frame become holds, states that differ
+     *  in less than half of the LEDs become deltas.
+     *
+     *  @param anime the animation to compile
+     */
+    public LEDCubeCompiledAnimation( LEDCubeAnimation anime ) {
+        this.dim = anime.getDimension();
+        Compiler compiler = new Compiler( dim );
+        compiler.compile( anime );
+        this.count = compiler.count;
+        this.types = Arrays.copyOf( compiler.types, count );
+        this.firsts = Arrays.copyOf( compiler.firsts, count + 1 );
+        this.starts = Arrays.copyOf( compiler.starts, count );
+        this.ends = Arrays.copyOf( compiler.ends, count );
+        this.keys = Arrays.copyOf( compiler.keys, compiler.keyend );
+        this.indices = Arrays.copyOf( compiler.indices, compiler.end );
+        this.colors = Arrays.copyOf( compiler.colors, compiler.end );
+        this.bulks = Arrays.copyOf( compiler.bulks, compiler.bulkend );
+        this.bases = Arrays.copyOf( compiler.bases, compiler.basecount );
+        this.copies = Arrays.copyOf( compiler.copies, compiler.basecount );
+        this.checkpoints = Arrays.copyOf( compiler.checkpoints, compiler.checkend );
+    }
+
+    /**
+     *  @return the size of the frames
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the number of frames
+     */
+    public int getFrameCount() {
+        return firsts[count];
+    }
+
+    /**
+     *  @return the number of operations
+     */
+    public int getOperationCount() {
+        return count;
+    }
+
+    /**
+     *  Returns the type of an operation.
+     *
+     *  @param index the number of the operation
+     *  @return one of the {@code Op} values
+     */
+    public int getOperation( int index ) {
+        if( index < 0 || index >= count ) {
+            throw new IllegalArgumentException( "The operation is out of range." );
+        }
+        return types[index];
+    }
+
+    /**
+     *  @return the number of frames stored as checkpoints for seeks
+     */
+    public int getCheckpointCount() {
+        return checkpoints.length / dim.getVolume();
+    }
+
+    /**
+     *  Creates a source that plays the animation from its beginning.
+     *  Each player needs its own source.
+     *
+     *  @return the new source
+     */
+    public LEDCubeCompiledSource createSource() {
+        return new LEDCubeCompiledSource( this );
+    }
+
+    /**
+     *  Folds the elements of an animation into growing arrays.
+     */
+    private static final class Compiler {
+
+        /**
+         *  The number of bulk operations that cost as much as a checkpoint.
+         */
+        private static final int BULK_INTERVAL = 16;
+        /**
+         *  The number of checkpoints allowed without keyframes or changes.
+         */
+        private static final int MIN_CHECKPOINTS = 16;
+
+        /**
+         *  The size of the frames.
+         */
+        private final LEDCubeDimension dim;
+        /**
+         *  The type of each operation.
+         */
+        byte[] types = new byte[16];
+        /**
+         *  The first frame of each operation and the number of frames at the end.
+         */
+        int[] firsts = new int[17];
+        /**
+         *  The first entry of each operation in the keyframes or the changes.
+         */
+        int[] starts = new int[16];
+        /**
+         *  The end of the changes of each operation.
+         */
+        int[] ends = new int[16];
+        /**
+         *  The number of operations.
+         */
+        int count;
+        /**
+         *  The colors of all keyframes.
+         */
+        int[] keys = new int[0];
+        /**
+         *  The used part of the keyframes.
+         */
+        int keyend;
+        /**
+         *  The LED indices of all changes.
+         */
+        int[] indices = new int[16];
+        /**
+         *  The colors of all changes and fills.
+         */
+        int[] colors = new int[16];
+        /**
+         *  The used part of the changes.
+         */
+        int end;
+        /**
+         *  The bulk operations.
+         */
+        LEDCubeOperation[] bulks = new LEDCubeOperation[0];
+        /**
+         *  The used part of the bulk operations.
+         */
+        int bulkend;
+        /**
+         *  The frames a seek can start at.
+         */
+        int[] bases = new int[16];
+        /**
+         *  The start of the frame before each base in the checkpoints.
+         */
+        int[] copies = new int[16];
+        /**
+         *  The number of bases.
+         */
+        int basecount;
+        /**
+         *  The colors of all checkpoints.
+         */
+        int[] checkpoints = new int[0];
+        /**
+         *  The used part of the checkpoints.
+         */
+        int checkend;
+        /**
+         *  The factor of the work between two checkpoints, doubled whenever
+         *  the checkpoints are thinned.
+         */
+        int scale = 1;
+
+        /**
+         *  Creates a compiler.
+         *
+         *  @param dim the size of the frames
+         */
+        Compiler( LEDCubeDimension dim ) {
+            this.dim = dim;
+        }
+
+        /**
+         *  Folds the elements of an animation into operations.
+         *
+         *  @param anime the animation
+         */
+        void compile( LEDCubeAnimation anime ) {
+            int size = dim.getVolume();
+            long frames = 0;
+            long work = 0;
+            LEDCubeState current = new LEDCubeState( dim );
+            int[] prev = current.getBuffer();
+            for( Object element: anime ) {
+                int type = OpHold;
+                int length = 1;
+                int start = end;
+                int changes = end;
+                if( element instanceof LEDCubeState ) {
+                    int[] state = ( (LEDCubeState) element ).getBuffer();
+                    int diff = 0;
+                    boolean same = true;
+                    for( int ai = 0; ai < size; ai++ ) {
+                        if( state[ai] != prev[ai] ) {
+                            diff++;
+                        }
+                        if( state[ai] != state[0] ) {
+                            same = false;
+                        }
+                    }
+                    if( same && ( frames == 0 || diff > 0 ) ) {
+                        type = OpFill;
+                        grow( end + 1 );
+                        indices[end] = -1;
+                        colors[end++] = state[0];
+                    }
+                    else if( frames == 0 || diff * 2 > size ) {
+                        type = OpKeyframe;
+                        if( keyend + size > keys.length ) {
+                            keys = Arrays.copyOf( keys, Math.max( keys.length * 2, keyend + size ) );
+                        }
+                        start = keyend;
+                        System.arraycopy( state, 0, keys, keyend, size );
+                        keyend += size;
+                    }
+                    else if( diff > 0 ) {
+                        type = OpDelta;
+                        grow( end + diff );
+                        for( int ai = 0; ai < size; ai++ ) {
+                            if( state[ai] != prev[ai] ) {
+                                indices[end] = ai;
+                                colors[end++] = state[ai];
+                            }
+                        }
+                    }
+                    System.arraycopy( state, 0, prev, 0, size );
+                }
+                else if( element instanceof LEDCubeLight ) {
+                    LEDCubeLight light = (LEDCubeLight) element;
+                    if( dim.in( light ) ) {
+                        type = OpRun;
+                        int index = dim.index( light.getX(), light.getY(), light.getZ() );
+                        grow( end + 1 );
+                        indices[end] = index;
+                        colors[end++] = light.getColor();
+                        prev[index] = light.getColor();
+                    }
+                }
+                else if( element instanceof LEDCubeHold ) {
+                    length = ( (LEDCubeHold) element ).getTicks();
+                }
+                else if( element instanceof LEDCubeOperation ) {
+                    LEDCubeOperation operation = (LEDCubeOperation) element;
+                    if( operation.isFull() ) {
+                        type = OpFill;
+                        grow( end + 1 );
+                        indices[end] = -1;
+                        colors[end++] = operation.getColor();
+                    }
+                    else {
+                        type = OpBulk;
+                        if( bulkend == bulks.length ) {
+                            bulks = Arrays.copyOf( bulks, Math.max( 16, bulkend * 2 ) );
+                        }
+                        start = bulkend;
+                        bulks[bulkend++] = operation;
+                        // replaying a few is cheaper than storing a checkpoint
+                        work += Math.max( 1, size / BULK_INTERVAL );
+                    }
+                    operation.apply( current );
+                }
+                int first = (int) frames;
+                frames += length;
+                if( frames > Integer.MAX_VALUE ) {
+                    throw new IllegalArgumentException( "The animation has too many frames." );
+                }
+                // a seek may start at a keyframe, else at a checkpoint if the
+                // changes to replay would cost more than copying the frame
+                work += Math.max( 1, end - changes );
+                if( type == OpKeyframe || type == OpFill ) {
+                    base( first, -1 );
+                    work = 0;
+                }
+                else if( work >= (long) size * scale ) {
+                    // the checkpoints stay below the keyframes and changes
+                    if( checkend / size >= Math.max( MIN_CHECKPOINTS, ( keyend + end ) / size ) ) {
+                        thin( size );
+                    }
+                    if( checkend + size > checkpoints.length ) {
+                        checkpoints = Arrays.copyOf( checkpoints, Math.max( checkpoints.length * 2, checkend + size ) );
+                    }
+                    System.arraycopy( prev, 0, checkpoints, checkend, size );
+                    base( (int) frames, checkend );
+                    checkend += size;
+                    work = 0;
+                }
+                // runs and holds grow the previous operation of the same type
+                if( count > 0 && types[count - 1] == type && ( type == OpRun || type == OpHold ) ) {
+                    firsts[count] = (int) frames;
+                    ends[count - 1] = end;
+                    continue;
+                }
+                if( count == types.length ) {
+                    types = Arrays.copyOf( types, count * 2 );
+                    firsts = Arrays.copyOf( firsts, count * 2 + 1 );
+                    starts = Arrays.copyOf( starts, count * 2 );
+                    ends = Arrays.copyOf( ends, count * 2 );
+                }
+                types[count] = (byte) type;
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+                firsts[count] = (int) frames;
+            }
+        }
+
+        /**
+         *  Adds a frame a seek can start at.
+         *
+         *  @param frame the number of the frame
+         *  @param copy the start of the frame before in the checkpoints, -1 for none
+         */
+        private void base( int frame, int copy ) {
+            if( basecount == bases.length ) {
+                bases = Arrays.copyOf( bases, basecount * 2 );
+                copies = Arrays.copyOf( copies, basecount * 2 );
+            }
+            bases[basecount] = frame;
+            copies[basecount] = copy;
+            basecount++;
+        }
+
+        /**
+         *  Drops every other checkpoint and doubles the work between them.
+         *  The bases of keyframes and fills stay.
+         *
+         *  @param size the size of the frames
+         */
+        private void thin( int size ) {
+            int kept = 0;
+            int checkpoint = 0;
+            int stored = 0;
+            for( int ai = 0; ai < basecount; ai++ ) {
+                if( copies[ai] >= 0 ) {
+                    if( checkpoint++ % 2 == 0 ) {
+                        continue;
+                    }
+                    System.arraycopy( checkpoints, copies[ai], checkpoints, stored, size );
+                    copies[ai] = stored;
+                    stored += size;
+                }
+                bases[kept] = bases[ai];
+                copies[kept] = copies[ai];
+                kept++;
+            }
+            basecount = kept;
+            checkend = stored;
+            scale *= 2;
+        }
+
+        /**
+         *  Makes room for changes.
+         *
+         *  @param capacity the needed number of changes
+         */
+        private void grow( int capacity ) {
+            if( capacity > indices.length ) {
+                int length = Math.max( indices.length * 2, capacity );
+                indices = Arrays.copyOf( indices, length );
+                colors = Arrays.copyOf( colors, length );
+            }
+        }
+
+    }
+
+}
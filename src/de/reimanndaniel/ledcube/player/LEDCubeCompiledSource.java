@@ -0,0 +1,243 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Arrays;
+
+/**
+ *  Plays a compiled animation.
+ *  Playing is a loop over the arrays of the animation without casts or
+ *  iterators. A seek starts at the last keyframe or checkpoint before the
+ *  frame. The source holds only the position, so any number of sources can
+ *  play the same compiled animation.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeCompiledAnimation#createSource()
+ */
+public class LEDCubeCompiledSource implements LEDCubeSeekableSource {
+
+    /**
+     *  The played animation.
+     */
+    protected final LEDCubeCompiledAnimation anime;
+    /**
+     *  The current operation.
+     */
+    private int op;
+    /**
+     *  The frames left in the current operation.
+     */
+    private int left;
+    /**
+     *  The next change of the current run.
+     */
+    private int entry;
+    /**
+     *  The frame the next call renders.
+     */
+    private int position;
+    /**
+     *  Whether the next call has to restore the whole frame.
+     */
+    private boolean restore;
+
+    /**
+     *  Creates a source at the beginning of a compiled animation.
+     *
+     *  @param anime the compiled animation
+     */
+    public LEDCubeCompiledSource( LEDCubeCompiledAnimation anime ) {
+        this.anime = anime;
+        rewind();
+    }
+
+    /**
+     *  @return the played animation
+     */
+    public LEDCubeCompiledAnimation getAnimation() {
+        return anime;
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return anime.dim;
+    }
+
+    /**
+     *  @return the number of frames
+     */
+    @Override
+    public int getFrameCount() {
+        return anime.getFrameCount();
+    }
+
+    /**
+     *  @return the number of the frame the next call renders
+     */
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek( int frame ) {
+        if( frame < 0 || frame > getFrameCount() ) {
+            throw new IllegalArgumentException( "The frame is out of range." );
+        }
+        position = frame;
+        restore = true;
+    }
+
+    /**
+     *  @return true, a compiled animation can always start again
+     */
+    @Override
+    public boolean canRewind() {
+        return true;
+    }
+
+    @Override
+    public void rewind() {
+        seek( 0 );
+    }
+
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        if( position >= anime.firsts[anime.count] ) {
+            return false;
+        }
+        if( restore ) {
+            replay( frame, position );
+            restore = false;
+        }
+        else {
+            apply( frame );
+        }
+        position++;
+        return true;
+    }
+
+    /**
+     *  Moves the current operation to a frame.
+     *
+     *  @param frame the number of the frame
+     */
+    private void locate( int frame ) {
+        int[] firsts = anime.firsts;
+        int count = anime.count;
+        if( frame >= firsts[count] ) {
+            op = count;
+            left = 0;
+            return;
+        }
+        // each operation has at least one frame, so the first frames are unique
+        int at = Arrays.binarySearch( firsts, 0, count, frame );
+        if( at < 0 ) {
+            at = -at - 2;
+        }
+        op = at;
+        left = firsts[at + 1] - frame;
+        entry = anime.starts[at] + frame - firsts[at];
+    }
+
+    /**
+     *  Restores a frame from the last base before it.
+     *  Runs and holds are replayed as a whole, not frame by frame.
+     *
+     *  @param state the state to restore the frame into
+     *  @param frame the number of the frame
+     */
+    private void replay( LEDCubeState state, int frame ) {
+        int[] leds = state.getBuffer();
+        int[] bases = anime.bases;
+        int at = Arrays.binarySearch( bases, frame );
+        if( at < 0 ) {
+            at = -at - 2;
+        }
+        if( anime.copies[at] >= 0 ) {
+            System.arraycopy( anime.checkpoints, anime.copies[at], leds, 0, leds.length );
+        }
+        int[] firsts = anime.firsts;
+        int[] indices = anime.indices;
+        int[] colors = anime.colors;
+        int from = bases[at];
+        locate( from );
+        while( from <= frame ) {
+            // all but the last frame of the operation up to the frame
+            int skip = Math.min( frame, firsts[op + 1] - 1 ) - from;
+            if( skip > 0 ) {
+                if( anime.types[op] == LEDCubeCompiledAnimation.OpRun ) {
+                    for( int ai = entry, end = entry + skip; ai < end; ai++ ) {
+                        leds[indices[ai]] = colors[ai];
+                    }
+                    entry += skip;
+                }
+                left -= skip;
+                from += skip;
+            }
+            apply( state );
+            from++;
+        }
+    }
+
+    /**
+     *  Applies the current frame and moves to the next one.
+     *
+     *  @param state the previous frame
+     */
+    private void apply( LEDCubeState state ) {
+        LEDCubeCompiledAnimation anime = this.anime;
+        int[] leds = state.getBuffer();
+        int start = entry;
+        switch( anime.types[op] ) {
+            case LEDCubeCompiledAnimation.OpKeyframe:
+                System.arraycopy( anime.keys, start, leds, 0, leds.length );
+                break;
+            case LEDCubeCompiledAnimation.OpFill:
+                Arrays.fill( leds, anime.colors[start] );
+                break;
+            case LEDCubeCompiledAnimation.OpDelta:
+                int[] indices = anime.indices;
+                int[] colors = anime.colors;
+                for( int ai = start, end = anime.ends[op]; ai < end; ai++ ) {
+                    leds[indices[ai]] = colors[ai];
+                }
+                break;
+            case LEDCubeCompiledAnimation.OpRun:
+                leds[anime.indices[start]] = anime.colors[start];
+                entry++;
+                break;
+            case LEDCubeCompiledAnimation.OpBulk:
+                anime.bulks[start].apply( state );
+                break;
+            default:
+                break;
+        }
+        if( --left == 0 && ++op < anime.count ) {
+            left = anime.firsts[op + 1] - anime.firsts[op];
+            entry = anime.starts[op];
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *  Produces the frames of another source on a worker thread ahead of time.
+ *  The frames are handed to the player through a {@code LEDCubeFrameRing},
+ *  so an expensive source does not stall the render thread.
+ *  If no frame is ready when the player pulls, the previous frame stays.
+ *  If the source fails on the worker thread, the pull after the last
+ *  produced frame throws its exception.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeFrameRing
+ */
+public class LEDCubeFrameProducer implements LEDCubeFrameSource {
+
+    /**
+     *  Enum like value for a producer that waits while the ring is full.
+     */
+    public static final int PolicyBlock = 1;
+    /**
+     *  Enum like value for a producer that drops the oldest frame if the
+     *  ring is full.
+     */
+    public static final int PolicyDropOldest = 2;
+
+    /**
+     *  Counts the frames produced by all producers.
+     */
+    private static final LongAdder PRODUCED = LEDCubeMetrics.getDefault().counter( "producer.frames.produced" );
+    /**
+     *  Counts the frames all producers dropped because the ring was full.
+     */
+    private static final LongAdder DROPPED = LEDCubeMetrics.getDefault().counter( "producer.frames.dropped" );
+    /**
+     *  Counts the pulls without a ready frame of all producers.
+     */
+    private static final LongAdder UNDERRUNS = LEDCubeMetrics.getDefault().counter( "producer.underruns" );
+
+    /**
+     *  The source to produce the frames.
+     */
+    protected final LEDCubeFrameSource source;
+    /**
+     *  The frames produced ahead.
+     */
+    protected final LEDCubeFrameRing ring;
+    /**
+     *  The frame the source renders into.
+     */
+    private final LEDCubeState work;
+    /**
+     *  The worker thread, null if stopped.
+     */
+    private Thread worker;
+    /**
+     *  Whether the worker should keep producing.
+     */
+    private volatile boolean running;
+    /**
+     *  Whether the source has no more frames.
+     */
+    private volatile boolean finished;
+    /**
+     *  The failure of the source on the worker thread, null if none.
+     */
+    private volatile Throwable failure;
+    /**
+     *  The number of pulls without a ready frame.
+     */
+    private long underruns;
+
+    /**
+     *  Creates a producer that buffers up to 4 frames and waits if the
+     *  buffer is full.
+     *
+     *  @param source the source to produce the frames
+     */
+    public LEDCubeFrameProducer( LEDCubeFrameSource source ) {
+        this( source, 4, PolicyBlock );
+    }
+
+    /**
+     *  Creates a producer.
+     *
+     *  @param source the source to produce the frames
+     *  @param capacity the number of frames to produce ahead, at least 2
+     *  @param policy {@code PolicyBlock} or {@code PolicyDropOldest}
+     */
+    public LEDCubeFrameProducer( LEDCubeFrameSource source, int capacity, int policy ) {
+        if( policy != PolicyBlock && policy != PolicyDropOldest ) {
+            throw new IllegalArgumentException( "The policy is unknown." );
+        }
+        this.source = source;
+        this.ring = new LEDCubeFrameRing( source.getDimension(), capacity, policy == PolicyDropOldest );
+        this.work = new LEDCubeState( source.getDimension() );
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return source.getDimension();
+    }
+
+    /**
+     *  @return the number of frames dropped because the ring was full
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    /**
+     *  @return the number of pulls without a ready frame
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     *  Starts producing frames.
+     *  Called by the first pull, call it earlier to fill the ring in advance.
+     */
+    public synchronized void start() {
+        if( worker != null ) {
+            return;
+        }
+        running = true;
+        worker = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "LEDCube frame producer" );
+        worker.setDaemon( true );
+        worker.start();
+    }
+
+    /**
+     *  Stops producing frames and waits for the worker.
+     *  The frames in the ring are kept.
+     */
+    public synchronized void stop() {
+        if( worker == null ) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark( worker );
+        boolean interrupted = false;
+        while( worker.isAlive() ) {
+            try {
+                worker.join();
+            }
+            catch( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     *  The loop of the worker thread.
+     */
+    private void produce() {
+        try {
+            while( running ) {
+                if( !source.next( work ) ) {
+                    finished = true;
+                    return;
+                }
+                long dropped = ring.getDropped();
+                while( !ring.offer( work ) ) {
+                    if( !running ) {
+                        return;
+                    }
+                    LockSupport.parkNanos( this, 1000000L );
+                }
+                PRODUCED.increment();
+                DROPPED.add( ring.getDropped() - dropped );
+            }
+        }
+        catch( Throwable t ) {
+            // handed to the player by the next pull after the ready frames
+            failure = t;
+            finished = true;
+        }
+    }
+
+    /**
+     *  Takes the next produced frame.
+     *  Keeps the previous frame if no frame is ready yet.
+     *
+     *  @param frame the state to copy the frame into
+     *  @return whether there was another frame
+     *  @throws IllegalStateException if the source failed on the worker thread
+     */
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        Thread producer = worker;
+        if( producer == null && !finished ) {
+            start();
+            producer = worker;
+        }
+        boolean done = finished;
+        if( ring.poll( frame ) ) {
+            if( producer != null ) {
+                LockSupport.unpark( producer );
+            }
+            return true;
+        }
+        if( done ) {
+            Throwable cause = failure;
+            if( cause != null ) {
+                throw new IllegalStateException( "The source of the producer failed.", cause );
+            }
+            return false;
+        }
+        underruns++;
+        UNDERRUNS.increment();
+        return true;
+    }
+
+    /**
+     *  @return whether the source can start again
+     */
+    @Override
+    public boolean canRewind() {
+        return source.canRewind();
+    }
+
+    /**
+     *  Stops the worker and starts the source from the beginning.
+     *  A failure of the source is dropped.
+     */
+    @Override
+    public void rewind() {
+        stop();
+        source.rewind();
+        ring.clear();
+        failure = null;
+        finished = false;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  A bounded lock-free ring of frames between one producer thread and one
+ *  consumer thread.
+ *  The frames are copied into and out of preallocated states, so passing
+ *  a frame allocates nothing.
+ *  If the ring is full, the producer either has to wait or drops the
+ *  oldest frame. A ring of capacity 2 that drops the oldest frame always
+ *  hands out one of the two latest frames, like a triple buffer.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeFrameProducer
+ */
+public class LEDCubeFrameRing {
+
+    /**
+     *  The frames of the ring.
+     */
+    private final LEDCubeState[] slots;
+    /**
+     *  Whether the producer drops the oldest frame if the ring is full.
+     */
+    private final boolean dropoldest;
+    /**
+     *  The number of the next frame to take.
+     *  Only increases, the producer moves it when dropping a frame.
+     */
+    private final AtomicLong head;
+    /**
+     *  The number of the next frame to put.
+     *  Only the producer moves it.
+     */
+    private final AtomicLong tail;
+    /**
+     *  The number of dropped frames.
+     */
+    private volatile long dropped;
+
+    /**
+     *  Creates a ring.
+     *
+     *  @param dim the dimension of the frames
+     *  @param capacity the number of frames, at least 2
+     *  @param dropoldest whether to drop the oldest frame if the ring is full
+     */
+    public LEDCubeFrameRing( LEDCubeDimension dim, int capacity, boolean dropoldest ) {
+        if( capacity < 2 ) {
+            throw new IllegalArgumentException( "The ring has to hold at least 2 frames." );
+        }
+        this.slots = new LEDCubeState[capacity];
+        for( int ai = 0; ai < capacity; ai++ ) {
+            slots[ai] = new LEDCubeState( dim );
+        }
+        this.dropoldest = dropoldest;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     *  @return the number of frames the ring can hold
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     *  @return the number of frames in the ring
+     */
+    public int size() {
+        return (int) ( tail.get() - head.get() );
+    }
+
+    /**
+     *  @return the number of frames the producer dropped
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     *  Puts a frame into the ring.
+     *  May only be called by the producer thread.
+     *
+     *  @param frame the frame to copy
+     *  @return false if the ring is full and does not drop frames
+     */
+    public boolean offer( LEDCubeState frame ) {
+        long t = tail.get();
+        while( t - head.get() >= slots.length ) {
+            if( !dropoldest ) {
+                return false;
+            }
+            long h = head.get();
+            // the consumer notices the drop when it moves the head
+            if( t - h >= slots.length && head.compareAndSet( h, h + 1 ) ) {
+                dropped++;
+            }
+        }
+        slots[(int) ( t % slots.length )].copyFrom( frame );
+        tail.set( t + 1 );
+        return true;
+    }
+
+    /**
+     *  Takes the oldest frame out of the ring.
+     *  May only be called by the consumer thread.
+     *
+     *  @param frame the state to copy the frame into
+     *  @return false if the ring is empty
+     */
+    public boolean poll( LEDCubeState frame ) {
+        while( true ) {
+            long h = head.get();
+            if( h >= tail.get() ) {
+                return false;
+            }
+            frame.copyFrom( slots[(int) ( h % slots.length )] );
+            // fails if the producer dropped and overwrote the frame meanwhile
+            if( head.compareAndSet( h, h + 1 ) ) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     *  Removes all frames.
+     *  May only be called while the producer is stopped.
+     */
+    public void clear() {
+        head.set( tail.get() );
+    }
+
+}
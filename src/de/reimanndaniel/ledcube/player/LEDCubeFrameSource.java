@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+
+/**
+ *  A source of frames the {@code LEDCubePlayer} pulls one after another.
+ *  The source renders each frame into a state that is reused for all
+ *  frames, so a source only has to keep what it needs for the next frame
+ *  and can be endless.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubePlayer#play(LEDCubeFrameSource, boolean)
+ */
+public interface LEDCubeFrameSource {
+
+    /**
+     *  @return the dimension of the frames
+     */
+    public LEDCubeDimension getDimension();
+
+    /**
+     *  Renders the next frame.
+     *  The state still holds the previous frame, so a source may only
+     *  change what differs.
+     *
+     *  @param frame the state to render the frame into
+     *  @return whether there was another frame
+     */
+    public boolean next( LEDCubeState frame );
+
+    /**
+     *  Tells if the source can start again, a stream for example can not.
+     *
+     *  @return whether {@code rewind()} is supported
+     */
+    public boolean canRewind();
+
+    /**
+     *  Starts the source from the beginning.
+     *
+     *  @throws UnsupportedOperationException if {@code canRewind()} is false
+     */
+    public void rewind();
+
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+
+/**
+ *  An endless source that computes each frame from its number.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public abstract class LEDCubeGenerator implements LEDCubeFrameSource {
+
+    /**
+     *  The dimension of the frames.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The number of the next frame.
+     */
+    private long count;
+
+    /**
+     *  Creates a generator.
+     *
+     *  @param dim the dimension of the frames
+     */
+    public LEDCubeGenerator( LEDCubeDimension dim ) {
+        this.dim = dim;
+    }
+
+    @Override
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    @Override
+    public boolean next( LEDCubeState frame ) {
+        render( frame, count++ );
+        return true;
+    }
+
+    /**
+     *  @return true, a generator can always start again
+     */
+    @Override
+    public boolean canRewind() {
+        return true;
+    }
+
+    @Override
+    public void rewind() {
+        count = 0;
+    }
+
+    /**
+     *  Renders a frame.
+     *
+     *  @param frame the state to render into, holding the previous frame
+     *  @param number the number of the frame since the start
+     */
+    protected abstract void render( LEDCubeState frame, long number );
+
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+/**
+ *  An element of an animation that keeps the previous frame for a number
+ *  of ticks.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimation
+ *  @see LEDCubeScheduler
+ */
+public class LEDCubeHold {
+
+    /**
+     *  The number of ticks to hold.
+     */
+    private final int ticks;
+
+    /**
+     *  Creates a hold.
+     *
+     *  @param ticks the number of ticks to hold the previous frame
+     */
+    public LEDCubeHold( int ticks ) {
+        if( ticks < 1 ) {
+            throw new IllegalArgumentException( "The hold has to last >= 1 tick." );
+        }
+        this.ticks = ticks;
+    }
+
+    /**
+     *  @return the number of ticks to hold
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+}
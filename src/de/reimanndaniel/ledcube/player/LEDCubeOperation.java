@@ -0,0 +1,266 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import de.reimanndaniel.ledcube.system.LEDCubeVoxelShape;
+
+/**
+ *  An element of an animation that changes many LEDs at once.
+ *  Like a {@code LEDCubeLight} it changes the previous frame, but fills a
+ *  whole shape, copies a layer, moves or rolls the cube along an axis or
+ *  fades all LEDs in one step.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeAnimation#apply(Object, LEDCubeState)
+ */
+public class LEDCubeOperation {
+
+    /**
+     *  Enum like value for filling all LEDs or a shape.
+     */
+    public static final int TypeFill = 1;
+    /**
+     *  Enum like value for copying a layer onto another.
+     */
+    public static final int TypeCopyLayer = 2;
+    /**
+     *  Enum like value for moving all LEDs along an axis.
+     */
+    public static final int TypeShift = 3;
+    /**
+     *  Enum like value for rolling all LEDs along an axis.
+     */
+    public static final int TypeRoll = 4;
+    /**
+     *  Enum like value for scaling the brightness of all LEDs.
+     */
+    public static final int TypeFade = 5;
+
+    /**
+     *  The type of the operation.
+     */
+    private final int type;
+    /**
+     *  The shape to fill, null for all LEDs.
+     */
+    private final LEDCubeVoxelShape shape;
+    /**
+     *  The packed color to fill with.
+     */
+    private final int color;
+    /**
+     *  The axis of layers or moves.
+     */
+    private final int axis;
+    /**
+     *  The source layer or the distance of a move.
+     */
+    private final int first;
+    /**
+     *  The target layer.
+     */
+    private final int second;
+    /**
+     *  The factor of a fade.
+     */
+    private final float factor;
+
+    /**
+     *  Creates an operation.
+     *
+     *  @param type the type of the operation
+     *  @param shape the shape to fill, null for all LEDs
+     *  @param color the packed color to fill with
+     *  @param axis the axis of layers or moves
+     *  @param first the source layer or the distance of a move
+     *  @param second the target layer
+     *  @param factor the factor of a fade
+     */
+    protected LEDCubeOperation( int type, LEDCubeVoxelShape shape, int color, int axis, int first, int second, float factor ) {
+        this.type = type;
+        this.shape = shape;
+        this.color = color;
+        this.axis = axis;
+        this.first = first;
+        this.second = second;
+        this.factor = factor;
+    }
+
+    /**
+     *  Creates an operation that fills all LEDs.
+     *
+     *  @param rgba the packed color
+     *  @return the operation
+     */
+    public static LEDCubeOperation fill( int rgba ) {
+        return new LEDCubeOperation( TypeFill, null, rgba, 0, 0, 0, 1f );
+    }
+
+    /**
+     *  Creates an operation that fills the LEDs of a shape.
+     *  The shape is copied, so later changes of it do not change the operation.
+     *
+     *  @param shape the LEDs to fill
+     *  @param rgba the packed color
+     *  @return the operation
+     */
+    public static LEDCubeOperation fill( LEDCubeVoxelShape shape, int rgba ) {
+        return new LEDCubeOperation( TypeFill, new LEDCubeVoxelShape( shape ), rgba, 0, 0, 0, 1f );
+    }
+
+    /**
+     *  Creates an operation that switches off all LEDs.
+     *
+     *  @return the operation
+     */
+    public static LEDCubeOperation clear() {
+        return fill( LEDCubeColor.BLACK );
+    }
+
+    /**
+     *  Creates an operation that copies a layer onto another.
+     *  Layers beyond the cube are only found when the operation is applied.
+     *
+     *  @param axis the axis the layers are numbered along, {@code AxisX}, {@code AxisY} or {@code AxisZ}
+     *  @param from the number of the layer to copy, >= 0
+     *  @param to the number of the layer to overwrite, >= 0
+     *  @return the operation
+     *  @see LEDCubeState#copyLayer(int, int, int)
+     */
+    public static LEDCubeOperation copyLayer( int axis, int from, int to ) {
+        checkAxis( axis );
+        if( from < 0 || to < 0 ) {
+            throw new IllegalArgumentException( "The layer has to be >= 0." );
+        }
+        return new LEDCubeOperation( TypeCopyLayer, null, 0, axis, from, to, 1f );
+    }
+
+    /**
+     *  Creates an operation that moves all LEDs along an axis.
+     *
+     *  @param axis the axis to move along, {@code AxisX}, {@code AxisY} or {@code AxisZ}
+     *  @param distance the number of layers to move, negative to move back
+     *  @param rgba the packed color of the layers moved in
+     *  @return the operation
+     *  @see LEDCubeState#shift(int, int, int)
+     */
+    public static LEDCubeOperation shift( int axis, int distance, int rgba ) {
+        checkAxis( axis );
+        return new LEDCubeOperation( TypeShift, null, rgba, axis, distance, 0, 1f );
+    }
+
+    /**
+     *  Creates an operation that rolls all LEDs along an axis.
+     *
+     *  @param axis the axis to roll along, {@code AxisX}, {@code AxisY} or {@code AxisZ}
+     *  @param distance the number of layers to roll, negative to roll back
+     *  @return the operation
+     *  @see LEDCubeState#roll(int, int)
+     */
+    public static LEDCubeOperation roll( int axis, int distance ) {
+        checkAxis( axis );
+        return new LEDCubeOperation( TypeRoll, null, 0, axis, distance, 0, 1f );
+    }
+
+    /**
+     *  Creates an operation that scales the brightness of all LEDs.
+     *
+     *  @param factor the factor for red, green and blue, >= 0
+     *  @return the operation
+     *  @see LEDCubeState#fade(float)
+     */
+    public static LEDCubeOperation fade( float factor ) {
+        if( !( factor >= 0f ) ) {
+            throw new IllegalArgumentException( "The factor has to be >= 0." );
+        }
+        return new LEDCubeOperation( TypeFade, null, 0, 0, 0, 0, factor );
+    }
+
+    /**
+     *  Checks that an axis is one of the axes of a dimension.
+     *
+     *  @param axis the axis
+     *  @throws IllegalArgumentException if the axis is unknown
+     */
+    private static void checkAxis( int axis ) {
+        if( axis != LEDCubeDimension.AxisX && axis != LEDCubeDimension.AxisY && axis != LEDCubeDimension.AxisZ ) {
+            throw new IllegalArgumentException( "The axis is unknown." );
+        }
+    }
+
+    /**
+     *  @return the type of the operation
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     *  @return whether the operation sets every LED without reading any
+     */
+    public boolean isFull() {
+        return type == TypeFill && shape == null;
+    }
+
+    /**
+     *  @return the packed color to fill with
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     *  Applies the operation to a frame.
+     *
+     *  @param frame the frame to change
+     */
+    public void apply( LEDCubeState frame ) {
+        switch( type ) {
+            case TypeFill:
+                if( shape == null ) {
+                    frame.fill( color );
+                }
+                else {
+                    frame.fill( shape, color );
+                }
+                break;
+            case TypeCopyLayer:
+                frame.copyLayer( axis, first, second );
+                break;
+            case TypeShift:
+                frame.shift( axis, first, color );
+                break;
+            case TypeRoll:
+                frame.roll( axis, first );
+                break;
+            case TypeFade:
+                frame.fade( factor );
+                break;
+            default:
+                throw new IllegalStateException( "The operation is unknown." );
+        }
+    }
+
+}
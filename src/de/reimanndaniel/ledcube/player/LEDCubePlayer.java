@@ -19,12 +19,14 @@
  */
 package de.reimanndaniel.ledcube.player;
 
+import de.reimanndaniel.ledcube.metrics.LEDCubeFrameEvent;
+import de.reimanndaniel.ledcube.metrics.LEDCubeHistogram;
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
 import de.reimanndaniel.ledcube.system.LEDCube;
 import de.reimanndaniel.ledcube.system.LEDCubeDimension;
 import de.reimanndaniel.ledcube.system.LEDCubeLight;
-import de.reimanndaniel.ledcube.system.LEDCubePoint;
 import de.reimanndaniel.ledcube.system.LEDCubeState;
-import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  *  This can control the cube in better and more abstract ways.
@@ -35,18 +37,39 @@ import java.util.Iterator;
  */
 public class LEDCubePlayer {
 
+    /**
+     *  Counts the frames shown by all players.
+     */
+    private static final LongAdder SHOWN = LEDCubeMetrics.getDefault().counter( "player.frames.shown" );
+    /**
+     *  Counts the frames the schedulers of all players skipped.
+     */
+    private static final LongAdder DROPPED = LEDCubeMetrics.getDefault().counter( "player.frames.dropped" );
+    /**
+     *  The duration of the updates of all players in nanoseconds.
+     */
+    private static final LEDCubeHistogram UPDATE = LEDCubeMetrics.getDefault().histogram( "player.update.nanos" );
+
     /**
      *  The cube to play with.
      */
     protected LEDCube cube;
     /**
-     *  The currently playing animation.
+     *  The currently playing source.
+     */
+    protected LEDCubeFrameSource source;
+    /**
+     *  The frame the source renders into.
      */
-    protected LEDCubeAnimation anime;
+    protected LEDCubeState frame;
     /**
-     *  The current position in the animation.
+     *  The frame bulk operations are applied to.
      */
-    protected Iterator pos;
+    private LEDCubeState bulk;
+    /**
+     *  Turns the time into frames of the animation.
+     */
+    protected final LEDCubeScheduler scheduler;
     /**
      *  Pauses any running animation.
      */
@@ -55,19 +78,50 @@ public class LEDCubePlayer {
      *  Repeats the animation.
      */
     private boolean repeat;
+    /**
+     *  The number of frames rendered by the sources of this player.
+     */
+    private long tick;
 
     /**
      *  Create a player with a cube.
+     *  Plays 60 frames per second.
      *
      *  @param cube the cube to play with
      */
     public LEDCubePlayer( LEDCube cube ) {
+        this( cube, new LEDCubeScheduler( 60f ) );
+    }
+
+    /**
+     *  Create a player with a cube and a special scheduler.
+     *
+     *  @param cube the cube to play with
+     *  @param scheduler the scheduler for the frames
+     */
+    public LEDCubePlayer( LEDCube cube, LEDCubeScheduler scheduler ) {
         this.cube = cube;
+        this.scheduler = scheduler;
         pause = false;
     }
 
+    /**
+     *  @return the scheduler for the frames
+     */
+    public LEDCubeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     *  @return the number of frames rendered by the sources of this player
+     */
+    public long getTick() {
+        return tick;
+    }
+
     /**
      *  Shows a state with the cube.
+     *  Only the LEDs that differ from the cube are changed.
      *
      *  @param state the state
      *  @return whether it could show the state
@@ -75,13 +129,10 @@ public class LEDCubePlayer {
     public boolean show( LEDCubeState state ) {
         LEDCubeDimension dim = state.getDimension();
         if( cube.getDimension().equals( dim ) ) {
-            for( int ai = 0; ai < dim.getWidth(); ai++ ) {
-                for( int bi = 0; bi < dim.getHeight(); bi++ ) {
-                    for( int ci = 0; ci < dim.getDepth(); ci++ ) {
-                        cube.setColor( new LEDCubePoint( ai, bi, ci ), state.get( ai, bi, ci ) );
-                    }
-                }
-            }
+            LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageShow );
+            cube.setState( state );
+            LEDCubeFrameEvent.end( event, cube.getFrame(), dim.getVolume() );
+            SHOWN.increment();
             return true;
         }
         return false;
@@ -95,35 +146,91 @@ public class LEDCubePlayer {
      */
     public boolean apply( LEDCubeLight change ) {
         if( cube.getDimension().in( change ) ) {
+            LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageApply );
             cube.setLight( change );
+            LEDCubeFrameEvent.end( event, cube.getFrame(), 1 );
             return true;
         }
         return false;
     }
 
+    /**
+     *  Applies a bulk operation to the cube.
+     *  The observers get all changed LEDs as one change.
+     *
+     *  @param operation the operation
+     */
+    public void apply( LEDCubeOperation operation ) {
+        if( bulk == null || !bulk.getDimension().equals( cube.getDimension() ) ) {
+            bulk = new LEDCubeState( cube.getDimension() );
+        }
+        cube.copyState( bulk );
+        operation.apply( bulk );
+        show( bulk );
+    }
+
     /**
      *  Plays an animation on the cube.
-     *  Automatically repeats the animation.
+     *  Automatically repeats the animation, a source that can not start
+     *  again ends instead.
      *
-     *  @param anime the animation
+     *  @param source the animation
      */
-    public void play( LEDCubeAnimation anime ) {
-        play( anime, true );
+    public void play( LEDCubeFrameSource source ) {
+        play( source, true );
     }
 
     /**
      *  Plays a animation on the cube.
+     *  The source starts at its current position. A seekable source renders
+     *  that frame completely, as the reused frame may hold another source.
      *
-     *  @param anime the animation
-     *  @param repeat whether to repat the animation
+     *  @param source the animation
+     *  @param repeat whether to repat the animation if it can start again
      */
-    public void play( LEDCubeAnimation anime, boolean repeat ) {
-        this.anime = anime;
+    public void play( LEDCubeFrameSource source, boolean repeat ) {
+        if( !cube.getDimension().equals( source.getDimension() ) ) {
+            throw new IllegalArgumentException( "The animation has another dimension." );
+        }
+        this.source = source;
         this.repeat = repeat;
-        pos = anime.iterator();
+        if( frame == null || !frame.getDimension().equals( source.getDimension() ) ) {
+            frame = new LEDCubeState( source.getDimension() );
+        }
+        if( source instanceof LEDCubeSeekableSource ) {
+            LEDCubeSeekableSource seekable = (LEDCubeSeekableSource) source;
+            seekable.seek( seekable.getPosition() );
+        }
+        scheduler.reset();
+        LEDCubeDimension dim = source.getDimension();
+        LEDCubeMetrics metrics = LEDCubeMetrics.getDefault();
+        metrics.tag( "player.source", source.getClass().getName() );
+        metrics.tag( "player.dimension", dim.getWidth() + "x" + dim.getHeight() + "x" + dim.getDepth() );
         resume();
     }
 
+    /**
+     *  Jumps to a frame of the playing animation.
+     *
+     *  @param frame the number of the frame
+     */
+    public void seek( int frame ) {
+        if( !( source instanceof LEDCubeSeekableSource ) ) {
+            throw new IllegalStateException( "The animation can not seek." );
+        }
+        ( (LEDCubeSeekableSource) source ).seek( frame );
+    }
+
+    /**
+     *  Jumps to a point in time of the playing animation.
+     *  Uses the frame rate of the scheduler.
+     *
+     *  @param seconds the time since the start of the animation
+     */
+    public void seekTime( float seconds ) {
+        seek( Math.round( seconds * scheduler.getFrameRate() ) );
+    }
+
     /**
      *  Pauses the animation.
      */
@@ -163,23 +270,78 @@ public class LEDCubePlayer {
 
     /**
      *  Update the LED cube according to the animation.
+     *  Advances the animation by the frames the scheduler has due.
      *
      *  @param tpf time difference to last update
      */
     public void update( float tpf ) {
-        if( !pause && anime != null ) {
-            if( !pos.hasNext() ) {
-                if( repeat ) { pos = anime.iterator(); }
-                else { return; }
+        if( pause || source == null ) {
+            return;
+        }
+        long start = System.nanoTime();
+        long skipped = scheduler.getSkipped();
+        int ticks = scheduler.advance( tpf );
+        long dropped = scheduler.getSkipped() - skipped;
+        DROPPED.add( dropped );
+        boolean every = scheduler.showsEveryTick();
+        if( !every && dropped > 0 && source instanceof LEDCubeSeekableSource ) {
+            skip( (LEDCubeSeekableSource) source, dropped );
+        }
+        boolean pulled = false;
+        for( int ai = 0; ai < ticks; ai++ ) {
+            if( !pull() ) {
+                break;
+            }
+            pulled = true;
+            if( every ) {
+                show( frame );
             }
-            Object next = pos.next();
-            if( next instanceof LEDCubeState ) {
-                show( (LEDCubeState) next );
+        }
+        if( pulled && !every ) {
+            show( frame );
+        }
+        UPDATE.record( System.nanoTime() - start );
+    }
+
+    /**
+     *  Jumps over dropped frames of a seekable source.
+     *
+     *  @param seekable the playing source
+     *  @param dropped the number of dropped frames
+     */
+    private void skip( LEDCubeSeekableSource seekable, long dropped ) {
+        int count = seekable.getFrameCount();
+        long target = seekable.getPosition() + dropped;
+        if( target >= count ) {
+            if( !repeat || count == 0 ) {
+                target = count;
             }
-            else if( next instanceof LEDCubeLight ) {
-                apply( (LEDCubeLight) next );
+            else {
+                target %= count;
             }
         }
+        seekable.seek( (int) target );
+    }
+
+    /**
+     *  Renders the next frame of the source.
+     *  The event of the frame carries the tick of the player, as a frame
+     *  that changes no LED never becomes a frame of the cube. Only a
+     *  rendered frame counts as tick.
+     *
+     *  @return whether there was another frame
+     */
+    protected boolean pull() {
+        LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageGenerate );
+        boolean rendered = source.next( frame );
+        if( !rendered && repeat && source.canRewind() ) {
+            source.rewind();
+            rendered = source.next( frame );
+        }
+        if( rendered ) {
+            LEDCubeFrameEvent.end( event, tick++, frame.getDimension().getVolume() );
+        }
+        return rendered;
     }
 
 }
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+
+/**
+ *  Plays frame sources on a cube as fast as possible.
+ *  Unlike the {@code LEDCubePlayer} it needs no render loop and ignores
+ *  the frame rate, so it is meant for offline rendering, generation on a
+ *  server and measurements.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubePlayer
+ */
+public class LEDCubeRunner {
+
+    /**
+     *  The cube to show the frames.
+     */
+    protected final LEDCube cube;
+    /**
+     *  The current frame.
+     */
+    private final LEDCubeState frame;
+    /**
+     *  The number of shown frames.
+     */
+    private long frames;
+    /**
+     *  The time spent running in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     *  Creates a runner.
+     *
+     *  @param cube the cube to show the frames
+     */
+    public LEDCubeRunner( LEDCube cube ) {
+        this.cube = cube;
+        this.frame = new LEDCubeState( cube.getDimension() );
+    }
+
+    /**
+     *  @return the cube to show the frames
+     */
+    public LEDCube getLEDCube() {
+        return cube;
+    }
+
+    /**
+     *  @return the number of shown frames
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     *  @return the time spent running in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     *  @return the shown frames per second, 0 if nothing ran
+     */
+    public double getFrameRate() {
+        if( nanos == 0 ) {
+            return 0;
+        }
+        return frames * 1e9 / nanos;
+    }
+
+    /**
+     *  Resets the counters.
+     */
+    public void reset() {
+        frames = 0;
+        nanos = 0;
+    }
+
+    /**
+     *  Shows the frames of a source until it ends.
+     *
+     *  @param source the source of the frames
+     *  @param max the maximal number of frames to show
+     *  @return the number of shown frames
+     */
+    public long run( LEDCubeFrameSource source, long max ) {
+        return run( source, max, false );
+    }
+
+    /**
+     *  Shows the frames of a source.
+     *
+     *  @param source the source of the frames
+     *  @param max the maximal number of frames to show
+     *  @param repeat whether the source starts again at its end if it can
+     *  @return the number of shown frames
+     */
+    public long run( LEDCubeFrameSource source, long max, boolean repeat ) {
+        if( !cube.getDimension().equals( source.getDimension() ) ) {
+            throw new IllegalArgumentException( "The source has another dimension." );
+        }
+        long shown = 0;
+        long start = System.nanoTime();
+        while( shown < max ) {
+            if( !source.next( frame ) ) {
+                if( !repeat || !source.canRewind() ) {
+                    break;
+                }
+                source.rewind();
+                if( !source.next( frame ) ) {
+                    break;
+                }
+            }
+            cube.setState( frame );
+            shown++;
+        }
+        nanos += System.nanoTime() - start;
+        frames += shown;
+        return shown;
+    }
+
+}
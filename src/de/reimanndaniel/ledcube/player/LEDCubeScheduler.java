@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+/**
+ *  Turns the time between render frames into ticks of a fixed frame rate.
+ *  Each tick is one frame of the animation, so the speed of an animation
+ *  does not depend on the speed of the renderer.
+ *  If the renderer is too slow for the frame rate, the policy decides
+ *  what happens with the ticks that are due at once.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubePlayer#update(float)
+ */
+public class LEDCubeScheduler {
+
+    /**
+     *  Enum like value for showing every due tick.
+     *  At most the maximal ticks are shown per update, older ticks are
+     *  skipped and the animation falls behind the clock.
+     */
+    public static final int PolicyCatchUp = 1;
+    /**
+     *  Enum like value for showing only the last due tick.
+     *  Only one tick is advanced, the ticks in between are counted as
+     *  skipped. The player lets a seekable animation jump over them, so it
+     *  keeps up with the clock without rendering the dropped frames.
+     */
+    public static final int PolicyDrop = 2;
+
+    /**
+     *  The ticks per second.
+     */
+    private final float framerate;
+    /**
+     *  The seconds per tick.
+     */
+    private final double step;
+    /**
+     *  What to do with ticks that are due at once.
+     */
+    private final int policy;
+    /**
+     *  The maximal ticks per update for catching up.
+     */
+    private final int maxticks;
+    /**
+     *  The time not yet used for ticks.
+     */
+    private double accu;
+    /**
+     *  The number of all ticks.
+     */
+    private long ticks;
+    /**
+     *  The number of ticks that were not shown.
+     */
+    private long skipped;
+
+    /**
+     *  Creates a scheduler that catches up at most 4 ticks per update.
+     *
+     *  @param framerate the ticks per second
+     */
+    public LEDCubeScheduler( float framerate ) {
+        this( framerate, PolicyCatchUp, 4 );
+    }
+
+    /**
+     *  Creates a scheduler.
+     *
+     *  @param framerate the ticks per second
+     *  @param policy {@code PolicyCatchUp} or {@code PolicyDrop}
+     *  @param maxticks the maximal ticks per update for catching up
+     */
+    public LEDCubeScheduler( float framerate, int policy, int maxticks ) {
+        if( !( framerate > 0f ) ) {
+            throw new IllegalArgumentException( "The frame rate has to be > 0." );
+        }
+        if( policy != PolicyCatchUp && policy != PolicyDrop ) {
+            throw new IllegalArgumentException( "The policy is unknown." );
+        }
+        if( maxticks < 1 ) {
+            throw new IllegalArgumentException( "The maximal ticks have to be >= 1." );
+        }
+        this.framerate = framerate;
+        this.step = 1.0 / framerate;
+        this.policy = policy;
+        this.maxticks = maxticks;
+    }
+
+    /**
+     *  @return the ticks per second
+     */
+    public float getFrameRate() {
+        return framerate;
+    }
+
+    /**
+     *  @return the policy for ticks that are due at once
+     */
+    public int getPolicy() {
+        return policy;
+    }
+
+    /**
+     *  @return whether every due tick should be shown
+     */
+    public boolean showsEveryTick() {
+        return policy == PolicyCatchUp;
+    }
+
+    /**
+     *  @return the number of all ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     *  @return the number of ticks that were not shown
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     *  Adds the time since the last update.
+     *
+     *  @param tpf time difference to last update in seconds
+     *  @return the number of ticks to advance the animation, at most 1 for
+     *      {@code PolicyDrop}
+     */
+    public int advance( float tpf ) {
+        if( tpf > 0f ) {
+            accu += tpf;
+        }
+        if( accu < step ) {
+            return 0;
+        }
+        long due = (long) ( accu / step );
+        accu -= due * step;
+        if( policy == PolicyCatchUp && due > maxticks ) {
+            skipped += due - maxticks;
+            due = maxticks;
+        }
+        ticks += due;
+        if( policy == PolicyDrop ) {
+            skipped += due - 1;
+            return 1;
+        }
+        return (int) due;
+    }
+
+    /**
+     *  Drops the time not yet used for ticks.
+     */
+    public void reset() {
+        accu = 0;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+/**
+ *  A source of a known number of frames that can jump to any frame.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubePlayer#seek(int)
+ */
+public interface LEDCubeSeekableSource extends LEDCubeFrameSource {
+
+    /**
+     *  @return the number of frames
+     */
+    public int getFrameCount();
+
+    /**
+     *  @return the number of the frame the next call of {@code next()} renders
+     */
+    public int getPosition();
+
+    /**
+     *  Moves to a frame.
+     *  The frame is rendered by the next call of {@code next()}.
+     *
+     *  @param frame the number of the frame, 0 - frame count
+     */
+    public void seek( int frame );
+
+}
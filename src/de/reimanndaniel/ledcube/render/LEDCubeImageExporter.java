@@ -0,0 +1,281 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.render;
+
+import de.reimanndaniel.ledcube.player.LEDCubeFrameSource;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.imageio.ImageIO;
+
+/**
+ *  Exports the frames of a source as a sequence of images.
+ *  The source renders into one state on the calling thread, so sources
+ *  that change their previous frame work as when playing. Each frame is
+ *  copied and rendered and written on all cores. The images are named
+ *  {@code frame000000.png} and so on, counted from 0.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeRenderer
+ */
+public class LEDCubeImageExporter {
+
+    /**
+     *  Enum like value for PNG images.
+     */
+    public static final int FormatPNG = 1;
+    /**
+     *  Enum like value for raw images with 3 bytes RGB per pixel, row by row.
+     */
+    public static final int FormatRaw = 2;
+
+    /**
+     *  The renderer of the images.
+     */
+    protected final LEDCubeRenderer renderer;
+    /**
+     *  The directory to write the images into.
+     */
+    protected final File directory;
+    /**
+     *  The format of the images.
+     */
+    protected final int format;
+    /**
+     *  The number of threads to render on.
+     */
+    protected final int threads;
+
+    /**
+     *  Creates an exporter for PNG images that uses all cores.
+     *
+     *  @param renderer the renderer of the images
+     *  @param directory the directory to write the images into
+     */
+    public LEDCubeImageExporter( LEDCubeRenderer renderer, File directory ) {
+        this( renderer, directory, FormatPNG, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     *  Creates an exporter.
+     *
+     *  @param renderer the renderer of the images
+     *  @param directory the directory to write the images into
+     *  @param format {@code FormatPNG} or {@code FormatRaw}
+     *  @param threads the number of threads to render on
+     */
+    public LEDCubeImageExporter( LEDCubeRenderer renderer, File directory, int format, int threads ) {
+        if( format != FormatPNG && format != FormatRaw ) {
+            throw new IllegalArgumentException( "The format is unknown." );
+        }
+        if( threads < 1 ) {
+            throw new IllegalArgumentException( "There has to be at least one thread." );
+        }
+        this.renderer = renderer;
+        this.directory = directory;
+        this.format = format;
+        this.threads = threads;
+    }
+
+    /**
+     *  @return the renderer of the images
+     */
+    public LEDCubeRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     *  Returns the file of an image.
+     *
+     *  @param frame the number of the frame
+     *  @return the file of the image of the frame
+     */
+    public File getFile( long frame ) {
+        String suffix = format == FormatPNG ? "png" : "rgb";
+        return new File( directory, String.format( "frame%06d.%s", frame, suffix ) );
+    }
+
+    /**
+     *  Exports the frames of a source until it ends.
+     *  The source is used from its current position.
+     *
+     *  @param source the source of the frames
+     *  @param max the maximal number of frames to export
+     *  @return the number of exported frames
+     *  @throws IOException if an image could not be written
+     */
+    public long export( LEDCubeFrameSource source, long max ) throws IOException {
+        if( !renderer.getDimension().equals( source.getDimension() ) ) {
+            throw new IllegalArgumentException( "The source has another dimension." );
+        }
+        if( !directory.isDirectory() && !directory.mkdirs() ) {
+            throw new IOException( "The directory " + directory + " could not be created." );
+        }
+        // the free frames, so at most two frames per thread wait for rendering
+        final BlockingQueue<LEDCubeState> free = new ArrayBlockingQueue<LEDCubeState>( threads * 2 );
+        for( int ai = 0; ai < threads * 2; ai++ ) {
+            free.add( new LEDCubeState( source.getDimension() ) );
+        }
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        final ThreadLocal<Canvas> canvas = new ThreadLocal<Canvas>() {
+            @Override
+            protected Canvas initialValue() {
+                return new Canvas( renderer );
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool( threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread( Runnable r ) {
+                Thread thread = new Thread( r, "LEDCubeImageExporter-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        // the source changes its previous frame, the threads get copies
+        LEDCubeState working = new LEDCubeState( source.getDimension() );
+        long frames = 0;
+        try {
+            while( frames < max && failure.get() == null ) {
+                if( !source.next( working ) ) {
+                    break;
+                }
+                final LEDCubeState frame = free.take();
+                frame.copyFrom( working );
+                final long number = frames++;
+                pool.execute( new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if( failure.get() == null ) {
+                                write( canvas.get(), frame, number );
+                            }
+                        }
+                        catch( IOException e ) {
+                            failure.compareAndSet( null, e );
+                        }
+                        catch( RuntimeException e ) {
+                            failure.compareAndSet( null, new IOException( "The frame " + number + " could not be rendered.", e ) );
+                        }
+                        finally {
+                            free.add( frame );
+                        }
+                    }
+                } );
+            }
+            pool.shutdown();
+            while( !pool.awaitTermination( 1, TimeUnit.SECONDS ) ) {
+                // wait for the running frames
+            }
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "The export was interrupted." );
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        if( failure.get() != null ) {
+            throw failure.get();
+        }
+        return frames;
+    }
+
+    /**
+     *  Renders and writes one image.
+     *
+     *  @param canvas the image buffers of the thread
+     *  @param frame the frame to render
+     *  @param number the number of the frame
+     *  @throws IOException if the image could not be written
+     */
+    protected void write( Canvas canvas, LEDCubeState frame, long number ) throws IOException {
+        renderer.render( frame, canvas.image );
+        File file = getFile( number );
+        if( format == FormatPNG ) {
+            if( !ImageIO.write( canvas.image, "png", file ) ) {
+                throw new IOException( "There is no writer for PNG images." );
+            }
+            return;
+        }
+        int[] pixels = canvas.pixels;
+        byte[] bytes = canvas.bytes;
+        for( int ai = 0, bi = 0; ai < pixels.length; ai++ ) {
+            int rgb = pixels[ai];
+            bytes[bi++] = (byte) ( rgb >>> 16 );
+            bytes[bi++] = (byte) ( rgb >>> 8 );
+            bytes[bi++] = (byte) rgb;
+        }
+        OutputStream out = new FileOutputStream( file );
+        try {
+            out.write( bytes );
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     *  The image buffers of one thread.
+     */
+    protected static class Canvas {
+
+        /**
+         *  The rendered image.
+         */
+        final BufferedImage image;
+        /**
+         *  The pixels of the image.
+         */
+        final int[] pixels;
+        /**
+         *  The bytes of a raw image.
+         */
+        final byte[] bytes;
+
+        /**
+         *  Creates the buffers for a renderer.
+         *
+         *  @param renderer the renderer
+         */
+        Canvas( LEDCubeRenderer renderer ) {
+            this.image = renderer.createImage();
+            this.pixels = ( (DataBufferInt) image.getRaster().getDataBuffer() ).getData();
+            this.bytes = new byte[pixels.length * 3];
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.render;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+
+/**
+ *  The camera of the software renderer.
+ *  The camera circles the center of the cube and looks at it, like the
+ *  chase camera of the demonstrator.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeRenderer
+ */
+public class LEDCubeRenderCamera {
+
+    /**
+     *  The angle around the vertical axis in degrees.
+     */
+    private final float yaw;
+    /**
+     *  The angle above the horizontal plane in degrees.
+     */
+    private final float pitch;
+    /**
+     *  The distance to the center of the cube.
+     */
+    private final float distance;
+    /**
+     *  The vertical field of view in degrees.
+     */
+    private final float fov;
+
+    /**
+     *  Creates a camera with a field of view of 45 degrees.
+     *
+     *  @param yaw the angle around the vertical axis in degrees
+     *  @param pitch the angle above the horizontal plane in degrees
+     *  @param distance the distance to the center of the cube
+     */
+    public LEDCubeRenderCamera( float yaw, float pitch, float distance ) {
+        this( yaw, pitch, distance, 45f );
+    }
+
+    /**
+     *  Creates a camera.
+     *
+     *  @param yaw the angle around the vertical axis in degrees
+     *  @param pitch the angle above the horizontal plane in degrees, -89 - 89
+     *  @param distance the distance to the center of the cube
+     *  @param fov the vertical field of view in degrees, 1 - 179
+     */
+    public LEDCubeRenderCamera( float yaw, float pitch, float distance, float fov ) {
+        if( !( pitch >= -89f && pitch <= 89f ) ) {
+            throw new IllegalArgumentException( "The pitch has to be -89 - 89 degrees." );
+        }
+        if( !( distance > 0f ) ) {
+            throw new IllegalArgumentException( "The distance has to be > 0." );
+        }
+        if( !( fov >= 1f && fov <= 179f ) ) {
+            throw new IllegalArgumentException( "The field of view has to be 1 - 179 degrees." );
+        }
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.distance = distance;
+        this.fov = fov;
+    }
+
+    /**
+     *  Creates the standard camera for a cube.
+     *  Like the demonstrator it is twice the biggest side away, slightly
+     *  turned and above the cube.
+     *
+     *  @param dim the dimension of the cube
+     *  @param spacing the distance between LEDs
+     *  @return the camera
+     */
+    public static LEDCubeRenderCamera around( LEDCubeDimension dim, float spacing ) {
+        float max = Math.max( Math.max( dim.getWidth(), dim.getHeight() ), dim.getDepth() ) * spacing;
+        return new LEDCubeRenderCamera( 30f, 20f, max * 2f );
+    }
+
+    /**
+     *  @return the angle around the vertical axis in degrees
+     */
+    public float getYaw() {
+        return yaw;
+    }
+
+    /**
+     *  @return the angle above the horizontal plane in degrees
+     */
+    public float getPitch() {
+        return pitch;
+    }
+
+    /**
+     *  @return the distance to the center of the cube
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    /**
+     *  @return the vertical field of view in degrees
+     */
+    public float getFieldOfView() {
+        return fov;
+    }
+
+}
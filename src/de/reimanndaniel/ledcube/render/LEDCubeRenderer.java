@@ -0,0 +1,352 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.render;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ *  Renders the LED cube into images without a graphics card.
+ *  The LEDs are placed like in {@code LEDCubeViewer} and drawn as discs
+ *  from back to front with a simple additive glow. The projection is
+ *  calculated once, so one renderer can render frames on many threads.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeImageExporter
+ */
+public class LEDCubeRenderer {
+
+    /**
+     *  The color of LEDs that are switched off.
+     */
+    public static final int OFF_COLOR = 0x202020;
+
+    /**
+     *  The distance between LEDs, as in the viewer.
+     */
+    public static final float SPACING = 25f;
+    /**
+     *  The radius of a LED, as in the viewer.
+     */
+    public static final float RADIUS = 2f;
+
+    /**
+     *  The size of the rendered cube.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The width of the images.
+     */
+    protected final int width;
+    /**
+     *  The height of the images.
+     */
+    protected final int height;
+    /**
+     *  The camera.
+     */
+    protected final LEDCubeRenderCamera camera;
+    /**
+     *  The strength of the glow, 0 for none.
+     */
+    protected final float glow;
+    /**
+     *  The LED indices from back to front.
+     */
+    private final int[] order;
+    /**
+     *  The horizontal screen position of each LED.
+     */
+    private final float[] sx;
+    /**
+     *  The vertical screen position of each LED.
+     */
+    private final float[] sy;
+    /**
+     *  The screen radius of each LED, 0 if behind the camera.
+     */
+    private final float[] sr;
+
+    /**
+     *  Creates a renderer with the standard camera and glow.
+     *
+     *  @param dim the size of the cube
+     *  @param width the width of the images
+     *  @param height the height of the images
+     */
+    public LEDCubeRenderer( LEDCubeDimension dim, int width, int height ) {
+        this( dim, width, height, LEDCubeRenderCamera.around( dim, SPACING ), 0.6f );
+    }
+
+    /**
+     *  Creates a renderer.
+     *
+     *  @param dim the size of the cube
+     *  @param width the width of the images
+     *  @param height the height of the images
+     *  @param camera the camera
+     *  @param glow the strength of the glow, 0 for none
+     */
+    public LEDCubeRenderer( LEDCubeDimension dim, int width, int height, LEDCubeRenderCamera camera, float glow ) {
+        if( width < 1 || height < 1 ) {
+            throw new IllegalArgumentException( "The image has to be at least 1x1." );
+        }
+        if( !( glow >= 0f ) ) {
+            throw new IllegalArgumentException( "The glow has to be >= 0." );
+        }
+        this.dim = dim;
+        this.width = width;
+        this.height = height;
+        this.camera = camera;
+        this.glow = glow;
+        int size = dim.getVolume();
+        this.order = new int[size];
+        this.sx = new float[size];
+        this.sy = new float[size];
+        this.sr = new float[size];
+        project();
+    }
+
+    /**
+     *  @return the size of the rendered cube
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the width of the images
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     *  @return the height of the images
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     *  @return the camera
+     */
+    public LEDCubeRenderCamera getCamera() {
+        return camera;
+    }
+
+    /**
+     *  Calculates the screen positions of the LEDs and their order.
+     */
+    private void project() {
+        double yaw = Math.toRadians( camera.getYaw() );
+        double pitch = Math.toRadians( camera.getPitch() );
+        double dist = camera.getDistance();
+        // camera position on a sphere around the center
+        double cx = dist * Math.cos( pitch ) * Math.sin( yaw );
+        double cy = dist * Math.sin( pitch );
+        double cz = dist * Math.cos( pitch ) * Math.cos( yaw );
+        // forward, right and up of the camera
+        double fx = -cx / dist;
+        double fy = -cy / dist;
+        double fz = -cz / dist;
+        double rx = -fz;
+        double rz = fx;
+        double rl = Math.sqrt( rx * rx + rz * rz );
+        rx /= rl;
+        rz /= rl;
+        double ux = -rz * fy;
+        double uy = rz * fx - rx * fz;
+        double uz = rx * fy;
+        double focal = height / 2.0 / Math.tan( Math.toRadians( camera.getFieldOfView() ) / 2.0 );
+        // to make the cube central, as in the viewer
+        double ox = ( dim.getWidth() - 1 ) * SPACING / 2.0;
+        double oy = ( dim.getHeight() - 1 ) * SPACING / 2.0;
+        double oz = ( dim.getDepth() - 1 ) * SPACING / 2.0;
+        final double[] depth = new double[order.length];
+        Integer[] sorted = new Integer[order.length];
+        for( int ai = 0; ai < order.length; ai++ ) {
+            double vx = dim.getX( ai ) * SPACING - ox - cx;
+            double vy = dim.getY( ai ) * SPACING - oy - cy;
+            double vz = dim.getZ( ai ) * SPACING - oz - cz;
+            double z = vx * fx + vy * fy + vz * fz;
+            depth[ai] = z;
+            sorted[ai] = ai;
+            if( z <= RADIUS ) {
+                continue;
+            }
+            sx[ai] = (float) ( width / 2.0 + ( vx * rx + vz * rz ) * focal / z );
+            sy[ai] = (float) ( height / 2.0 - ( vx * ux + vy * uy + vz * uz ) * focal / z );
+            sr[ai] = (float) ( RADIUS * focal / z );
+        }
+        Arrays.sort( sorted, new Comparator<Integer>() {
+            @Override
+            public int compare( Integer a, Integer b ) {
+                return Double.compare( depth[b], depth[a] );
+            }
+        } );
+        for( int ai = 0; ai < order.length; ai++ ) {
+            order[ai] = sorted[ai];
+        }
+    }
+
+    /**
+     *  Creates an image for the renderer.
+     *
+     *  @return an image in the size of the renderer
+     */
+    public BufferedImage createImage() {
+        return new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB );
+    }
+
+    /**
+     *  Renders a state into an image.
+     *
+     *  @param state the state to render
+     *  @param image an image from {@code createImage()}
+     */
+    public void render( LEDCubeState state, BufferedImage image ) {
+        if( image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB ) {
+            throw new IllegalArgumentException( "The image does not fit the renderer." );
+        }
+        render( state, ( (DataBufferInt) image.getRaster().getDataBuffer() ).getData() );
+    }
+
+    /**
+     *  Renders a state into pixels.
+     *
+     *  @param state the state to render
+     *  @param pixels the pixels as {@code 0xRRGGBB}, row by row
+     */
+    public void render( LEDCubeState state, int[] pixels ) {
+        if( !dim.equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        if( pixels.length < width * height ) {
+            throw new IllegalArgumentException( "The pixels do not fit the renderer." );
+        }
+        int[] leds = state.getBuffer();
+        Arrays.fill( pixels, 0, width * height, 0 );
+        for( int ai = 0; ai < order.length; ai++ ) {
+            int index = order[ai];
+            if( sr[index] > 0f ) {
+                int rgb = leds[index] >>> 8;
+                disc( pixels, sx[index], sy[index], sr[index], rgb == 0 ? OFF_COLOR : rgb );
+            }
+        }
+        if( glow > 0f ) {
+            for( int ai = 0; ai < order.length; ai++ ) {
+                int index = order[ai];
+                int rgb = leds[index] >>> 8;
+                if( sr[index] > 0f && rgb != 0 ) {
+                    halo( pixels, sx[index], sy[index], sr[index] * 4f, rgb );
+                }
+            }
+        }
+    }
+
+    /**
+     *  Draws an anti aliased disc.
+     *
+     *  @param pixels the pixels
+     *  @param x the horizontal center
+     *  @param y the vertical center
+     *  @param r the radius
+     *  @param rgb the color as {@code 0xRRGGBB}
+     */
+    private void disc( int[] pixels, float x, float y, float r, int rgb ) {
+        int x0 = Math.max( 0, (int) Math.floor( x - r - 1f ) );
+        int x1 = Math.min( width - 1, (int) Math.ceil( x + r + 1f ) );
+        int y0 = Math.max( 0, (int) Math.floor( y - r - 1f ) );
+        int y1 = Math.min( height - 1, (int) Math.ceil( y + r + 1f ) );
+        for( int py = y0; py <= y1; py++ ) {
+            float dy = py + 0.5f - y;
+            for( int px = x0; px <= x1; px++ ) {
+                float dx = px + 0.5f - x;
+                // the coverage of the pixel by the edge of the disc
+                float cover = r + 0.5f - (float) Math.sqrt( dx * dx + dy * dy );
+                if( cover <= 0f ) {
+                    continue;
+                }
+                int at = py * width + px;
+                pixels[at] = cover >= 1f ? rgb : mix( pixels[at], rgb, cover );
+            }
+        }
+    }
+
+    /**
+     *  Adds a glow around a LED.
+     *
+     *  @param pixels the pixels
+     *  @param x the horizontal center
+     *  @param y the vertical center
+     *  @param r the radius of the glow
+     *  @param rgb the color as {@code 0xRRGGBB}
+     */
+    private void halo( int[] pixels, float x, float y, float r, int rgb ) {
+        int x0 = Math.max( 0, (int) Math.floor( x - r ) );
+        int x1 = Math.min( width - 1, (int) Math.ceil( x + r ) );
+        int y0 = Math.max( 0, (int) Math.floor( y - r ) );
+        int y1 = Math.min( height - 1, (int) Math.ceil( y + r ) );
+        float rr = r * r;
+        int red = ( rgb >>> 16 ) & 0xFF;
+        int green = ( rgb >>> 8 ) & 0xFF;
+        int blue = rgb & 0xFF;
+        for( int py = y0; py <= y1; py++ ) {
+            float dy = py + 0.5f - y;
+            for( int px = x0; px <= x1; px++ ) {
+                float dx = px + 0.5f - x;
+                float fall = 1f - ( dx * dx + dy * dy ) / rr;
+                if( fall <= 0f ) {
+                    continue;
+                }
+                float f = fall * fall * glow;
+                int at = py * width + px;
+                int old = pixels[at];
+                int nr = Math.min( 255, ( ( old >>> 16 ) & 0xFF ) + (int) ( red * f ) );
+                int ng = Math.min( 255, ( ( old >>> 8 ) & 0xFF ) + (int) ( green * f ) );
+                int nb = Math.min( 255, ( old & 0xFF ) + (int) ( blue * f ) );
+                pixels[at] = ( nr << 16 ) | ( ng << 8 ) | nb;
+            }
+        }
+    }
+
+    /**
+     *  Mixes two colors.
+     *
+     *  @param a the first color as {@code 0xRRGGBB}
+     *  @param b the second color as {@code 0xRRGGBB}
+     *  @param f the part of the second color, 0 - 1
+     *  @return the mixed color
+     */
+    private static int mix( int a, int b, float f ) {
+        int red = (int) ( ( ( a >>> 16 ) & 0xFF ) * ( 1f - f ) + ( ( b >>> 16 ) & 0xFF ) * f );
+        int green = (int) ( ( ( a >>> 8 ) & 0xFF ) * ( 1f - f ) + ( ( b >>> 8 ) & 0xFF ) * f );
+        int blue = (int) ( ( a & 0xFF ) * ( 1f - f ) + ( b & 0xFF ) * f );
+        return ( red << 16 ) | ( green << 8 ) | blue;
+    }
+
+}
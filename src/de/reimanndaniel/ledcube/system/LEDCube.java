@@ -19,8 +19,13 @@
  */
 package de.reimanndaniel.ledcube.system;
 
-import com.jme3.math.ColorRGBA;
+import de.reimanndaniel.ledcube.metrics.LEDCubeFrameEvent;
+import de.reimanndaniel.ledcube.metrics.LEDCubeHistogram;
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.Observable;
+import java.util.Observer;
 
 /**
  *  The LED cube.
@@ -31,6 +36,15 @@ import java.util.Observable;
  */
 public class LEDCube extends Observable {
 
+    /**
+     *  Counts the notifications of all cubes.
+     */
+    private static final LongAdder NOTIFICATIONS = LEDCubeMetrics.getDefault().counter( "cube.notifications" );
+    /**
+     *  The number of LEDs changed per notification of all cubes.
+     */
+    private static final LEDCubeHistogram CHANGED = LEDCubeMetrics.getDefault().histogram( "cube.changed.leds" );
+
     /**
      *  The size of the cube.
      */
@@ -39,26 +53,44 @@ public class LEDCube extends Observable {
      *  The LEDs of the cube.
      */
     protected LEDCubeState leds;
+    /**
+     *  The LEDs changed during the current batch.
+     */
+    protected final LEDCubeChange change;
+    /**
+     *  The depth of nested batches.
+     */
+    private int batch;
+    /**
+     *  The observers, copied on change so notifying does not allocate.
+     */
+    private Observer[] observers;
+    /**
+     *  The number of the current frame.
+     */
+    private long frame;
 
     /**
      *  Constructor with the dimension of the cube.
-     *  Uses standard color {@code ColorRGBA.Black}.
+     *  Uses standard color {@code LEDCubeColor.BLACK}.
      *
      *  @param dim the dimension of the cube
      */
     public LEDCube( LEDCubeDimension dim ) {
-        this( dim, ColorRGBA.Black );
+        this( dim, LEDCubeColor.BLACK );
     }
 
     /**
      *  Constructor with the dimension of the cube and a special initial color.
      *
      *  @param dim the dimension of the cube
-     *  @param initcolor the initial color
+     *  @param initcolor the packed initial color
      */
-    public LEDCube( LEDCubeDimension dim, ColorRGBA initcolor ) {
+    public LEDCube( LEDCubeDimension dim, int initcolor ) {
         this.dim = dim;
         this.leds = new LEDCubeState( dim );
+        this.change = new LEDCubeChange( dim );
+        this.observers = new Observer[0];
         fill( initcolor );
     }
 
@@ -71,13 +103,140 @@ public class LEDCube extends Observable {
         return dim;
     }
 
+    /**
+     *  Returns the number of the current frame.
+     *  Each notification of the observers starts a new frame, so the number
+     *  identifies a change in all stages of the frame.
+     *
+     *  @return the number of the current frame
+     *  @see LEDCubeFrameEvent
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    @Override
+    public synchronized void addObserver( Observer o ) {
+        if( o == null ) {
+            throw new NullPointerException();
+        }
+        for( int ai = 0; ai < observers.length; ai++ ) {
+            if( observers[ai] == o ) {
+                return;
+            }
+        }
+        Observer[] next = Arrays.copyOf( observers, observers.length + 1 );
+        next[observers.length] = o;
+        observers = next;
+    }
+
+    @Override
+    public synchronized void deleteObserver( Observer o ) {
+        for( int ai = 0; ai < observers.length; ai++ ) {
+            if( observers[ai] == o ) {
+                Observer[] next = new Observer[observers.length - 1];
+                System.arraycopy( observers, 0, next, 0, ai );
+                System.arraycopy( observers, ai + 1, next, ai, next.length - ai );
+                observers = next;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteObservers() {
+        observers = new Observer[0];
+    }
+
+    @Override
+    public synchronized int countObservers() {
+        return observers.length;
+    }
+
+    /**
+     *  Notifies the observers if the cube has changed.
+     *  Like {@code Observable} the last added observer is notified first,
+     *  but without copying the observers for each notification.
+     *
+     *  @param arg the change to the cube
+     */
+    @Override
+    public void notifyObservers( Object arg ) {
+        Observer[] local;
+        long number;
+        synchronized( this ) {
+            if( !hasChanged() ) {
+                return;
+            }
+            local = observers;
+            clearChanged();
+            number = ++frame;
+        }
+        int size = 1;
+        if( arg instanceof LEDCubeChange ) {
+            size = ( (LEDCubeChange) arg ).size();
+        }
+        else if( arg == null ) {
+            size = dim.getVolume();
+        }
+        NOTIFICATIONS.increment();
+        CHANGED.record( size );
+        LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageCommit );
+        for( int ai = local.length - 1; ai >= 0; ai-- ) {
+            local[ai].update( this, arg );
+        }
+        LEDCubeFrameEvent.end( event, number, size );
+    }
+
+    /**
+     *  Starts a batch of changes.
+     *  Until the matching {@code commit()} the observers are not notified
+     *  about single changes but get one {@code LEDCubeChange} at the end.
+     *  Batches can be nested, only the outermost commit notifies.
+     *
+     *  @see #commit()
+     */
+    public void beginBatch() {
+        batch++;
+    }
+
+    /**
+     *  Ends a batch of changes and notifies the observers about all changed
+     *  LEDs at once.
+     *  Should be called in a {@code finally} block after {@code beginBatch()}.
+     *
+     *  @see #beginBatch()
+     */
+    public void commit() {
+        if( batch == 0 ) {
+            throw new IllegalStateException( "There is no batch to commit." );
+        }
+        batch--;
+        if( batch == 0 && !change.isEmpty() ) {
+            setChanged();
+            try {
+                notifyObservers( change );
+            }
+            finally {
+                change.clear();
+            }
+        }
+    }
+
+    /**
+     *  @return whether a batch of changes is running
+     */
+    public boolean isBatching() {
+        return batch > 0;
+    }
+
     /**
      *  Switches on the LED at the point.
      *
      *  @param led position of the LED
      */
     public void switchOn( LEDCubePoint led ) {
-        setColor( led, ColorRGBA.White );
+        setColor( led, LEDCubeColor.WHITE );
     }
 
     /**
@@ -86,7 +245,7 @@ public class LEDCube extends Observable {
      *  @param led position of the LED
      */
     public void switchOff( LEDCubePoint led ) {
-        setColor( led, ColorRGBA.Black );
+        setColor( led, LEDCubeColor.BLACK );
     }
 
     /**
@@ -112,43 +271,146 @@ public class LEDCube extends Observable {
      *  Sets the color of a LED in the cube at a certain point.
      *
      *  @param led position of the LED
-     *  @param color color of the LED
+     *  @param rgba packed color of the LED
+     */
+    public void setColor( LEDCubePoint led, int rgba ) {
+        setColor( led.getX(), led.getY(), led.getZ(), rgba );
+    }
+
+    /**
+     *  Sets the packed color of a LED in the cube.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @param rgba the packed color of the LED
      */
-    public void setColor( LEDCubePoint led, ColorRGBA color ) {
-        if( !dim.in( led ) ) {
+    public void setColor( int x, int y, int z, int rgba ) {
+        if( !dim.in( x, y, z ) ) {
             throw new IllegalArgumentException( "The LED is out of range." );
         }
-        leds.set( led.getX(), led.getY(), led.getZ(), color );
+        setColor( dim.index( x, y, z ), rgba );
+    }
+
+    /**
+     *  Sets the packed color of a LED in the cube.
+     *  Outside of a batch the observers get a {@code LEDCubeChange} of the
+     *  single LED, which is reused for every change.
+     *
+     *  @param index the linear index of the LED
+     *  @param rgba the packed color of the LED
+     *  @see LEDCubeDimension#index(int, int, int)
+     */
+    public void setColor( int index, int rgba ) {
+        if( index < 0 || index >= dim.getVolume() ) {
+            throw new IllegalArgumentException( "The LED is out of range." );
+        }
+        leds.getBuffer()[index] = rgba;
+        change.mark( index );
+        if( batch > 0 ) {
+            return;
+        }
         setChanged();
-        notifyObservers( getLight( led ) );
+        try {
+            notifyObservers( change );
+        }
+        finally {
+            change.clear();
+        }
     }
 
     /**
      *  Gets the color of a LED in the cube at a certain point.
      *
      *  @param led position of the LED
-     *  @return color color of the LED
+     *  @return packed color of the LED
+     */
+    public int getColor( LEDCubePoint led ) {
+        return getRGBA( led.getX(), led.getY(), led.getZ() );
+    }
+
+    /**
+     *  Gets the packed color of a LED in the cube.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return the packed color of the LED
      */
-    public ColorRGBA getColor( LEDCubePoint led ) {
-        if( !dim.in( led ) ) {
+    public int getRGBA( int x, int y, int z ) {
+        if( !dim.in( x, y, z ) ) {
             throw new IllegalArgumentException( "The LED is out of range." );
         }
-        return leds.get( led.getX(), led.getY(), led.getZ() );
+        return leds.getBuffer()[dim.index( x, y, z )];
     }
 
     /**
-     *  Fills the whole LED cube with a color.
+     *  Gets the packed color of a LED in the cube.
      *
-     *  @param color the color to fill the LED cube with
+     *  @param index the linear index of the LED
+     *  @return the packed color of the LED
      */
-    public final void fill( ColorRGBA color ) {
-        for( int ax = 0; ax < dim.getWidth(); ax++ ) {
-            for( int ay = 0; ay < dim.getHeight(); ay++ ) {
-                for( int az = 0; az < dim.getDepth(); az++ ) {
-                    leds.set( ax, ay, az, color );
+    public int getRGBA( int index ) {
+        if( index < 0 || index >= dim.getVolume() ) {
+            throw new IllegalArgumentException( "The LED is out of range." );
+        }
+        return leds.getBuffer()[index];
+    }
+
+    /**
+     *  Copies the current colors of the cube into a state.
+     *
+     *  @param target the state to copy into
+     */
+    public void copyState( LEDCubeState target ) {
+        target.copyFrom( leds );
+    }
+
+    /**
+     *  Shows a state with the cube.
+     *  Only the LEDs that differ from the current state are changed and
+     *  the observers get them as one {@code LEDCubeChange}.
+     *
+     *  @param state the state to show
+     */
+    public void setState( LEDCubeState state ) {
+        if( !dim.equals( state.getDimension() ) ) {
+            throw new IllegalArgumentException( "The state has another dimension." );
+        }
+        int[] current = leds.getBuffer();
+        int[] next = state.getBuffer();
+        int size = current.length;
+        beginBatch();
+        try {
+            int ai = 0;
+            while( ai < size ) {
+                // Arrays.mismatch compares whole blocks of words at once
+                int diff = Arrays.mismatch( current, ai, size, next, ai, size );
+                if( diff < 0 ) {
+                    break;
                 }
+                ai += diff;
+                current[ai] = next[ai];
+                change.mark( ai );
+                ai++;
             }
         }
+        finally {
+            commit();
+        }
+    }
+
+    /**
+     *  Fills the whole LED cube with a color.
+     *
+     *  @param rgba the packed color to fill the LED cube with
+     */
+    public final void fill( int rgba ) {
+        leds.fill( rgba );
+        if( batch > 0 ) {
+            change.markAll();
+            return;
+        }
         setChanged();
         notifyObservers();
     }
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.system;
+
+/**
+ *  A set of changed LEDs collected during a batch of the cube.
+ *  The LEDs are addressed by their index in the {@code LEDCubeState}.
+ *  The cube reuses the change for every batch, so observers must not keep
+ *  a reference to it after the notification.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCube#beginBatch()
+ */
+public class LEDCubeChange {
+
+    /**
+     *  The dimension of the changed cube.
+     */
+    private final LEDCubeDimension dim;
+    /**
+     *  One bit for each LED of the cube.
+     */
+    private final long[] dirty;
+    /**
+     *  The number of changed LEDs.
+     */
+    private int count;
+
+    /**
+     *  Creates an empty change for a dimension.
+     *
+     *  @param dim the dimension of the cube
+     */
+    public LEDCubeChange( LEDCubeDimension dim ) {
+        this.dim = dim;
+        int size = dim.getWidth() * dim.getHeight() * dim.getDepth();
+        this.dirty = new long[( size + 63 ) >>> 6];
+    }
+
+    /**
+     *  @return the dimension of the changed cube
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the number of changed LEDs
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     *  @return whether no LED changed
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     *  Tests if a LED changed.
+     *
+     *  @param index the index of the LED
+     *  @return whether the LED changed
+     */
+    public boolean isChanged( int index ) {
+        return ( dirty[index >>> 6] & ( 1L << index ) ) != 0;
+    }
+
+    /**
+     *  Returns the next changed LED starting at an index.
+     *  Iterate with {@code for( int i = c.nextChanged( 0 ); i >= 0; i = c.nextChanged( i + 1 ) )}.
+     *
+     *  @param from the first index to test
+     *  @return the index of the next changed LED or -1 if there is none
+     */
+    public int nextChanged( int from ) {
+        int word = from >>> 6;
+        if( word >= dirty.length ) {
+            return -1;
+        }
+        long bits = dirty[word] & ( -1L << from );
+        while( true ) {
+            if( bits != 0 ) {
+                return ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+            }
+            if( ++word == dirty.length ) {
+                return -1;
+            }
+            bits = dirty[word];
+        }
+    }
+
+    /**
+     *  Marks a LED as changed.
+     *
+     *  @param index the index of the LED
+     */
+    void mark( int index ) {
+        long bit = 1L << index;
+        if( ( dirty[index >>> 6] & bit ) == 0 ) {
+            dirty[index >>> 6] |= bit;
+            count++;
+        }
+    }
+
+    /**
+     *  Marks all LEDs as changed.
+     */
+    void markAll() {
+        int size = dim.getVolume();
+        for( int ai = 0; ai < dirty.length; ai++ ) {
+            dirty[ai] = -1L;
+        }
+        if( ( size & 63 ) != 0 ) {
+            dirty[dirty.length - 1] = ( 1L << size ) - 1;
+        }
+        count = size;
+    }
+
+    /**
+     *  Removes all LEDs from the change.
+     */
+    void clear() {
+        if( count != 0 ) {
+            for( int ai = 0; ai < dirty.length; ai++ ) {
+                dirty[ai] = 0L;
+            }
+            count = 0;
+        }
+    }
+
+}
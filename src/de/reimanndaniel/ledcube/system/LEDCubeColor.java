@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.system;
+
+/**
+ *  Helpers for colors packed into a single int.
+ *  The channels are stored as RGBA8, red in the highest byte and alpha in
+ *  the lowest byte.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public final class LEDCubeColor {
+
+    /**
+     *  Packed black.
+     */
+    public static final int BLACK = 0x000000FF;
+    /**
+     *  Packed white.
+     */
+    public static final int WHITE = 0xFFFFFFFF;
+    /**
+     *  Packed red.
+     */
+    public static final int RED = 0xFF0000FF;
+    /**
+     *  Packed green.
+     */
+    public static final int GREEN = 0x00FF00FF;
+    /**
+     *  Packed blue.
+     */
+    public static final int BLUE = 0x0000FFFF;
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeColor() {
+    }
+
+    /**
+     *  Packs the channels of a color.
+     *  Each channel is clamped to 0 - 255.
+     *
+     *  @param r the red channel
+     *  @param g the green channel
+     *  @param b the blue channel
+     *  @param a the alpha channel
+     *  @return the packed color
+     */
+    public static int rgba( int r, int g, int b, int a ) {
+        return clamp( r ) << 24 | clamp( g ) << 16 | clamp( b ) << 8 | clamp( a );
+    }
+
+    /**
+     *  @param rgba the packed color
+     *  @return the red channel of the color
+     */
+    public static int red( int rgba ) {
+        return rgba >>> 24;
+    }
+
+    /**
+     *  @param rgba the packed color
+     *  @return the green channel of the color
+     */
+    public static int green( int rgba ) {
+        return ( rgba >>> 16 ) & 0xFF;
+    }
+
+    /**
+     *  @param rgba the packed color
+     *  @return the blue channel of the color
+     */
+    public static int blue( int rgba ) {
+        return ( rgba >>> 8 ) & 0xFF;
+    }
+
+    /**
+     *  @param rgba the packed color
+     *  @return the alpha channel of the color
+     */
+    public static int alpha( int rgba ) {
+        return rgba & 0xFF;
+    }
+
+    /**
+     *  Packs the channels of a color given as 0 - 1.
+     *  Each channel is clamped to 0 - 1.
+     *
+     *  @param r the red channel
+     *  @param g the green channel
+     *  @param b the blue channel
+     *  @param a the alpha channel
+     *  @return the packed color
+     */
+    public static int rgba( float r, float g, float b, float a ) {
+        return rgba(
+            Math.round( r * 255f ),
+            Math.round( g * 255f ),
+            Math.round( b * 255f ),
+            Math.round( a * 255f )
+        );
+    }
+
+    /**
+     *  Packs an opaque color given as hue, saturation and value.
+     *
+     *  @param h the hue, 0 - 1 is one turn around the color wheel
+     *  @param s the saturation, 0 - 1
+     *  @param v the value, 0 - 1
+     *  @return the packed color
+     */
+    public static int hsv( float h, float s, float v ) {
+        float hue = ( h - (float) Math.floor( h ) ) * 6f;
+        int sector = Math.min( 5, (int) hue );
+        float f = hue - sector;
+        float p = v * ( 1f - s );
+        float q = v * ( 1f - s * f );
+        float t = v * ( 1f - s * ( 1f - f ) );
+        switch( sector ) {
+            case 0:
+                return rgba( v, t, p, 1f );
+            case 1:
+                return rgba( q, v, p, 1f );
+            case 2:
+                return rgba( p, v, t, 1f );
+            case 3:
+                return rgba( p, q, v, 1f );
+            case 4:
+                return rgba( t, p, v, 1f );
+            default:
+                return rgba( v, p, q, 1f );
+        }
+    }
+
+    /**
+     *  Mixes two packed colors channel by channel.
+     *
+     *  @param from the color at 0
+     *  @param to the color at 1
+     *  @param f the part of the second color, clamped to 0 - 1
+     *  @return the packed mixed color
+     */
+    public static int mix( int from, int to, float f ) {
+        float g = Math.max( 0f, Math.min( 1f, f ) );
+        return rgba(
+            Math.round( red( from ) + ( red( to ) - red( from ) ) * g ),
+            Math.round( green( from ) + ( green( to ) - green( from ) ) * g ),
+            Math.round( blue( from ) + ( blue( to ) - blue( from ) ) * g ),
+            Math.round( alpha( from ) + ( alpha( to ) - alpha( from ) ) * g )
+        );
+    }
+
+    /**
+     *  Clamps a channel to 0 - 255.
+     *
+     *  @param channel the channel value
+     *  @return the clamped value
+     */
+    private static int clamp( int channel ) {
+        if( channel < 0 ) {
+            return 0;
+        }
+        if( channel > 255 ) {
+            return 255;
+        }
+        return channel;
+    }
+
+}
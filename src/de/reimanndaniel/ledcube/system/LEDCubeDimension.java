@@ -53,6 +53,14 @@ public class LEDCubeDimension {
      *  The depth of the dimension.
      */
     private final int depth;
+    /**
+     *  The number of LEDs in a layer of the x axis.
+     */
+    private final int layer;
+    /**
+     *  The number of LEDs of the dimension.
+     */
+    private final int volume;
 
     /**
      *  Creates a 3 dimensional real cubic size of a LED cube.
@@ -75,6 +83,8 @@ public class LEDCubeDimension {
             this.width = width;
             this.height = height;
             this.depth = depth;
+            this.layer = height * depth;
+            this.volume = width * layer;
         }
         else {
             throw new IllegalArgumentException( "Each value has to be >= 1." );
@@ -102,6 +112,107 @@ public class LEDCubeDimension {
         return depth;
     }
 
+    /**
+     *  @return the number of LEDs of the dimension
+     */
+    public int getVolume() {
+        return volume;
+    }
+
+    /**
+     *  Returns the number of LEDs along an axis.
+     *
+     *  @param axis {@code AxisX}, {@code AxisY} or {@code AxisZ}
+     *  @return the number of LEDs along the axis
+     */
+    public int getSize( int axis ) {
+        switch( axis ) {
+            case AxisX:
+                return width;
+            case AxisY:
+                return height;
+            case AxisZ:
+                return depth;
+            default:
+                throw new IllegalArgumentException( "The axis is unknown." );
+        }
+    }
+
+    /**
+     *  Returns the distance of neighbouring LEDs along an axis in the flat
+     *  index, which is also the number of LEDs of a layer in one block.
+     *
+     *  @param axis {@code AxisX}, {@code AxisY} or {@code AxisZ}
+     *  @return the distance of neighbouring LEDs in the index
+     *  @see #index(int, int, int)
+     */
+    public int getStride( int axis ) {
+        switch( axis ) {
+            case AxisX:
+                return layer;
+            case AxisY:
+                return depth;
+            case AxisZ:
+                return 1;
+            default:
+                throw new IllegalArgumentException( "The axis is unknown." );
+        }
+    }
+
+    /**
+     *  Tests if the coordinates are in the dimension.
+     *
+     *  @param x the x coordinate
+     *  @param y the y coordinate
+     *  @param z the z coordinate
+     *  @return whether the coordinates are in the dimension
+     */
+    public boolean in( int x, int y, int z ) {
+        return
+            x >= 0 && x < width &&
+            y >= 0 && y < height &&
+            z >= 0 && z < depth;
+    }
+
+    /**
+     *  Returns the linear index of a LED.
+     *  The index is {@code ( x * height + y ) * depth + z}, so neighbours on
+     *  the z axis are neighbours in the index. The coordinates are not
+     *  tested, use {@code in()} first.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return the index of the LED
+     */
+    public int index( int x, int y, int z ) {
+        return x * layer + y * depth + z;
+    }
+
+    /**
+     *  @param index the linear index of a LED
+     *  @return the x coordinate of the LED
+     */
+    public int getX( int index ) {
+        return index / layer;
+    }
+
+    /**
+     *  @param index the linear index of a LED
+     *  @return the y coordinate of the LED
+     */
+    public int getY( int index ) {
+        return index % layer / depth;
+    }
+
+    /**
+     *  @param index the linear index of a LED
+     *  @return the z coordinate of the LED
+     */
+    public int getZ( int index ) {
+        return index % depth;
+    }
+
     /**
      *  Tests if the point is in the dimension.
      *
@@ -109,17 +220,7 @@ public class LEDCubeDimension {
      *  @return whether the point is in the dimension
      */
     public boolean in( LEDCubePoint point ) {
-        if(
-            point.getX() < getWidth() &&
-            point.getX() >= 0 &&
-            point.getY() < getHeight() &&
-            point.getY() >= 0 &&
-            point.getZ() < getDepth() &&
-            point.getZ() >= 0
-        ) {
-            return true;
-        }
-        return false;
+        return in( point.getX(), point.getY(), point.getZ() );
     }
 
     @Override
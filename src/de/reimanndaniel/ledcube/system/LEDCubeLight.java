@@ -19,8 +19,6 @@
  */
 package de.reimanndaniel.ledcube.system;
 
-import com.jme3.math.ColorRGBA;
-
 /**
  *  A LED in the cube.
  *
@@ -33,18 +31,18 @@ public class LEDCubeLight extends LEDCubePoint {
     /**
      *  The color of the light.
      */
-    private ColorRGBA color;
+    private int color;
 
     /**
      *  Creates a LED for a cube.
-     *  Uses standard color {@code ColorRGBA.Black}.
+     *  Uses standard color {@code LEDCubeColor.BLACK}.
      *
      *  @param x the x coordinate of the light
      *  @param y the y coordinate of the light
      *  @param z the z coordinate of the light
      */
     public LEDCubeLight( int x, int y, int z ) {
-        this( x, y, z, ColorRGBA.Black );
+        this( x, y, z, LEDCubeColor.BLACK );
     }
 
     /**
@@ -53,30 +51,30 @@ public class LEDCubeLight extends LEDCubePoint {
      *  @param x the x coordinate of the light
      *  @param y the y coordinate of the light
      *  @param z the z coordinate of the light
-     *  @param color the color of the light
+     *  @param color the packed color of the light
      */
-    public LEDCubeLight( int x, int y, int z, ColorRGBA color ) {
+    public LEDCubeLight( int x, int y, int z, int color ) {
         super( x, y, z );
         this.color = color;
     }
 
     /**
      *  Creates a LED for a cube.
-     *  Uses standard color {@code ColorRGBA.Black}.
+     *  Uses standard color {@code LEDCubeColor.BLACK}.
      *
      *  @param led the point of the light
      */
     public LEDCubeLight( LEDCubePoint led ) {
-        this( led, ColorRGBA.Black );
+        this( led, LEDCubeColor.BLACK );
     }
 
     /**
      *  Creates a LED for a cube with a given color.
      *
      *  @param led the point of the light
-     *  @param color the color of the light
+     *  @param color the packed color of the light
      */
-    public LEDCubeLight( LEDCubePoint led, ColorRGBA color ) {
+    public LEDCubeLight( LEDCubePoint led, int color ) {
         this( led.getX(), led.getY(), led.getZ(), color );
     }
 
@@ -91,18 +89,18 @@ public class LEDCubeLight extends LEDCubePoint {
 
     /**
      *  Turns the light on.
-     *  Uses standard color {@code ColorRGBA.White}
+     *  Uses standard color {@code LEDCubeColor.WHITE}
      */
     public void on() {
-        this.color = ColorRGBA.White;
+        this.color = LEDCubeColor.WHITE;
     }
 
     /**
      *  Turns the light on with a special color.
      *
-     *  @param color the color of the light
+     *  @param color the packed color of the light
      */
-    public void on( ColorRGBA color ) {
+    public void on( int color ) {
         this.color = color;
     }
 
@@ -110,15 +108,15 @@ public class LEDCubeLight extends LEDCubePoint {
      *  Turns the light off.
      */
     public void off() {
-        this.color = ColorRGBA.Black;
+        this.color = LEDCubeColor.BLACK;
     }
 
     /**
      *  Returns the color of the light.
      *
-     *  @return the color of the light
+     *  @return the packed color of the light
      */
-    public ColorRGBA getColor() {
+    public int getColor() {
         return color;
     }
 
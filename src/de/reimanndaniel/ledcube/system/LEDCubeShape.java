@@ -19,15 +19,17 @@
  */
 package de.reimanndaniel.ledcube.system;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
- *  A shape of something in the cube as list of points.
+ *  A shape of something in the cube as collection of points.
+ *  Lists may contain a point more than once, sets like
+ *  {@code LEDCubeVoxelShape} do not.
  *
  *  @author Daniel Reimann <coding@reimanndaniel.de>
  *  @version 0.9.0
  *  @since 0.9.0
  */
-public interface LEDCubeShape extends List<LEDCubePoint> {
+public interface LEDCubeShape extends Collection<LEDCubePoint> {
 
 }
@@ -19,52 +19,59 @@
  */
 package de.reimanndaniel.ledcube.system;
 
-import com.jme3.math.ColorRGBA;
+import java.util.Arrays;
 
 /**
  *  A momentary state of a LED cube.
+ *  The colors are stored packed as RGBA8 in one flat array
+ *  indexed as {@code ( x * height + y ) * depth + z}.
  *
  *  @author Daniel Reimann <coding@reimanndaniel.de>
  *  @version 0.9.0
  *  @since 0.9.0
+ *  @see LEDCubeColor
  */
 public class LEDCubeState {
 
     /**
      *  The dimension of the state.
      */
-    private LEDCubeDimension dim;
+    private final LEDCubeDimension dim;
     /**
-     *  The colors of the state.
+     *  The packed colors of the state.
      */
-    private ColorRGBA[][][] state;
+    private final int[] state;
 
     /**
      *  Creates a state.
-     *  Uses standard color {@code ColorRGBA.Black}.
+     *  Uses standard color {@code LEDCubeColor.BLACK}.
      *
      *  @param dim the dimension of the state
      */
     public LEDCubeState( LEDCubeDimension dim ) {
-        this( dim, ColorRGBA.Black );
+        this( dim, LEDCubeColor.BLACK );
     }
 
     /**
      *  Creates a state.
      *
      *  @param dim the dimension of the state
-     *  @param color the color of the state
+     *  @param rgba the packed color of the state
      */
-    public LEDCubeState( LEDCubeDimension dim, ColorRGBA color ) {
+    public LEDCubeState( LEDCubeDimension dim, int rgba ) {
         this.dim = dim;
-        state = new ColorRGBA[dim.getWidth()][dim.getHeight()][dim.getDepth()];
-        for( int ax = 0; ax < dim.getWidth(); ax++ ) {
-            for( int ay = 0; ay < dim.getHeight(); ay++ ) {
-                for( int az = 0; az < dim.getDepth(); az++ ) {
-                    state[ax][ay][az] = color;
-                }
-            }
-        }
+        state = new int[dim.getWidth() * dim.getHeight() * dim.getDepth()];
+        fill( rgba );
+    }
+
+    /**
+     *  Copies a state.
+     *
+     *  @param copy the state to copy
+     */
+    public LEDCubeState( LEDCubeState copy ) {
+        this.dim = copy.dim;
+        this.state = copy.state.clone();
     }
 
     /**
@@ -77,27 +84,202 @@ public class LEDCubeState {
     }
 
     /**
-     *  Sets the color of the LED at a certain point.
+     *  Returns the index of a LED in the buffer.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return the index of the LED
+     */
+    public int index( int x, int y, int z ) {
+        if( !dim.in( x, y, z ) ) {
+            throw new ArrayIndexOutOfBoundsException( "The LED is out of range." );
+        }
+        return dim.index( x, y, z );
+    }
+
+    /**
+     *  Sets the packed color of the LED at a certain point.
      *
      *  @param x the x coordinate of the LED
      *  @param y the y coordinate of the LED
      *  @param z the z coordinate of the LED
-     *  @param color the color of the LED
+     *  @param rgba the packed color of the LED
      */
-    public void set( int x, int y, int z, ColorRGBA color ) {
-        state[x][y][z] = color;
+    public void setRGBA( int x, int y, int z, int rgba ) {
+        state[index( x, y, z )] = rgba;
     }
 
     /**
-     *  Returns the color of the LED at a certain point.
+     *  Returns the packed color of the LED at a certain point.
      *
      *  @param x the x coordinate of the LED
      *  @param y the y coordinate of the LED
      *  @param z the z coordinate of the LED
-     *  @return the color of the LED
+     *  @return the packed color of the LED
+     */
+    public int getRGBA( int x, int y, int z ) {
+        return state[index( x, y, z )];
+    }
+
+    /**
+     *  Fills the whole state with a packed color.
+     *
+     *  @param rgba the packed color to fill the state with
+     */
+    public void fill( int rgba ) {
+        Arrays.fill( state, rgba );
+    }
+
+    /**
+     *  Fills the LEDs of a shape with a packed color.
+     *
+     *  @param shape the LEDs to fill
+     *  @param rgba the packed color to fill the LEDs with
+     */
+    public void fill( LEDCubeVoxelShape shape, int rgba ) {
+        if( !dim.equals( shape.getDimension() ) ) {
+            throw new IllegalArgumentException( "The shape has another dimension." );
+        }
+        for( int ai = shape.nextIndex( 0 ); ai >= 0; ai = shape.nextIndex( ai + 1 ) ) {
+            state[ai] = rgba;
+        }
+    }
+
+    /**
+     *  Copies a layer of LEDs onto another layer.
+     *
+     *  @param axis the axis the layers are numbered along
+     *  @param from the number of the layer to copy
+     *  @param to the number of the layer to overwrite
+     */
+    public void copyLayer( int axis, int from, int to ) {
+        int size = dim.getSize( axis );
+        if( from < 0 || from >= size || to < 0 || to >= size ) {
+            throw new IllegalArgumentException( "The layer is out of range." );
+        }
+        int stride = dim.getStride( axis );
+        int block = size * stride;
+        for( int base = 0; base < state.length; base += block ) {
+            System.arraycopy( state, base + from * stride, state, base + to * stride, stride );
+        }
+    }
+
+    /**
+     *  Moves all LEDs along an axis.
+     *  The LEDs moved out are dropped, the layers moved in get a color.
+     *
+     *  @param axis the axis to move along
+     *  @param distance the number of layers to move, negative to move back
+     *  @param rgba the packed color of the layers moved in
+     */
+    public void shift( int axis, int distance, int rgba ) {
+        int size = dim.getSize( axis );
+        int stride = dim.getStride( axis );
+        int block = size * stride;
+        int moved = Math.min( Math.abs( distance ), size ) * stride;
+        for( int base = 0; base < state.length; base += block ) {
+            if( distance > 0 ) {
+                System.arraycopy( state, base, state, base + moved, block - moved );
+                Arrays.fill( state, base, base + moved, rgba );
+            }
+            else if( distance < 0 ) {
+                System.arraycopy( state, base + moved, state, base, block - moved );
+                Arrays.fill( state, base + block - moved, base + block, rgba );
+            }
+        }
+    }
+
+    /**
+     *  Rolls all LEDs along an axis.
+     *  The LEDs moved out at one side come in at the other side.
+     *
+     *  @param axis the axis to roll along
+     *  @param distance the number of layers to roll, negative to roll back
+     */
+    public void roll( int axis, int distance ) {
+        int size = dim.getSize( axis );
+        int stride = dim.getStride( axis );
+        int block = size * stride;
+        int moved = ( ( distance % size ) + size ) % size * stride;
+        if( moved == 0 ) {
+            return;
+        }
+        // rotating by whole layers is rotating the elements, done by reversing
+        for( int base = 0; base < state.length; base += block ) {
+            reverse( base, base + block );
+            reverse( base, base + moved );
+            reverse( base + moved, base + block );
+        }
+    }
+
+    /**
+     *  Reverses a part of the buffer.
+     *
+     *  @param from the first index
+     *  @param to the index after the last
+     */
+    private void reverse( int from, int to ) {
+        for( int ai = from, bi = to - 1; ai < bi; ai++, bi-- ) {
+            int swap = state[ai];
+            state[ai] = state[bi];
+            state[bi] = swap;
+        }
+    }
+
+    /**
+     *  Scales the brightness of all LEDs.
+     *  The alpha stays, the channels are cut at full brightness.
+     *
+     *  @param factor the factor for red, green and blue, >= 0
+     */
+    public void fade( float factor ) {
+        if( !( factor >= 0f ) ) {
+            throw new IllegalArgumentException( "The factor has to be >= 0." );
+        }
+        int scale = Math.round( Math.min( factor, 256f ) * 256f );
+        for( int ai = 0; ai < state.length; ai++ ) {
+            int rgba = state[ai];
+            int red = Math.min( 255, ( ( rgba >>> 24 ) * scale ) >>> 8 );
+            int green = Math.min( 255, ( ( ( rgba >>> 16 ) & 0xFF ) * scale ) >>> 8 );
+            int blue = Math.min( 255, ( ( ( rgba >>> 8 ) & 0xFF ) * scale ) >>> 8 );
+            state[ai] = ( red << 24 ) | ( green << 16 ) | ( blue << 8 ) | ( rgba & 0xFF );
+        }
+    }
+
+    /**
+     *  Copies all colors of another state into this state.
+     *
+     *  @param other the state to copy from
+     */
+    public void copyFrom( LEDCubeState other ) {
+        if( !dim.equals( other.dim ) ) {
+            throw new IllegalArgumentException( "The dimensions of the states differ." );
+        }
+        System.arraycopy( other.state, 0, state, 0, state.length );
+    }
+
+    /**
+     *  Copies packed colors into this state.
+     *
+     *  @param rgba the packed colors in the order of the buffer
+     */
+    public void copyFrom( int[] rgba ) {
+        if( rgba.length != state.length ) {
+            throw new IllegalArgumentException( "The size of the buffer differs." );
+        }
+        System.arraycopy( rgba, 0, state, 0, state.length );
+    }
+
+    /**
+     *  Returns the backing buffer of the state.
+     *  Changes to the buffer are changes to the state.
+     *
+     *  @return the packed colors of the state
+     *  @see #index(int, int, int)
      */
-    public ColorRGBA get( int x, int y, int z ) {
-        return state[x][y][z];
+    public int[] getBuffer() {
+        return state;
     }
 
 }
@@ -0,0 +1,526 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.system;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *  A shape of something in the cube as set of LEDs.
+ *  Stores one bit for each LED of a dimension, indexed like the
+ *  {@code LEDCubeState}. Membership tests are O(1), the set operations
+ *  work on 64 LEDs at once and every LED is contained at most once.
+ *  Iterate without creating points with
+ *  {@code for( int i = s.nextIndex( 0 ); i >= 0; i = s.nextIndex( i + 1 ) )}.
+ *  A frozen shape can not change anymore, so it can be shared.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeVoxelShape extends AbstractCollection<LEDCubePoint> implements LEDCubeShape {
+
+    /**
+     *  The dimension of the shape.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  One bit for each LED of the dimension.
+     */
+    protected final long[] bits;
+    /**
+     *  The number of LEDs of the dimension.
+     */
+    private final int volume;
+    /**
+     *  Whether the shape can not change anymore.
+     */
+    private boolean frozen;
+
+    /**
+     *  Creates an empty shape.
+     *
+     *  @param dim the dimension of the shape
+     */
+    public LEDCubeVoxelShape( LEDCubeDimension dim ) {
+        this.dim = dim;
+        this.volume = dim.getVolume();
+        this.bits = new long[( volume + 63 ) >>> 6];
+    }
+
+    /**
+     *  Copies a shape.
+     *  The copy can be changed, even if the shape is frozen.
+     *
+     *  @param copy the shape to copy
+     */
+    public LEDCubeVoxelShape( LEDCubeVoxelShape copy ) {
+        this.dim = copy.dim;
+        this.volume = copy.volume;
+        this.bits = copy.bits.clone();
+    }
+
+    /**
+     *  @return the dimension of the shape
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  Returns the bits of the shape.
+     *  Changes to the array are changes to the shape.
+     *
+     *  @return one bit for each LED, indexed like the {@code LEDCubeState}
+     *  @throws UnsupportedOperationException if the shape is frozen
+     */
+    public long[] getBits() {
+        modify();
+        return bits;
+    }
+
+    /**
+     *  Makes the shape unchangeable.
+     *  All changing methods throw afterwards, copy the shape to change it.
+     *
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     *  @return whether the shape can not change anymore
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     *  Tests if the shape may change.
+     *
+     *  @throws UnsupportedOperationException if the shape is frozen
+     */
+    private void modify() {
+        if( frozen ) {
+            throw new UnsupportedOperationException( "The shape is frozen, change a copy of it." );
+        }
+    }
+
+    /**
+     *  Returns the index of a LED.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return the index or -1 if the LED is out of range
+     */
+    protected int index( int x, int y, int z ) {
+        if( !dim.in( x, y, z ) ) {
+            return -1;
+        }
+        return dim.index( x, y, z );
+    }
+
+    /**
+     *  Tests if a LED is in the shape.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return whether the LED is in the shape
+     */
+    public boolean contains( int x, int y, int z ) {
+        int index = index( x, y, z );
+        return index >= 0 && containsIndex( index );
+    }
+
+    /**
+     *  Tests if a LED is in the shape.
+     *
+     *  @param index the index of the LED
+     *  @return whether the LED is in the shape
+     */
+    public boolean containsIndex( int index ) {
+        return ( bits[index >>> 6] & ( 1L << index ) ) != 0;
+    }
+
+    @Override
+    public boolean contains( Object o ) {
+        if( o instanceof LEDCubePoint ) {
+            LEDCubePoint p = (LEDCubePoint) o;
+            return contains( p.getX(), p.getY(), p.getZ() );
+        }
+        return false;
+    }
+
+    /**
+     *  Adds a LED to the shape.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return whether the shape changed
+     */
+    public boolean add( int x, int y, int z ) {
+        int index = index( x, y, z );
+        if( index < 0 ) {
+            throw new IllegalArgumentException( "The LED is out of range." );
+        }
+        return addIndex( index );
+    }
+
+    /**
+     *  Adds a LED to the shape.
+     *
+     *  @param index the index of the LED
+     *  @return whether the shape changed
+     */
+    public boolean addIndex( int index ) {
+        modify();
+        long bit = 1L << index;
+        if( ( bits[index >>> 6] & bit ) != 0 ) {
+            return false;
+        }
+        bits[index >>> 6] |= bit;
+        return true;
+    }
+
+    /**
+     *  Adds a range of LEDs to the shape.
+     *  Along the z axis neighbouring LEDs have neighbouring indices.
+     *
+     *  @param from the index of the first LED
+     *  @param to the index after the last LED
+     */
+    public void addRange( int from, int to ) {
+        if( from < 0 || to > volume || from > to ) {
+            throw new IllegalArgumentException( "The range is out of range." );
+        }
+        modify();
+        if( from == to ) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = ( to - 1 ) >>> 6;
+        long head = -1L << from;
+        long tail = -1L >>> -to;
+        if( first == last ) {
+            bits[first] |= head & tail;
+            return;
+        }
+        bits[first] |= head;
+        for( int ai = first + 1; ai < last; ai++ ) {
+            bits[ai] = -1L;
+        }
+        bits[last] |= tail;
+    }
+
+    @Override
+    public boolean add( LEDCubePoint point ) {
+        return add( point.getX(), point.getY(), point.getZ() );
+    }
+
+    /**
+     *  Removes a LED from the shape.
+     *
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     *  @return whether the shape changed
+     */
+    public boolean remove( int x, int y, int z ) {
+        int index = index( x, y, z );
+        return index >= 0 && removeIndex( index );
+    }
+
+    /**
+     *  Removes a LED from the shape.
+     *
+     *  @param index the index of the LED
+     *  @return whether the shape changed
+     */
+    public boolean removeIndex( int index ) {
+        modify();
+        long bit = 1L << index;
+        if( ( bits[index >>> 6] & bit ) == 0 ) {
+            return false;
+        }
+        bits[index >>> 6] &= ~bit;
+        return true;
+    }
+
+    @Override
+    public boolean remove( Object o ) {
+        if( o instanceof LEDCubePoint ) {
+            LEDCubePoint p = (LEDCubePoint) o;
+            return remove( p.getX(), p.getY(), p.getZ() );
+        }
+        return false;
+    }
+
+    /**
+     *  Returns the next LED in the shape starting at an index.
+     *
+     *  @param from the first index to test
+     *  @return the index of the next LED or -1 if there is none
+     */
+    public int nextIndex( int from ) {
+        int word = from >>> 6;
+        if( word >= bits.length ) {
+            return -1;
+        }
+        long next = bits[word] & ( -1L << from );
+        while( true ) {
+            if( next != 0 ) {
+                return ( word << 6 ) + Long.numberOfTrailingZeros( next );
+            }
+            if( ++word == bits.length ) {
+                return -1;
+            }
+            next = bits[word];
+        }
+    }
+
+    /**
+     *  Counts the LEDs of the shape.
+     *
+     *  @return the number of LEDs
+     */
+    @Override
+    public int size() {
+        int count = 0;
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            count += Long.bitCount( bits[ai] );
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            if( bits[ai] != 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        modify();
+        Arrays.fill( bits, 0L );
+    }
+
+    /**
+     *  Adds all LEDs of the dimension.
+     *
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape fill() {
+        modify();
+        Arrays.fill( bits, -1L );
+        if( ( volume & 63 ) != 0 ) {
+            bits[bits.length - 1] = ( 1L << volume ) - 1;
+        }
+        return this;
+    }
+
+    /**
+     *  Adds all LEDs of another shape.
+     *
+     *  @param other the other shape
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape union( LEDCubeVoxelShape other ) {
+        check( other );
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            bits[ai] |= other.bits[ai];
+        }
+        return this;
+    }
+
+    /**
+     *  Keeps only the LEDs that are in another shape too.
+     *
+     *  @param other the other shape
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape intersect( LEDCubeVoxelShape other ) {
+        check( other );
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            bits[ai] &= other.bits[ai];
+        }
+        return this;
+    }
+
+    /**
+     *  Removes all LEDs of another shape.
+     *
+     *  @param other the other shape
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape difference( LEDCubeVoxelShape other ) {
+        check( other );
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            bits[ai] &= ~other.bits[ai];
+        }
+        return this;
+    }
+
+    /**
+     *  Keeps the LEDs that are in only one of both shapes.
+     *
+     *  @param other the other shape
+     *  @return this shape
+     */
+    public LEDCubeVoxelShape xor( LEDCubeVoxelShape other ) {
+        check( other );
+        for( int ai = 0; ai < bits.length; ai++ ) {
+            bits[ai] ^= other.bits[ai];
+        }
+        return this;
+    }
+
+    /**
+     *  Tests if this shape may change and another shape has the same dimension.
+     *
+     *  @param other the other shape
+     */
+    private void check( LEDCubeVoxelShape other ) {
+        modify();
+        if( !dim.equals( other.dim ) ) {
+            throw new IllegalArgumentException( "The shapes have different dimensions." );
+        }
+    }
+
+    /**
+     *  Creates a moved copy of the shape.
+     *  LEDs moved out of the dimension are lost.
+     *
+     *  @param dx the distance on the x axis
+     *  @param dy the distance on the y axis
+     *  @param dz the distance on the z axis
+     *  @return the moved shape
+     */
+    public LEDCubeVoxelShape translate( int dx, int dy, int dz ) {
+        LEDCubeVoxelShape moved = new LEDCubeVoxelShape( dim );
+        int height = dim.getHeight();
+        int depth = dim.getDepth();
+        for( int ai = nextIndex( 0 ); ai >= 0; ai = nextIndex( ai + 1 ) ) {
+            int x = ai / ( height * depth ) + dx;
+            int y = ( ai / depth ) % height + dy;
+            int z = ai % depth + dz;
+            int index = moved.index( x, y, z );
+            if( index >= 0 ) {
+                moved.addIndex( index );
+            }
+        }
+        return moved;
+    }
+
+    /**
+     *  Creates a mirrored copy of the shape.
+     *
+     *  @param axes the axes to mirror, combined {@code LEDCubeDimension.AxisX},
+     *      {@code AxisY} and {@code AxisZ}
+     *  @return the mirrored shape
+     */
+    public LEDCubeVoxelShape mirror( int axes ) {
+        LEDCubeVoxelShape mirrored = new LEDCubeVoxelShape( dim );
+        int width = dim.getWidth();
+        int height = dim.getHeight();
+        int depth = dim.getDepth();
+        for( int ai = nextIndex( 0 ); ai >= 0; ai = nextIndex( ai + 1 ) ) {
+            int x = ai / ( height * depth );
+            int y = ( ai / depth ) % height;
+            int z = ai % depth;
+            if( ( axes & LEDCubeDimension.AxisX ) != 0 ) {
+                x = width - 1 - x;
+            }
+            if( ( axes & LEDCubeDimension.AxisY ) != 0 ) {
+                y = height - 1 - y;
+            }
+            if( ( axes & LEDCubeDimension.AxisZ ) != 0 ) {
+                z = depth - 1 - z;
+            }
+            mirrored.addIndex( ( x * height + y ) * depth + z );
+        }
+        return mirrored;
+    }
+
+    /**
+     *  Iterates the LEDs as points in the order of their index.
+     *  Creates a point for each LED, use {@code nextIndex()} in hot loops.
+     *
+     *  @return an iterator over the LEDs
+     */
+    @Override
+    public Iterator<LEDCubePoint> iterator() {
+        return new Iterator<LEDCubePoint>() {
+            private int next = nextIndex( 0 );
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public LEDCubePoint next() {
+                if( next < 0 ) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextIndex( next + 1 );
+                int height = dim.getHeight();
+                int depth = dim.getDepth();
+                return new LEDCubePoint( last / ( height * depth ), ( last / depth ) % height, last % depth );
+            }
+
+            @Override
+            public void remove() {
+                if( last < 0 ) {
+                    throw new IllegalStateException();
+                }
+                removeIndex( last );
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * dim.hashCode() + Arrays.hashCode( bits );
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if( o instanceof LEDCubeVoxelShape ) {
+            LEDCubeVoxelShape shape = (LEDCubeVoxelShape) o;
+            return dim.equals( shape.dim ) && Arrays.equals( bits, shape.bits );
+        }
+        return false;
+    }
+
+}
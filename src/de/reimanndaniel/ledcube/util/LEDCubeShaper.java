@@ -19,13 +19,20 @@
  */
 package de.reimanndaniel.ledcube.util;
 
-import de.reimanndaniel.ledcube.system.LEDCubeArrayShape;
 import de.reimanndaniel.ledcube.system.LEDCubeDimension;
-import de.reimanndaniel.ledcube.system.LEDCubePoint;
 import de.reimanndaniel.ledcube.system.LEDCubeShape;
+import de.reimanndaniel.ledcube.system.LEDCubeVoxelShape;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *  This creates often used shapes.
+ *  The shapes are rasterized into voxel shapes and cached by their
+ *  parameters, so asking for the same shape again is only a lookup.
+ *  The cache holds a maximal number of shapes and drops the least recently
+ *  used one, so animated parameters do not fill the memory.
+ *  Cached shapes are shared and frozen, changing them throws, so change a
+ *  copy made with {@code new LEDCubeVoxelShape( shape )}.
  *
  *  @author Daniel Reimann <coding@reimanndaniel.de>
  *  @version 0.9.0
@@ -34,18 +41,80 @@ import de.reimanndaniel.ledcube.system.LEDCubeShape;
  */
 public class LEDCubeShaper {
 
+    /**
+     *  The key type of the full cube.
+     */
+    private static final int CUBE = 1;
+    /**
+     *  The key type of lines.
+     */
+    private static final int LINE = 2;
+    /**
+     *  The key type of planes.
+     */
+    private static final int PLANE = 3;
+    /**
+     *  The key type of spheres.
+     */
+    private static final int SPHERE = 4;
+    /**
+     *  The key type of boxes.
+     */
+    private static final int BOX = 5;
+    /**
+     *  The key type of cylinders.
+     */
+    private static final int CYLINDER = 6;
+    /**
+     *  The key type of helices.
+     */
+    private static final int HELIX = 7;
+
     /**
      *  The dimension to use.
      */
     protected final LEDCubeDimension dim;
+    /**
+     *  The maximal number of cached shapes.
+     */
+    protected final int maxsize;
+    /**
+     *  The rasterized shapes by their parameters in access order.
+     */
+    private final LinkedHashMap<Key, LEDCubeVoxelShape> cache;
+    /**
+     *  The key to look up shapes, only used while holding the cache.
+     */
+    private final Key probe;
 
     /**
-     *  Creates a shaper from a dimension.
+     *  Creates a shaper from a dimension that caches up to 256 shapes.
      *
      *  @param dim the dimension to use
      */
     public LEDCubeShaper( LEDCubeDimension dim ) {
+        this( dim, 256 );
+    }
+
+    /**
+     *  Creates a shaper from a dimension.
+     *
+     *  @param dim the dimension to use
+     *  @param maxsize the maximal number of cached shapes
+     */
+    public LEDCubeShaper( LEDCubeDimension dim, final int maxsize ) {
+        if( maxsize < 1 ) {
+            throw new IllegalArgumentException( "The cache has to hold at least one shape." );
+        }
         this.dim = dim;
+        this.maxsize = maxsize;
+        this.cache = new LinkedHashMap<Key, LEDCubeVoxelShape>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Key, LEDCubeVoxelShape> eldest ) {
+                return size() > maxsize;
+            }
+        };
+        this.probe = new Key();
     }
 
     /**
@@ -57,20 +126,584 @@ public class LEDCubeShaper {
         return dim;
     }
 
+    /**
+     *  @return the maximal number of cached shapes
+     */
+    public int getMaxSize() {
+        return maxsize;
+    }
+
+    /**
+     *  @return the current number of cached shapes
+     */
+    public int getCacheSize() {
+        synchronized( cache ) {
+            return cache.size();
+        }
+    }
+
     /**
      *  @return a shape of the full cube
      */
-    public LEDCubeShape fullCube() {
-        int size = dim.getWidth() * dim.getHeight() * dim.getDepth();
-        LEDCubeArrayShape shape = new LEDCubeArrayShape( size );
-        for( int ai = 0; ai < dim.getWidth(); ai++ ) {
+    public LEDCubeVoxelShape fullCube() {
+        LEDCubeVoxelShape shape = lookup( CUBE, 0, 0, 0, 0, 0, 0, 0 );
+        if( shape == null ) {
+            shape = store( CUBE, 0, 0, 0, 0, 0, 0, 0, new LEDCubeVoxelShape( dim ).fill() );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a straight line between two LEDs.
+     *  Parts of the line out of the cube are left out.
+     *
+     *  @param x0 the x coordinate of the start
+     *  @param y0 the y coordinate of the start
+     *  @param z0 the z coordinate of the start
+     *  @param x1 the x coordinate of the end
+     *  @param y1 the y coordinate of the end
+     *  @param z1 the z coordinate of the end
+     *  @return a shape of the line
+     */
+    public LEDCubeVoxelShape line( int x0, int y0, int z0, int x1, int y1, int z1 ) {
+        LEDCubeVoxelShape shape = lookup( LINE, x0, y0, z0, x1, y1, z1, 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterLine( shape, x0, y0, z0, x1, y1, z1 );
+            shape = store( LINE, x0, y0, z0, x1, y1, z1, 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a plane of all LEDs with {@code nx * x + ny * y + nz * z = d}.
+     *  The plane is one LED thick along the axis its normal is closest to.
+     *
+     *  @param nx the x component of the normal
+     *  @param ny the y component of the normal
+     *  @param nz the z component of the normal
+     *  @param d the distance of the plane to the origin times the length of the normal
+     *  @return a shape of the plane
+     */
+    public LEDCubeVoxelShape plane( float nx, float ny, float nz, float d ) {
+        if( nx == 0f && ny == 0f && nz == 0f ) {
+            throw new IllegalArgumentException( "The normal must not be 0." );
+        }
+        LEDCubeVoxelShape shape = lookup( PLANE, bits( nx ), bits( ny ), bits( nz ), bits( d ), 0, 0, 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterPlane( shape, nx, ny, nz, d );
+            shape = store( PLANE, bits( nx ), bits( ny ), bits( nz ), bits( d ), 0, 0, 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a sphere.
+     *  The center may lie between LEDs, the center of an even cube is at
+     *  {@code ( width - 1 ) / 2f}.
+     *
+     *  @param cx the x coordinate of the center
+     *  @param cy the y coordinate of the center
+     *  @param cz the z coordinate of the center
+     *  @param radius the radius in LEDs
+     *  @param filled whether the inside is part of the sphere
+     *  @return a shape of the sphere
+     */
+    public LEDCubeVoxelShape sphere( float cx, float cy, float cz, float radius, boolean filled ) {
+        if( radius < 0f ) {
+            throw new IllegalArgumentException( "The radius has to be >= 0." );
+        }
+        LEDCubeVoxelShape shape = lookup( SPHERE, bits( cx ), bits( cy ), bits( cz ), bits( radius ), filled ? 1 : 0, 0, 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterSphere( shape, cx, cy, cz, radius, filled );
+            shape = store( SPHERE, bits( cx ), bits( cy ), bits( cz ), bits( radius ), filled ? 1 : 0, 0, 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a box between two corners.
+     *
+     *  @param x0 the x coordinate of one corner
+     *  @param y0 the y coordinate of one corner
+     *  @param z0 the z coordinate of one corner
+     *  @param x1 the x coordinate of the opposite corner
+     *  @param y1 the y coordinate of the opposite corner
+     *  @param z1 the z coordinate of the opposite corner
+     *  @param filled whether the inside is part of the box
+     *  @return a shape of the box
+     */
+    public LEDCubeVoxelShape box( int x0, int y0, int z0, int x1, int y1, int z1, boolean filled ) {
+        LEDCubeVoxelShape shape = lookup( BOX, x0, y0, z0, x1, y1, z1, filled ? 1 : 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterBox( shape, x0, y0, z0, x1, y1, z1, filled );
+            shape = store( BOX, x0, y0, z0, x1, y1, z1, filled ? 1 : 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a cylinder along an axis through the whole cube.
+     *
+     *  @param axis the axis of the cylinder, {@code LEDCubeDimension.AxisX},
+     *      {@code AxisY} or {@code AxisZ}
+     *  @param ca the first other coordinate of the center, x if possible else y
+     *  @param cb the second other coordinate of the center, z if possible else y
+     *  @param radius the radius in LEDs
+     *  @param filled whether the inside is part of the cylinder
+     *  @return a shape of the cylinder
+     */
+    public LEDCubeVoxelShape cylinder( int axis, float ca, float cb, float radius, boolean filled ) {
+        if( radius < 0f ) {
+            throw new IllegalArgumentException( "The radius has to be >= 0." );
+        }
+        LEDCubeVoxelShape shape = lookup( CYLINDER, axis, bits( ca ), bits( cb ), bits( radius ), filled ? 1 : 0, 0, 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterCylinder( shape, axis, ca, cb, radius, filled );
+            shape = store( CYLINDER, axis, bits( ca ), bits( cb ), bits( radius ), filled ? 1 : 0, 0, 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Returns a helix winding along an axis through the whole cube.
+     *
+     *  @param axis the axis of the helix, {@code LEDCubeDimension.AxisX},
+     *      {@code AxisY} or {@code AxisZ}
+     *  @param ca the first other coordinate of the center, x if possible else y
+     *  @param cb the second other coordinate of the center, z if possible else y
+     *  @param radius the radius in LEDs
+     *  @param turns the number of turns over the length of the axis
+     *  @param phase the angle at the start of the axis in radians
+     *  @return a shape of the helix
+     */
+    public LEDCubeVoxelShape helix( int axis, float ca, float cb, float radius, float turns, float phase ) {
+        if( radius < 0f ) {
+            throw new IllegalArgumentException( "The radius has to be >= 0." );
+        }
+        LEDCubeVoxelShape shape = lookup( HELIX, axis, bits( ca ), bits( cb ), bits( radius ), bits( turns ), bits( phase ), 0 );
+        if( shape == null ) {
+            shape = new LEDCubeVoxelShape( dim );
+            rasterHelix( shape, axis, ca, cb, radius, turns, phase );
+            shape = store( HELIX, axis, bits( ca ), bits( cb ), bits( radius ), bits( turns ), bits( phase ), 0, shape );
+        }
+        return shape;
+    }
+
+    /**
+     *  Removes all cached shapes.
+     */
+    public void clearCache() {
+        synchronized( cache ) {
+            cache.clear();
+        }
+    }
+
+    /**
+     *  Returns a cached shape.
+     *  Float parameters are given by their bits, booleans as 0 or 1 and
+     *  unused parameters as 0.
+     *
+     *  @param type the kind of shape
+     *  @param a the first parameter
+     *  @param b the second parameter
+     *  @param c the third parameter
+     *  @param d the fourth parameter
+     *  @param e the fifth parameter
+     *  @param f the sixth parameter
+     *  @param g the seventh parameter
+     *  @return the shape or null if it is not cached
+     */
+    protected LEDCubeVoxelShape lookup( int type, int a, int b, int c, int d, int e, int f, int g ) {
+        synchronized( cache ) {
+            probe.set( type, a, b, c, d, e, f, g );
+            return cache.get( probe );
+        }
+    }
+
+    /**
+     *  Freezes and caches a shape.
+     *  If another thread cached the same shape first, that one is kept.
+     *
+     *  @param type the kind of shape
+     *  @param a the first parameter
+     *  @param b the second parameter
+     *  @param c the third parameter
+     *  @param d the fourth parameter
+     *  @param e the fifth parameter
+     *  @param f the sixth parameter
+     *  @param g the seventh parameter
+     *  @param shape the shape
+     *  @return the cached shape
+     */
+    protected LEDCubeVoxelShape store( int type, int a, int b, int c, int d, int e, int f, int g, LEDCubeVoxelShape shape ) {
+        synchronized( cache ) {
+            probe.set( type, a, b, c, d, e, f, g );
+            LEDCubeVoxelShape cached = cache.get( probe );
+            if( cached != null ) {
+                return cached;
+            }
+            Key key = new Key();
+            key.set( type, a, b, c, d, e, f, g );
+            cache.put( key, shape.freeze() );
+            return shape;
+        }
+    }
+
+    /**
+     *  Returns the bits of a float parameter.
+     *
+     *  @param value the parameter
+     *  @return the bits of the parameter
+     */
+    private static int bits( float value ) {
+        return Float.floatToIntBits( value );
+    }
+
+    /**
+     *  Adds a LED to a shape if it is in the cube.
+     *
+     *  @param shape the shape
+     *  @param x the x coordinate of the LED
+     *  @param y the y coordinate of the LED
+     *  @param z the z coordinate of the LED
+     */
+    private void plot( LEDCubeVoxelShape shape, int x, int y, int z ) {
+        if( dim.in( x, y, z ) ) {
+            shape.addIndex( dim.index( x, y, z ) );
+        }
+    }
+
+    /**
+     *  Adds a LED given by coordinates along an axis to a shape.
+     *
+     *  @param shape the shape
+     *  @param axis the axis of the position
+     *  @param pos the position along the axis
+     *  @param a the first other coordinate, x if possible else y
+     *  @param b the second other coordinate, z if possible else y
+     */
+    private void plotAxis( LEDCubeVoxelShape shape, int axis, int pos, int a, int b ) {
+        switch( axis ) {
+            case LEDCubeDimension.AxisX:
+                plot( shape, pos, a, b );
+                break;
+            case LEDCubeDimension.AxisY:
+                plot( shape, a, pos, b );
+                break;
+            case LEDCubeDimension.AxisZ:
+                plot( shape, a, b, pos );
+                break;
+            default:
+                throw new IllegalArgumentException( "The axis is unknown." );
+        }
+    }
+
+    /**
+     *  Returns the length of the cube along an axis.
+     *
+     *  @param axis the axis
+     *  @return the number of LEDs along the axis
+     */
+    private int length( int axis ) {
+        switch( axis ) {
+            case LEDCubeDimension.AxisX:
+                return dim.getWidth();
+            case LEDCubeDimension.AxisY:
+                return dim.getHeight();
+            case LEDCubeDimension.AxisZ:
+                return dim.getDepth();
+            default:
+                throw new IllegalArgumentException( "The axis is unknown." );
+        }
+    }
+
+    /**
+     *  Rasterizes a line with the 3D Bresenham algorithm.
+     *
+     *  @param shape the shape to add the line to
+     *  @param x0 the x coordinate of the start
+     *  @param y0 the y coordinate of the start
+     *  @param z0 the z coordinate of the start
+     *  @param x1 the x coordinate of the end
+     *  @param y1 the y coordinate of the end
+     *  @param z1 the z coordinate of the end
+     */
+    protected void rasterLine( LEDCubeVoxelShape shape, int x0, int y0, int z0, int x1, int y1, int z1 ) {
+        int dx = Math.abs( x1 - x0 );
+        int dy = Math.abs( y1 - y0 );
+        int dz = Math.abs( z1 - z0 );
+        int sx = x1 > x0 ? 1 : -1;
+        int sy = y1 > y0 ? 1 : -1;
+        int sz = z1 > z0 ? 1 : -1;
+        int steps = Math.max( dx, Math.max( dy, dz ) );
+        // errors of the two minor axes, scaled by 2 to stay integer
+        int ex = 2 * dx - steps;
+        int ey = 2 * dy - steps;
+        int ez = 2 * dz - steps;
+        int x = x0;
+        int y = y0;
+        int z = z0;
+        for( int ai = 0; ai <= steps; ai++ ) {
+            plot( shape, x, y, z );
+            if( ex >= 0 && dx != 0 ) {
+                x += sx;
+                ex -= 2 * steps;
+            }
+            if( ey >= 0 && dy != 0 ) {
+                y += sy;
+                ey -= 2 * steps;
+            }
+            if( ez >= 0 && dz != 0 ) {
+                z += sz;
+                ez -= 2 * steps;
+            }
+            ex += 2 * dx;
+            ey += 2 * dy;
+            ez += 2 * dz;
+        }
+    }
+
+    /**
+     *  Rasterizes a plane.
+     *  For each LED on the two minor axes of the normal the nearest LED on
+     *  the major axis is added.
+     *
+     *  @param shape the shape to add the plane to
+     *  @param nx the x component of the normal
+     *  @param ny the y component of the normal
+     *  @param nz the z component of the normal
+     *  @param d the distance of the plane to the origin times the length of the normal
+     */
+    protected void rasterPlane( LEDCubeVoxelShape shape, float nx, float ny, float nz, float d ) {
+        float ax = Math.abs( nx );
+        float ay = Math.abs( ny );
+        float az = Math.abs( nz );
+        if( ax >= ay && ax >= az ) {
+            for( int ai = 0; ai < dim.getHeight(); ai++ ) {
+                for( int bi = 0; bi < dim.getDepth(); bi++ ) {
+                    plot( shape, Math.round( ( d - ny * ai - nz * bi ) / nx ), ai, bi );
+                }
+            }
+        }
+        else if( ay >= az ) {
+            for( int ai = 0; ai < dim.getWidth(); ai++ ) {
+                for( int bi = 0; bi < dim.getDepth(); bi++ ) {
+                    plot( shape, ai, Math.round( ( d - nx * ai - nz * bi ) / ny ), bi );
+                }
+            }
+        }
+        else {
+            for( int ai = 0; ai < dim.getWidth(); ai++ ) {
+                for( int bi = 0; bi < dim.getHeight(); bi++ ) {
+                    plot( shape, ai, bi, Math.round( ( d - nx * ai - ny * bi ) / nz ) );
+                }
+            }
+        }
+    }
+
+    /**
+     *  Rasterizes a sphere.
+     *  A LED is part of the surface if its distance to the center differs
+     *  less than half a LED from the radius.
+     *
+     *  @param shape the shape to add the sphere to
+     *  @param cx the x coordinate of the center
+     *  @param cy the y coordinate of the center
+     *  @param cz the z coordinate of the center
+     *  @param radius the radius in LEDs
+     *  @param filled whether the inside is part of the sphere
+     */
+    protected void rasterSphere( LEDCubeVoxelShape shape, float cx, float cy, float cz, float radius, boolean filled ) {
+        float outer = ( radius + 0.5f ) * ( radius + 0.5f );
+        float inner = filled || radius < 0.5f ? -1f : ( radius - 0.5f ) * ( radius - 0.5f );
+        int x0 = Math.max( 0, (int) Math.ceil( cx - radius - 0.5f ) );
+        int x1 = Math.min( dim.getWidth() - 1, (int) Math.floor( cx + radius + 0.5f ) );
+        for( int ai = x0; ai <= x1; ai++ ) {
+            float dx = ai - cx;
             for( int bi = 0; bi < dim.getHeight(); bi++ ) {
+                float dy = bi - cy;
+                float dxy = dx * dx + dy * dy;
+                if( dxy > outer ) {
+                    continue;
+                }
                 for( int ci = 0; ci < dim.getDepth(); ci++ ) {
-                    shape.add( new LEDCubePoint( ai, bi, ci ) );
+                    float dz = ci - cz;
+                    float dist = dxy + dz * dz;
+                    if( dist <= outer && dist > inner ) {
+                        plot( shape, ai, bi, ci );
+                    }
                 }
             }
         }
-        return shape;
+    }
+
+    /**
+     *  Rasterizes a box.
+     *  The rows along the z axis are added as ranges.
+     *
+     *  @param shape the shape to add the box to
+     *  @param x0 the x coordinate of one corner
+     *  @param y0 the y coordinate of one corner
+     *  @param z0 the z coordinate of one corner
+     *  @param x1 the x coordinate of the opposite corner
+     *  @param y1 the y coordinate of the opposite corner
+     *  @param z1 the z coordinate of the opposite corner
+     *  @param filled whether the inside is part of the box
+     */
+    protected void rasterBox( LEDCubeVoxelShape shape, int x0, int y0, int z0, int x1, int y1, int z1, boolean filled ) {
+        int minx = Math.min( x0, x1 );
+        int maxx = Math.max( x0, x1 );
+        int miny = Math.min( y0, y1 );
+        int maxy = Math.max( y0, y1 );
+        int minz = Math.min( z0, z1 );
+        int maxz = Math.max( z0, z1 );
+        int fromz = Math.max( 0, minz );
+        int toz = Math.min( dim.getDepth() - 1, maxz );
+        if( fromz > toz ) {
+            return;
+        }
+        for( int ai = Math.max( 0, minx ); ai <= Math.min( dim.getWidth() - 1, maxx ); ai++ ) {
+            for( int bi = Math.max( 0, miny ); bi <= Math.min( dim.getHeight() - 1, maxy ); bi++ ) {
+                int row = ( ai * dim.getHeight() + bi ) * dim.getDepth();
+                if( filled || ai == minx || ai == maxx || bi == miny || bi == maxy ) {
+                    shape.addRange( row + fromz, row + toz + 1 );
+                }
+                else {
+                    plot( shape, ai, bi, minz );
+                    plot( shape, ai, bi, maxz );
+                }
+            }
+        }
+    }
+
+    /**
+     *  Rasterizes a cylinder.
+     *  The circle is rasterized once and repeated along the axis.
+     *
+     *  @param shape the shape to add the cylinder to
+     *  @param axis the axis of the cylinder
+     *  @param ca the first other coordinate of the center
+     *  @param cb the second other coordinate of the center
+     *  @param radius the radius in LEDs
+     *  @param filled whether the inside is part of the cylinder
+     */
+    protected void rasterCylinder( LEDCubeVoxelShape shape, int axis, float ca, float cb, float radius, boolean filled ) {
+        int length = length( axis );
+        int la = axis == LEDCubeDimension.AxisX ? dim.getHeight() : dim.getWidth();
+        int lb = axis == LEDCubeDimension.AxisZ ? dim.getHeight() : dim.getDepth();
+        float outer = ( radius + 0.5f ) * ( radius + 0.5f );
+        float inner = filled || radius < 0.5f ? -1f : ( radius - 0.5f ) * ( radius - 0.5f );
+        for( int ai = 0; ai < la; ai++ ) {
+            float da = ai - ca;
+            for( int bi = 0; bi < lb; bi++ ) {
+                float db = bi - cb;
+                float dist = da * da + db * db;
+                if( dist <= outer && dist > inner ) {
+                    for( int ci = 0; ci < length; ci++ ) {
+                        plotAxis( shape, axis, ci, ai, bi );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     *  Rasterizes a helix.
+     *  The curve is sampled at least twice per LED of its length, so the
+     *  LEDs are connected.
+     *
+     *  @param shape the shape to add the helix to
+     *  @param axis the axis of the helix
+     *  @param ca the first other coordinate of the center
+     *  @param cb the second other coordinate of the center
+     *  @param radius the radius in LEDs
+     *  @param turns the number of turns over the length of the axis
+     *  @param phase the angle at the start of the axis in radians
+     */
+    protected void rasterHelix( LEDCubeVoxelShape shape, int axis, float ca, float cb, float radius, float turns, float phase ) {
+        int length = length( axis );
+        double around = 2 * Math.PI * radius * Math.abs( turns );
+        int samples = 2 * (int) Math.ceil( Math.max( length, around ) ) + 1;
+        for( int ai = 0; ai < samples; ai++ ) {
+            double t = (double) ai / ( samples - 1 );
+            double angle = phase + 2 * Math.PI * turns * t;
+            int pos = (int) Math.round( t * ( length - 1 ) );
+            int a = (int) Math.round( ca + radius * Math.cos( angle ) );
+            int b = (int) Math.round( cb + radius * Math.sin( angle ) );
+            plotAxis( shape, axis, pos, a, b );
+        }
+    }
+
+    /**
+     *  The parameters of a cached shape.
+     */
+    private static final class Key {
+
+        /**
+         *  The kind of shape.
+         */
+        private int type;
+        /**
+         *  The parameters, unused ones are 0.
+         */
+        private int a, b, c, d, e, f, g;
+        /**
+         *  The hash of all values.
+         */
+        private int hash;
+
+        /**
+         *  Sets the values of the key.
+         *
+         *  @param type the kind of shape
+         *  @param a the first parameter
+         *  @param b the second parameter
+         *  @param c the third parameter
+         *  @param d the fourth parameter
+         *  @param e the fifth parameter
+         *  @param f the sixth parameter
+         *  @param g the seventh parameter
+         */
+        void set( int type, int a, int b, int c, int d, int e, int f, int g ) {
+            this.type = type;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+            this.e = e;
+            this.f = f;
+            this.g = g;
+            int h = type;
+            h = h * 31 + a;
+            h = h * 31 + b;
+            h = h * 31 + c;
+            h = h * 31 + d;
+            h = h * 31 + e;
+            h = h * 31 + f;
+            h = h * 31 + g;
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if( !( o instanceof Key ) ) {
+                return false;
+            }
+            Key k = (Key) o;
+            return type == k.type && a == k.a && b == k.b && c == k.c && d == k.d
+                && e == k.e && f == k.f && g == k.g;
+        }
+
     }
 
 }
@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferUtils;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ *  One mesh holding all LEDs of a cube.
+ *  The shape of a single LED is copied to the position of every LED and
+ *  the color of each LED is stored in the vertex colors, so the whole cube
+ *  is drawn with one draw call.
+ *  The vertices of the LED with the index {@code i} in the
+ *  {@code LEDCubeState} are {@code i * getVerticesPerLED()} up to the next LED.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBatchViewer
+ */
+public class LEDCubeBatchMesh extends Mesh {
+
+    /**
+     *  The dimension of the cube.
+     */
+    protected final LEDCubeDimension dim;
+    /**
+     *  The number of vertices of one LED.
+     */
+    protected final int ledverts;
+    /**
+     *  The vertex colors of all LEDs.
+     */
+    protected final FloatBuffer colors;
+
+    /**
+     *  Creates the mesh for a cube.
+     *
+     *  @param dim the dimension of the cube
+     *  @param ledshape the shape of a single LED
+     *  @param distbetled the distance between LEDs on each axis
+     */
+    public LEDCubeBatchMesh( LEDCubeDimension dim, Mesh ledshape, float[] distbetled ) {
+        this.dim = dim;
+        FloatBuffer pos = ledshape.getFloatBuffer( VertexBuffer.Type.Position );
+        FloatBuffer norm = ledshape.getFloatBuffer( VertexBuffer.Type.Normal );
+        IndexBuffer idx = ledshape.getIndexBuffer();
+        this.ledverts = ledshape.getVertexCount();
+        int leds = dim.getWidth() * dim.getHeight() * dim.getDepth();
+        int verts = ledverts * leds;
+        int indices = idx.size();
+
+        FloatBuffer allpos = BufferUtils.createFloatBuffer( verts * 3 );
+        FloatBuffer allnorm = BufferUtils.createFloatBuffer( verts * 3 );
+        // short indices are enough for small cubes
+        ShortBuffer shortidx = null;
+        IntBuffer intidx = null;
+        if( verts <= 0xFFFF ) {
+            shortidx = BufferUtils.createShortBuffer( indices * leds );
+        }
+        else {
+            intidx = BufferUtils.createIntBuffer( indices * leds );
+        }
+
+        // to make the cube central
+        float startx = ( dim.getWidth() - 1 ) * distbetled[0] / 2 * -1;
+        float starty = ( dim.getHeight() - 1 ) * distbetled[1] / 2 * -1;
+        float startz = ( dim.getDepth() - 1 ) * distbetled[2] / 2 * -1;
+        int base = 0;
+        for( int ax = 0; ax < dim.getWidth(); ax++ ) {
+            for( int ay = 0; ay < dim.getHeight(); ay++ ) {
+                for( int az = 0; az < dim.getDepth(); az++ ) {
+                    float rx = startx + ax * distbetled[0];
+                    float ry = starty + ay * distbetled[1];
+                    float rz = startz + az * distbetled[2];
+                    for( int ai = 0; ai < ledverts; ai++ ) {
+                        allpos.put( pos.get( ai * 3 ) + rx );
+                        allpos.put( pos.get( ai * 3 + 1 ) + ry );
+                        allpos.put( pos.get( ai * 3 + 2 ) + rz );
+                        allnorm.put( norm.get( ai * 3 ) );
+                        allnorm.put( norm.get( ai * 3 + 1 ) );
+                        allnorm.put( norm.get( ai * 3 + 2 ) );
+                    }
+                    for( int ai = 0; ai < indices; ai++ ) {
+                        if( shortidx != null ) {
+                            shortidx.put( (short) ( base + idx.get( ai ) ) );
+                        }
+                        else {
+                            intidx.put( base + idx.get( ai ) );
+                        }
+                    }
+                    base += ledverts;
+                }
+            }
+        }
+        allpos.flip();
+        allnorm.flip();
+        setBuffer( VertexBuffer.Type.Position, 3, allpos );
+        setBuffer( VertexBuffer.Type.Normal, 3, allnorm );
+        if( shortidx != null ) {
+            shortidx.flip();
+            setBuffer( VertexBuffer.Type.Index, 3, shortidx );
+        }
+        else {
+            intidx.flip();
+            setBuffer( VertexBuffer.Type.Index, 3, intidx );
+        }
+
+        this.colors = BufferUtils.createFloatBuffer( verts * 4 );
+        setBuffer( VertexBuffer.Type.Color, 4, colors );
+        updateBound();
+        updateCounts();
+    }
+
+    /**
+     *  @return the dimension of the cube
+     */
+    public LEDCubeDimension getDimension() {
+        return dim;
+    }
+
+    /**
+     *  @return the number of vertices of a single LED
+     */
+    public int getVerticesPerLED() {
+        return ledverts;
+    }
+
+    /**
+     *  Returns the vertex colors of all LEDs.
+     *
+     *  @return the color buffer
+     */
+    public FloatBuffer getColors() {
+        return colors;
+    }
+
+    /**
+     *  Sets the color of one LED.
+     *  Needs {@code updateColors()} to become visible.
+     *
+     *  @param index the index of the LED in the state
+     *  @param rgba the packed color of the LED
+     */
+    public void setColor( int index, int rgba ) {
+        float r = LEDCubeColor.red( rgba ) / 255f;
+        float g = LEDCubeColor.green( rgba ) / 255f;
+        float b = LEDCubeColor.blue( rgba ) / 255f;
+        float a = LEDCubeColor.alpha( rgba ) / 255f;
+        int pos = index * ledverts * 4;
+        int end = pos + ledverts * 4;
+        while( pos < end ) {
+            colors.put( pos++, r );
+            colors.put( pos++, g );
+            colors.put( pos++, b );
+            colors.put( pos++, a );
+        }
+    }
+
+    /**
+     *  Sets the colors of all LEDs.
+     *  Needs {@code updateColors()} to become visible.
+     *
+     *  @param rgba the packed colors in the order of the state
+     */
+    public void setColors( int[] rgba ) {
+        for( int ai = 0; ai < rgba.length; ai++ ) {
+            setColor( ai, rgba[ai] );
+        }
+    }
+
+    /**
+     *  Uploads the changed colors.
+     */
+    public void updateColors() {
+        colors.clear();
+        getBuffer( VertexBuffer.Type.Color ).updateData( colors );
+    }
+
+}
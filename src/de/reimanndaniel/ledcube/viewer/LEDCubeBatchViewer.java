@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import de.reimanndaniel.ledcube.metrics.LEDCubeFrameEvent;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeChange;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.Observable;
+
+/**
+ *  A view of the LED cube that draws all LEDs as one mesh.
+ *  The scene graph has one node however big the cube is and a change of
+ *  the cube only uploads the vertex colors.
+ *  The LEDs do not glow on their own, use a bloom filter in scene mode.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeBatchMesh
+ */
+public class LEDCubeBatchViewer extends LEDCubeViewer {
+
+    /**
+     *  The mesh of all LEDs.
+     */
+    protected LEDCubeBatchMesh mesh;
+    /**
+     *  The 3D view of all LEDs.
+     */
+    protected Geometry geo;
+    /**
+     *  The colors copied from the cube on repaint.
+     */
+    private LEDCubeState frame;
+
+    /**
+     *  Creates a batched viewer for a LED cube.
+     *
+     *  @param cube the cube to view
+     *  @param assetman the asset manager of the LED cube
+     */
+    public LEDCubeBatchViewer( LEDCube cube, AssetManager assetman ) {
+        super( cube, assetman );
+    }
+
+    /**
+     *  Creates a batched viewer for a LED cube with special levels of detail.
+     *
+     *  @param cube the cube to view
+     *  @param assetman the asset manager of the LED cube
+     *  @param lod the levels of detail of the LEDs
+     */
+    public LEDCubeBatchViewer( LEDCube cube, AssetManager assetman, LEDCubeMeshLOD lod ) {
+        super( cube, assetman, lod );
+    }
+
+    /**
+     *  @return the mesh of all LEDs or null before the first paint
+     */
+    public LEDCubeBatchMesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     *  Paints the LED cube.
+     */
+    @Override
+    public void paint() {
+        if( init == true ) {
+            repaint();
+            return;
+        }
+        cube.addObserver( this );
+        frame = new LEDCubeState( cube.getDimension() );
+        level = lod.select( cube.getDimension(), 0f );
+        mesh = new LEDCubeBatchMesh( cube.getDimension(), lod.getMesh( level ), distbetled );
+        Material mat = new Material( assetman, "Common/MatDefs/Misc/Unshaded.j3md" );
+        mat.setBoolean( "VertexColor", true );
+        geo = new Geometry( "LEDs", mesh );
+        geo.setMaterial( mat );
+        this.attachChild( geo );
+        init = true;
+        repaint();
+    }
+
+    /**
+     *  Changes the LED cube.
+     */
+    @Override
+    public void repaint() {
+        if( init == false ) {
+            paint();
+            return;
+        }
+        cube.copyState( frame );
+        mesh.setColors( frame.getBuffer() );
+        mesh.updateColors();
+    }
+
+    /**
+     *  Changes the shape of all LEDs.
+     *  Builds the mesh of all LEDs again.
+     *
+     *  @param ledshape the new shape of a LED
+     */
+    @Override
+    protected void changeLEDShape( Mesh ledshape ) {
+        mesh = new LEDCubeBatchMesh( cube.getDimension(), ledshape, distbetled );
+        geo.setMesh( mesh );
+        repaint();
+    }
+
+    /**
+     *  Get updates from the LED cube.
+     *
+     *  @param o the cube
+     *  @param arg a change to the cube
+     */
+    @Override
+    public void update( Observable o, Object arg ) {
+        if( o == cube ) {
+            LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageView );
+            int size = 1;
+            if( arg instanceof LEDCubeLight ) {
+                LEDCubeLight light = (LEDCubeLight) arg;
+                int index = cube.getDimension().index( light.getX(), light.getY(), light.getZ() );
+                mesh.setColor( index, light.getColor() );
+                mesh.updateColors();
+            }
+            else if( arg instanceof LEDCubeChange ) {
+                LEDCubeChange change = (LEDCubeChange) arg;
+                size = change.size();
+                for( int ai = change.nextChanged( 0 ); ai >= 0; ai = change.nextChanged( ai + 1 ) ) {
+                    mesh.setColor( ai, cube.getRGBA( ai ) );
+                }
+                mesh.updateColors();
+            }
+            else if( arg == null ) {
+                repaint();
+                size = cube.getDimension().getVolume();
+            }
+            LEDCubeFrameEvent.end( event, cube.getFrame(), size );
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.math.ColorRGBA;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+
+/**
+ *  Converts packed colors from and to jMonkeyEngine colors.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeColor
+ */
+public final class LEDCubeColorRGBA {
+
+    /**
+     *  Only static helpers.
+     */
+    private LEDCubeColorRGBA() {
+    }
+
+    /**
+     *  Packs a color.
+     *
+     *  @param color the color to pack
+     *  @return the packed color
+     */
+    public static int pack( ColorRGBA color ) {
+        return LEDCubeColor.rgba( color.r, color.g, color.b, color.a );
+    }
+
+    /**
+     *  Unpacks a color.
+     *
+     *  @param rgba the packed color
+     *  @return a new color object
+     */
+    public static ColorRGBA unpack( int rgba ) {
+        return new ColorRGBA(
+            LEDCubeColor.red( rgba ) / 255f,
+            LEDCubeColor.green( rgba ) / 255f,
+            LEDCubeColor.blue( rgba ) / 255f,
+            LEDCubeColor.alpha( rgba ) / 255f
+        );
+    }
+
+}
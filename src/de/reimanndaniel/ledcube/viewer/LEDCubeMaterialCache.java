@@ -0,0 +1,370 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import de.reimanndaniel.ledcube.metrics.LEDCubeMetrics;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  A cache of LED materials.
+ *  The colors are quantized to a number of bits per channel before the
+ *  lookup, so similar colors share one material. The cache holds at most
+ *  a maximal number of materials and drops the least recently used one.
+ *  The materials are kept in arrays by entry with an open addressed table
+ *  of the packed colors, so a lookup does not box the color.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeMaterialCache {
+
+    /**
+     *  Counts the found materials of all caches.
+     */
+    private static final LongAdder HITS = LEDCubeMetrics.getDefault().counter( "viewer.material.hits" );
+    /**
+     *  Counts the created materials of all caches.
+     */
+    private static final LongAdder MISSES = LEDCubeMetrics.getDefault().counter( "viewer.material.misses" );
+
+    /**
+     *  AssetManager to create the materials.
+     */
+    protected final AssetManager assetman;
+    /**
+     *  The bits per color channel.
+     */
+    protected final int bits;
+    /**
+     *  The maximal number of materials.
+     */
+    protected final int maxsize;
+    /**
+     *  The quantized packed color of each entry.
+     */
+    private final int[] colors;
+    /**
+     *  The material of each entry.
+     */
+    private final Material[] materials;
+    /**
+     *  The more recently used entry of each entry, -1 for none.
+     */
+    private final int[] newer;
+    /**
+     *  The less recently used entry of each entry, -1 for none.
+     */
+    private final int[] older;
+    /**
+     *  The entries by hash of the color, -1 for an empty slot.
+     */
+    private final int[] table;
+    /**
+     *  The most recently used entry, -1 if empty.
+     */
+    private int newest;
+    /**
+     *  The least recently used entry, -1 if empty.
+     */
+    private int oldest;
+    /**
+     *  The number of entries.
+     */
+    private int size;
+    /**
+     *  The number of found materials.
+     */
+    private long hits;
+    /**
+     *  The number of created materials.
+     */
+    private long misses;
+    /**
+     *  The number of dropped materials.
+     */
+    private long evictions;
+
+    /**
+     *  Creates a cache with 5 bits per channel for up to 4096 materials.
+     *
+     *  @param assetman the asset manager to create the materials
+     */
+    public LEDCubeMaterialCache( AssetManager assetman ) {
+        this( assetman, 5, 4096 );
+    }
+
+    /**
+     *  Creates a cache with 5 bits per channel that holds a material for
+     *  each LED of a cube, but at least 4096.
+     *
+     *  @param assetman the asset manager to create the materials
+     *  @param dim the dimension of the cube
+     */
+    public LEDCubeMaterialCache( AssetManager assetman, LEDCubeDimension dim ) {
+        this( assetman, 5, Math.max( 4096, dim.getVolume() ) );
+    }
+
+    /**
+     *  Creates a cache.
+     *
+     *  @param assetman the asset manager to create the materials
+     *  @param bits the bits per color channel, 1 - 8
+     *  @param maxsize the maximal number of materials, at most 2^24
+     */
+    public LEDCubeMaterialCache( AssetManager assetman, int bits, int maxsize ) {
+        if( bits < 1 || bits > 8 ) {
+            throw new IllegalArgumentException( "The bits per channel have to be 1 - 8." );
+        }
+        if( maxsize < 1 || maxsize > 1 << 24 ) {
+            throw new IllegalArgumentException( "The cache has to hold 1 - 2^24 materials." );
+        }
+        this.assetman = assetman;
+        this.bits = bits;
+        this.maxsize = maxsize;
+        this.colors = new int[maxsize];
+        this.materials = new Material[maxsize];
+        this.newer = new int[maxsize];
+        this.older = new int[maxsize];
+        // at most half full, so the probes stay short
+        this.table = new int[Integer.highestOneBit( maxsize ) << 2];
+        clear();
+    }
+
+    /**
+     *  Gets a material in a color.
+     *
+     *  @param rgba the packed color of the material
+     *  @return the material in the quantized color
+     */
+    public Material get( int rgba ) {
+        int key = quantize( rgba );
+        int slot = find( key );
+        int entry = table[slot];
+        if( entry >= 0 ) {
+            hits++;
+            HITS.increment();
+            if( entry != newest ) {
+                unlink( entry );
+                link( entry );
+            }
+            return materials[entry];
+        }
+        misses++;
+        MISSES.increment();
+        Material mat = new Material( assetman, "Common/MatDefs/Misc/Unshaded.j3md" );
+        mat.setColor( "Color", LEDCubeColorRGBA.unpack( key ) );
+        mat.setColor( "GlowColor", LEDCubeColorRGBA.unpack( key ) );
+        if( size < maxsize ) {
+            entry = size++;
+        }
+        else {
+            entry = oldest;
+            unlink( entry );
+            remove( colors[entry] );
+            evictions++;
+            // the slot of the new color may have moved
+            slot = find( key );
+        }
+        colors[entry] = key;
+        materials[entry] = mat;
+        table[slot] = entry;
+        link( entry );
+        return mat;
+    }
+
+    /**
+     *  Finds the slot of a color.
+     *
+     *  @param key the quantized packed color
+     *  @return the slot with the entry of the color or the empty slot to put it
+     */
+    private int find( int key ) {
+        int mask = table.length - 1;
+        int slot = hash( key ) & mask;
+        while( table[slot] >= 0 && colors[table[slot]] != key ) {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     *  Removes a color from the table.
+     *  Moves the following entries back, so no probe passes an empty slot.
+     *
+     *  @param key the quantized packed color in the table
+     */
+    private void remove( int key ) {
+        int mask = table.length - 1;
+        int slot = find( key );
+        int next = slot;
+        while( true ) {
+            next = ( next + 1 ) & mask;
+            if( table[next] < 0 ) {
+                break;
+            }
+            int home = hash( colors[table[next]] ) & mask;
+            // move back unless the home lies cyclically in ( slot, next ]
+            if( ( ( next - home ) & mask ) >= ( ( next - slot ) & mask ) ) {
+                table[slot] = table[next];
+                slot = next;
+            }
+        }
+        table[slot] = -1;
+    }
+
+    /**
+     *  Makes an entry the most recently used.
+     *
+     *  @param entry the entry that is not linked
+     */
+    private void link( int entry ) {
+        newer[entry] = -1;
+        older[entry] = newest;
+        if( newest >= 0 ) {
+            newer[newest] = entry;
+        }
+        else {
+            oldest = entry;
+        }
+        newest = entry;
+    }
+
+    /**
+     *  Takes an entry out of the order of use.
+     *
+     *  @param entry the linked entry
+     */
+    private void unlink( int entry ) {
+        if( newer[entry] >= 0 ) {
+            older[newer[entry]] = older[entry];
+        }
+        else {
+            newest = older[entry];
+        }
+        if( older[entry] >= 0 ) {
+            newer[older[entry]] = newer[entry];
+        }
+        else {
+            oldest = newer[entry];
+        }
+    }
+
+    /**
+     *  Spreads the bits of a color over the table.
+     *
+     *  @param key the quantized packed color
+     *  @return the hash of the color
+     */
+    private static int hash( int key ) {
+        int h = key * 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+
+    /**
+     *  Quantizes a color to the bits per channel.
+     *  The kept bits are repeated in the lower bits, so full channels stay full.
+     *
+     *  @param rgba the packed color
+     *  @return the quantized packed color
+     */
+    public int quantize( int rgba ) {
+        if( bits == 8 ) {
+            return rgba;
+        }
+        return LEDCubeColor.rgba(
+            quantizeChannel( LEDCubeColor.red( rgba ) ),
+            quantizeChannel( LEDCubeColor.green( rgba ) ),
+            quantizeChannel( LEDCubeColor.blue( rgba ) ),
+            quantizeChannel( LEDCubeColor.alpha( rgba ) )
+        );
+    }
+
+    /**
+     *  Quantizes a single channel.
+     *
+     *  @param channel the channel value 0 - 255
+     *  @return the quantized value 0 - 255
+     */
+    private int quantizeChannel( int channel ) {
+        int levels = ( 1 << bits ) - 1;
+        return ( channel >>> ( 8 - bits ) ) * 255 / levels;
+    }
+
+    /**
+     *  @return the bits per color channel
+     */
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     *  @return the maximal number of materials
+     */
+    public int getMaxSize() {
+        return maxsize;
+    }
+
+    /**
+     *  @return the current number of materials
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *  @return the number of found materials
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     *  @return the number of created materials
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     *  @return the number of dropped materials
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     *  Drops all materials.
+     *  The counters are kept.
+     */
+    public void clear() {
+        Arrays.fill( table, -1 );
+        Arrays.fill( materials, 0, size, null );
+        size = 0;
+        newest = -1;
+        oldest = -1;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+
+/**
+ *  Levels of detail for the shape of a LED.
+ *  Holds precomputed meshes from high to low detail and chooses one by the
+ *  size a LED has on the screen and by the number of triangles the whole
+ *  cube would need.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ *  @see LEDCubeViewer#updateLOD(float)
+ */
+public class LEDCubeMeshLOD {
+
+    /**
+     *  The meshes from high to low detail.
+     */
+    protected final Mesh[] meshes;
+    /**
+     *  The minimal size in pixels of a LED on the screen for each mesh.
+     */
+    protected final float[] minsizes;
+    /**
+     *  The radius of a LED.
+     */
+    protected final float radius;
+    /**
+     *  Pixels per unit at distance one.
+     */
+    protected float focal;
+    /**
+     *  The maximal number of triangles of all LEDs together.
+     */
+    protected long budget;
+
+    /**
+     *  Creates the standard levels for LEDs with radius 2.
+     *  From a sphere with 64 samples down to a box.
+     */
+    public LEDCubeMeshLOD() {
+        this(
+            new Mesh[] {
+                new Sphere( 64, 64, 2f ),
+                new Sphere( 24, 24, 2f ),
+                new Sphere( 10, 10, 2f ),
+                new Box( 1.5f, 1.5f, 1.5f )
+            },
+            new float[] { 48f, 16f, 6f, 0f },
+            2f
+        );
+    }
+
+    /**
+     *  Creates levels of detail.
+     *
+     *  @param meshes the meshes from high to low detail
+     *  @param minsizes the minimal size in pixels of a LED on the screen for each mesh
+     *  @param radius the radius of a LED
+     */
+    public LEDCubeMeshLOD( Mesh[] meshes, float[] minsizes, float radius ) {
+        if( meshes.length == 0 || meshes.length != minsizes.length ) {
+            throw new IllegalArgumentException( "Each mesh needs a minimal size." );
+        }
+        this.meshes = meshes;
+        this.minsizes = minsizes;
+        this.radius = radius;
+        // 45 degree field of view with 600 pixels height
+        this.focal = 600f / ( 2f * (float) Math.tan( Math.toRadians( 22.5 ) ) );
+        this.budget = 2000000L;
+    }
+
+    /**
+     *  @return the number of levels
+     */
+    public int getLevels() {
+        return meshes.length;
+    }
+
+    /**
+     *  Returns the mesh of a level.
+     *
+     *  @param level the level, 0 is the highest detail
+     *  @return the mesh of the level
+     */
+    public Mesh getMesh( int level ) {
+        return meshes[level];
+    }
+
+    /**
+     *  Sets the projection of the camera.
+     *
+     *  @param height the height of the screen in pixels
+     *  @param fovy the vertical field of view in degrees
+     */
+    public void setProjection( int height, float fovy ) {
+        this.focal = height / ( 2f * (float) Math.tan( Math.toRadians( fovy / 2f ) ) );
+    }
+
+    /**
+     *  Sets the maximal number of triangles of all LEDs together.
+     *
+     *  @param budget the maximal number of triangles
+     */
+    public void setTriangleBudget( long budget ) {
+        this.budget = budget;
+    }
+
+    /**
+     *  @return the maximal number of triangles of all LEDs together
+     */
+    public long getTriangleBudget() {
+        return budget;
+    }
+
+    /**
+     *  Chooses the level for a cube seen from a distance.
+     *  The lowest level is used if no other level fits.
+     *
+     *  @param dim the dimension of the cube
+     *  @param distance the distance of the camera, 0 if unknown
+     *  @return the level to use
+     */
+    public int select( LEDCubeDimension dim, float distance ) {
+        long leds = (long) dim.getWidth() * dim.getHeight() * dim.getDepth();
+        float size = Float.MAX_VALUE;
+        if( distance > 0f ) {
+            size = 2f * radius * focal / distance;
+        }
+        for( int ai = 0; ai < meshes.length - 1; ai++ ) {
+            if( size >= minsizes[ai] && meshes[ai].getTriangleCount() * leds <= budget ) {
+                return ai;
+            }
+        }
+        return meshes.length - 1;
+    }
+
+}
@@ -17,20 +17,25 @@
  *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
  *
  */
-package de.reimanndaniel.ledcube.system;
+package de.reimanndaniel.ledcube.viewer;
 
 import com.jme3.asset.AssetManager;
 import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
-import com.jme3.scene.shape.Sphere;
-import java.util.HashMap;
+import de.reimanndaniel.ledcube.metrics.LEDCubeFrameEvent;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeChange;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
 import java.util.Observable;
 import java.util.Observer;
 
 /**
  *  The view and 3D node of the LED cube.
+ *  Adapts the headless cube to jMonkeyEngine.
  *
  *  @author Daniel Reimann <coding@reimanndaniel.de>
  *  @version 0.9.0
@@ -62,7 +67,15 @@ public class LEDCubeViewer extends Node implements Observer {
     /**
      *  A material cache.
      */
-    protected HashMap<ColorRGBA,Material> colmap;
+    protected final LEDCubeMaterialCache colmap;
+    /**
+     *  The levels of detail of the LEDs.
+     */
+    protected final LEDCubeMeshLOD lod;
+    /**
+     *  The current level of detail.
+     */
+    protected int level;
 
     /**
      *  Creates a viewer for a LED cube.
@@ -71,11 +84,34 @@ public class LEDCubeViewer extends Node implements Observer {
      *  @param assetman the asset manager of the LED cube
      */
     public LEDCubeViewer( LEDCube cube, AssetManager assetman ) {
+        this( cube, assetman, new LEDCubeMeshLOD() );
+    }
+
+    /**
+     *  Creates a viewer for a LED cube with special levels of detail.
+     *
+     *  @param cube the cube to view
+     *  @param assetman the asset manager of the LED cube
+     *  @param lod the levels of detail of the LEDs
+     */
+    public LEDCubeViewer( LEDCube cube, AssetManager assetman, LEDCubeMeshLOD lod ) {
+        this( cube, assetman, lod, new LEDCubeMaterialCache( assetman, cube.getDimension() ) );
+    }
+
+    /**
+     *  Creates a viewer for a LED cube with special levels of detail and
+     *  a special material cache.
+     *
+     *  @param cube the cube to view
+     *  @param assetman the asset manager of the LED cube
+     *  @param lod the levels of detail of the LEDs
+     *  @param colmap the material cache
+     */
+    public LEDCubeViewer( LEDCube cube, AssetManager assetman, LEDCubeMeshLOD lod, LEDCubeMaterialCache colmap ) {
         this.cube = cube;
         this.assetman = assetman;
-        LEDCubeDimension dim = cube.getDimension();
-        this.view = new Geometry[dim.getWidth()][dim.getHeight()][dim.getDepth()];
-        this.colmap = new HashMap<ColorRGBA, Material>();
+        this.lod = lod;
+        this.colmap = colmap;
     }
 
     /**
@@ -85,6 +121,13 @@ public class LEDCubeViewer extends Node implements Observer {
         return cube;
     }
 
+    /**
+     *  @return the material cache of the viewer
+     */
+    public LEDCubeMaterialCache getMaterialCache() {
+        return colmap;
+    }
+
     /**
      *  Paints the LED cube.
      */
@@ -96,6 +139,7 @@ public class LEDCubeViewer extends Node implements Observer {
         cube.addObserver( this );
         // calc
         LEDCubeDimension dim = cube.getDimension();
+        view = new Geometry[dim.getWidth()][dim.getHeight()][dim.getDepth()];
         float totalx = ( dim.getWidth() - 1 ) * distbetled[0];
         float totaly = ( dim.getHeight() - 1 ) * distbetled[1];
         float totalz = ( dim.getDepth() - 1 ) * distbetled[2];
@@ -105,13 +149,15 @@ public class LEDCubeViewer extends Node implements Observer {
         float rz = totalz / 2 * -1;
 
         // led objects
-        Sphere ledshape = new Sphere( 64, 64, 2f );
+        level = lod.select( dim, 0f );
+        Mesh ledshape = lod.getMesh( level );
+        int index = 0;
         for( int ax = 0; ax < dim.getWidth(); ax++ ) {
             for( int ay = 0; ay < dim.getHeight(); ay++ ) {
                 for( int az = 0; az < dim.getDepth(); az++ ) {
                     Geometry geo = new Geometry( "LED", ledshape );
                     geo.setLocalTranslation( rx, ry, rz );
-                    geo.setMaterial( getColorMat( cube.getColor( new LEDCubePoint( ax, ay, az ) ) ) );
+                    geo.setMaterial( colmap.get( cube.getRGBA( index++ ) ) );
                     view[ax][ay][az] = geo;
                     this.attachChild( view[ax][ay][az] );
                     rz += distbetled[2];
@@ -134,11 +180,45 @@ public class LEDCubeViewer extends Node implements Observer {
             return;
         }
         LEDCubeDimension dim = cube.getDimension();
+        int index = 0;
         for( int ax = 0; ax < dim.getWidth(); ax++ ) {
             for( int ay = 0; ay < dim.getHeight(); ay++ ) {
                 for( int az = 0; az < dim.getDepth(); az++ ) {
                     Geometry geo = view[ax][ay][az];
-                    geo.setMaterial( getColorMat( cube.getColor( new LEDCubePoint( ax, ay, az ) ) ) );
+                    geo.setMaterial( colmap.get( cube.getRGBA( index++ ) ) );
+                }
+            }
+        }
+    }
+
+    /**
+     *  Chooses the level of detail of the LEDs for a camera distance.
+     *  Should be called when the camera moves.
+     *
+     *  @param distance the distance of the camera to the cube
+     */
+    public void updateLOD( float distance ) {
+        if( init == false ) {
+            return;
+        }
+        int next = lod.select( cube.getDimension(), distance );
+        if( next != level ) {
+            level = next;
+            changeLEDShape( lod.getMesh( level ) );
+        }
+    }
+
+    /**
+     *  Changes the shape of all LEDs.
+     *
+     *  @param ledshape the new shape of a LED
+     */
+    protected void changeLEDShape( Mesh ledshape ) {
+        LEDCubeDimension dim = cube.getDimension();
+        for( int ax = 0; ax < dim.getWidth(); ax++ ) {
+            for( int ay = 0; ay < dim.getHeight(); ay++ ) {
+                for( int az = 0; az < dim.getDepth(); az++ ) {
+                    view[ax][ay][az].setMesh( ledshape );
                 }
             }
         }
@@ -153,36 +233,39 @@ public class LEDCubeViewer extends Node implements Observer {
     @Override
     public void update( Observable o, Object arg ) {
         if( o == cube ) {
+            LEDCubeFrameEvent event = LEDCubeFrameEvent.begin( LEDCubeFrameEvent.StageView );
+            int size = 1;
             if( arg instanceof LEDCubeLight ) {
                 LEDCubeLight light = (LEDCubeLight) arg;
                 Geometry geo = view[light.getX()][light.getY()][light.getZ()];
-                geo.setMaterial( getColorMat( light.getColor() ) );
+                geo.setMaterial( colmap.get( light.getColor() ) );
+            }
+            else if( arg instanceof LEDCubeChange ) {
+                LEDCubeChange change = (LEDCubeChange) arg;
+                size = change.size();
+                LEDCubeDimension dim = change.getDimension();
+                for( int ai = change.nextChanged( 0 ); ai >= 0; ai = change.nextChanged( ai + 1 ) ) {
+                    Geometry geo = view[dim.getX( ai )][dim.getY( ai )][dim.getZ( ai )];
+                    geo.setMaterial( colmap.get( cube.getRGBA( ai ) ) );
+                }
             }
             else if( arg == null ) {
                 repaint();
+                size = cube.getDimension().getVolume();
             }
+            LEDCubeFrameEvent.end( event, cube.getFrame(), size );
         }
     }
 
     /**
      *  Gets a material in a color.
-     *  Uses caching to save space.
-     *  Currently caches all colors until end of execution.
+     *  Uses the bounded material cache.
      *
      *  @param color the color of the material
      *  @return the material in the color
      */
     protected Material getColorMat( ColorRGBA color ) {
-        if( colmap.containsKey( color ) ) {
-            return colmap.get( color );
-        }
-        else {
-            Material mat = new Material( assetman, "Common/MatDefs/Misc/Unshaded.j3md" );
-            mat.setColor( "Color", color );
-            mat.setColor( "GlowColor", color );
-            colmap.put( color, mat );
-            return mat;
-        }
+        return colmap.get( LEDCubeColorRGBA.pack( color ) );
     }
 
 }
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.effect;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Asserts that the vector blender blends exactly like the scalar blender.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeBlendTest {
+
+    /**
+     *  All blend modes.
+     */
+    private static final int[] MODES = {
+        LEDCubeBlend.ModeAdd, LEDCubeBlend.ModeMax, LEDCubeBlend.ModeOver, LEDCubeBlend.ModeMultiply
+    };
+
+    /**
+     *  The vector blender, independent of the blender {@code LEDCubeBlend} chose.
+     */
+    private final LEDCubeBlender vector = new LEDCubeVectorBlender();
+
+    /**
+     *  Every pair of bytes in every channel, the alpha of the top color
+     *  changes with them.
+     */
+    @Test
+    public void everyBytePair() {
+        int[] dst = new int[65536];
+        int[] src = new int[65536];
+        for( int ai = 0; ai < dst.length; ai++ ) {
+            int d = ai >>> 8;
+            int s = ai & 0xFF;
+            dst[ai] = d << 24 | s << 16 | ( 255 - d ) << 8 | s;
+            src[ai] = s << 24 | d << 16 | ( 255 - s ) << 8 | d;
+        }
+        for( int mode: MODES ) {
+            assertBlend( mode, dst, src, dst.length );
+        }
+    }
+
+    /**
+     *  Random colors of all lengths up to several vectors, so the rest
+     *  after the vector loop is covered.
+     */
+    @Test
+    public void oddLengths() {
+        Random random = new Random( 42 );
+        for( int length = 0; length <= 131; length++ ) {
+            int[] dst = new int[length];
+            int[] src = new int[length];
+            for( int ai = 0; ai < length; ai++ ) {
+                dst[ai] = random.nextInt();
+                src[ai] = random.nextInt();
+            }
+            for( int mode: MODES ) {
+                assertBlend( mode, dst, src, length );
+            }
+        }
+    }
+
+    /**
+     *  Only the given length is blended, the colors behind it stay.
+     */
+    @Test
+    public void partialLength() {
+        int[] dst = new int[40];
+        int[] src = new int[40];
+        Arrays.fill( dst, 0x10203040 );
+        Arrays.fill( src, 0x01010101 );
+        for( int mode: MODES ) {
+            int[] actual = dst.clone();
+            vector.blend( mode, actual, src, 23 );
+            for( int ai = 23; ai < actual.length; ai++ ) {
+                assertEquals( 0x10203040, actual[ai] );
+            }
+        }
+    }
+
+    /**
+     *  The platform blender is used and blends like the scalar one.
+     */
+    @Test
+    public void chosenBlender() {
+        LEDCubeBlender blender = LEDCubeBlend.getBlender();
+        int[] dst = { 0x10203040, 0xFFFFFFFF, 0x00000000, 0x80808080 };
+        int[] src = { 0x01010101, 0x80808080, 0xFF00FF00, 0x7F7F7F7F };
+        for( int mode: MODES ) {
+            int[] expected = dst.clone();
+            int[] actual = dst.clone();
+            LEDCubeBlend.SCALAR.blend( mode, expected, src, src.length );
+            blender.blend( mode, actual, src, src.length );
+            assertArrayEquals( "mode " + mode, expected, actual );
+        }
+    }
+
+    /**
+     *  Blends with both blenders and compares the results.
+     *
+     *  @param mode the blend mode
+     *  @param dst the colors below, not changed
+     *  @param src the colors on top
+     *  @param length the number of colors
+     */
+    private void assertBlend( int mode, int[] dst, int[] src, int length ) {
+        int[] expected = dst.clone();
+        int[] actual = dst.clone();
+        LEDCubeBlend.SCALAR.blend( mode, expected, src, length );
+        vector.blend( mode, actual, src, length );
+        for( int ai = 0; ai < length; ai++ ) {
+            if( expected[ai] != actual[ai] ) {
+                assertEquals(
+                    String.format( "mode %d, length %d, at %d: %08x over %08x", mode, length, ai, src[ai], dst[ai] ),
+                    Integer.toHexString( expected[ai] ), Integer.toHexString( actual[ai] )
+                );
+            }
+        }
+    }
+
+}
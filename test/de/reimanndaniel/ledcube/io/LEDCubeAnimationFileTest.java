@@ -0,0 +1,274 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Round trips frames through the codec and animations through the
+ *  writer and the reader.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeAnimationFileTest {
+
+    /**
+     *  The odd dimension of the animations.
+     */
+    private final LEDCubeDimension dim = new LEDCubeDimension( 3, 5, 7 );
+    /**
+     *  The random colors.
+     */
+    private final Random random = new Random( 3 );
+
+    /**
+     *  Varints of all lengths.
+     */
+    @Test
+    public void varInts() {
+        int[] values = { 0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE };
+        ByteBuffer buffer = ByteBuffer.allocate( 64 );
+        for( int value: values ) {
+            LEDCubeFrameCodec.putVarInt( buffer, value );
+        }
+        buffer.flip();
+        for( int value: values ) {
+            assertEquals( value, LEDCubeFrameCodec.getVarInt( buffer ) );
+        }
+        assertFalse( buffer.hasRemaining() );
+    }
+
+    /**
+     *  Keyframes of runs and of single colors, of odd lengths.
+     */
+    @Test
+    public void keyframes() {
+        for( int length: new int[] { 1, 2, 7, 105, 1000 } ) {
+            for( int runs: new int[] { 1, 3, length } ) {
+                int[] frame = frame( length, runs );
+                ByteBuffer buffer = ByteBuffer.allocate( LEDCubeFrameCodec.maxFrameSize( length ) );
+                LEDCubeFrameCodec.encodeKeyframe( frame, buffer );
+                buffer.flip();
+                int[] decoded = new int[length];
+                Arrays.fill( decoded, 0x55555555 );
+                LEDCubeFrameCodec.decodeKeyframe( buffer, decoded );
+                assertArrayEquals( frame, decoded );
+                assertFalse( buffer.hasRemaining() );
+            }
+        }
+    }
+
+    /**
+     *  Deltas of no, some and all changed LEDs, at the ends too.
+     */
+    @Test
+    public void deltas() {
+        int length = dim.getVolume();
+        for( int changes: new int[] { 0, 1, 2, 17, length / 2, length } ) {
+            int[] prev = frame( length, 9 );
+            int[] frame = prev.clone();
+            for( int ai = 0; ai < changes; ai++ ) {
+                frame[random.nextInt( length )] ^= 1 + random.nextInt( 255 );
+            }
+            if( changes > 0 ) {
+                frame[0] ^= 0x100;
+                frame[length - 1] ^= 0x100;
+            }
+            int changed = 0;
+            for( int ai = 0; ai < length; ai++ ) {
+                if( prev[ai] != frame[ai] ) {
+                    changed++;
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.allocate( LEDCubeFrameCodec.maxFrameSize( length ) );
+            assertEquals( changed, LEDCubeFrameCodec.encodeDelta( prev, frame, buffer ) );
+            buffer.flip();
+            int[] decoded = prev.clone();
+            assertEquals( changed, LEDCubeFrameCodec.decodeDelta( buffer, decoded ) );
+            assertArrayEquals( frame, decoded );
+            assertFalse( buffer.hasRemaining() );
+        }
+    }
+
+    /**
+     *  An animation written and read again, with the record types the
+     *  writer chose.
+     *
+     *  @throws IOException if the animation could not be read
+     */
+    @Test
+    public void writeAndRead() throws IOException {
+        List<int[]> frames = new ArrayList<int[]>();
+        byte[] file = write( 40, 6, frames );
+        // frame 0 and every interval are keyframes, so is a frame changing
+        // most LEDs, an unchanged frame is an empty delta
+        byte[] types = types( file, 40 );
+        for( int ai = 0; ai < 40; ai++ ) {
+            boolean key = ai % 6 == 0 || ai % 5 == 4;
+            byte expected = key ? LEDCubeAnimationHeader.KEYFRAME : LEDCubeAnimationHeader.DELTA;
+            assertEquals( "frame " + ai, expected, types[ai] );
+        }
+        LEDCubeAnimationReader reader = new LEDCubeAnimationReader( new ByteArrayInputStream( file ) );
+        try {
+            assertEquals( dim, reader.getDimension() );
+            assertEquals( 6, reader.getHeader().getKeyframeInterval() );
+            LEDCubeState state = new LEDCubeState( dim );
+            for( int ai = 0; ai < frames.size(); ai++ ) {
+                assertTrue( reader.readFrame( state ) );
+                assertArrayEquals( "frame " + ai, frames.get( ai ), state.getBuffer() );
+            }
+            assertFalse( reader.readFrame( state ) );
+            assertEquals( 40, reader.getFrames() );
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     *  A file cut in the last frame reads all frames before it.
+     *
+     *  @throws IOException if the first frames could not be read
+     */
+    @Test
+    public void truncated() throws IOException {
+        List<int[]> frames = new ArrayList<int[]>();
+        byte[] file = write( 10, 4, frames );
+        byte[] cut = Arrays.copyOf( file, file.length - 3 );
+        LEDCubeAnimationReader reader = new LEDCubeAnimationReader( new ByteArrayInputStream( cut ) );
+        try {
+            LEDCubeState state = new LEDCubeState( dim );
+            for( int ai = 0; ai < 9; ai++ ) {
+                assertTrue( reader.readFrame( state ) );
+                assertArrayEquals( frames.get( ai ), state.getBuffer() );
+            }
+            try {
+                reader.readFrame( state );
+                throw new AssertionError( "The truncated frame was read." );
+            }
+            catch( IOException e ) {
+                // expected
+            }
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     *  A file cut in the header can not be opened.
+     *
+     *  @throws IOException always
+     */
+    @Test( expected = IOException.class )
+    public void truncatedHeader() throws IOException {
+        byte[] file = write( 1, 4, new ArrayList<int[]>() );
+        new LEDCubeAnimationReader( new ByteArrayInputStream( Arrays.copyOf( file, LEDCubeAnimationHeader.SIZE - 1 ) ) );
+    }
+
+    /**
+     *  Writes an animation of small changes, unchanged frames and frames
+     *  that change all LEDs.
+     *
+     *  @param count the number of frames
+     *  @param interval the keyframe interval
+     *  @param frames receives the written frames
+     *  @return the file
+     *  @throws IOException if the animation could not be written
+     */
+    private byte[] write( int count, int interval, List<int[]> frames ) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LEDCubeAnimationWriter writer = new LEDCubeAnimationWriter( out, new LEDCubeAnimationHeader( dim, interval, 25f ) );
+        LEDCubeState state = new LEDCubeState( dim );
+        int[] leds = state.getBuffer();
+        for( int ai = 0; ai < count; ai++ ) {
+            int kind = ai % 5;
+            if( kind == 4 ) {
+                System.arraycopy( frame( leds.length, leds.length ), 0, leds, 0, leds.length );
+            }
+            else if( kind != 0 ) {
+                for( int bi = 0; bi < kind * 3; bi++ ) {
+                    leds[random.nextInt( leds.length )] = random.nextInt();
+                }
+            }
+            writer.writeFrame( state );
+            frames.add( leds.clone() );
+        }
+        writer.close();
+        assertEquals( count, writer.getFrames() );
+        return out.toByteArray();
+    }
+
+    /**
+     *  Returns the types of the records of a file.
+     *
+     *  @param file the file
+     *  @param count the number of frames
+     *  @return the type of each frame
+     */
+    private byte[] types( byte[] file, int count ) {
+        ByteBuffer in = ByteBuffer.wrap( file );
+        byte[] types = new byte[count];
+        int pos = LEDCubeAnimationHeader.SIZE;
+        for( int ai = 0; ai < count; ai++ ) {
+            types[ai] = in.get( pos );
+            pos += LEDCubeAnimationHeader.RECORD_SIZE + in.getInt( pos + 1 );
+        }
+        assertEquals( file.length, pos );
+        return types;
+    }
+
+    /**
+     *  Creates a frame of runs of random colors.
+     *
+     *  @param length the number of LEDs
+     *  @param runs the number of runs
+     *  @return the packed colors
+     */
+    private int[] frame( int length, int runs ) {
+        int[] frame = new int[length];
+        int color = random.nextInt();
+        for( int ai = 0; ai < length; ai++ ) {
+            if( random.nextInt( length ) < runs ) {
+                color = random.nextInt();
+            }
+            frame[ai] = color;
+        }
+        return frame;
+    }
+
+}
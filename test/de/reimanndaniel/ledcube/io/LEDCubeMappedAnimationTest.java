@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.io;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Asserts that seeking in a mapped animation gives the same frames as
+ *  reading it from the start.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeMappedAnimationTest {
+
+    /**
+     *  The frames between two forced keyframes.
+     */
+    private static final int INTERVAL = 7;
+    /**
+     *  The number of frames of the animation.
+     */
+    private static final int FRAMES = 50;
+
+    /**
+     *  The folder of the animation file.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     *  The odd dimension of the animation.
+     */
+    private final LEDCubeDimension dim = new LEDCubeDimension( 3, 4, 5 );
+    /**
+     *  The written frames.
+     */
+    private List<int[]> frames;
+    /**
+     *  The mapped animation.
+     */
+    private LEDCubeMappedAnimation mapped;
+
+    /**
+     *  Writes an animation of small changes, unchanged frames and frames
+     *  that change most LEDs.
+     *
+     *  @throws IOException if the file could not be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        Random random = new Random( 7 );
+        File file = folder.newFile( "anime.ledcube" );
+        frames = new ArrayList<int[]>();
+        LEDCubeState state = new LEDCubeState( dim );
+        LEDCubeAnimationWriter writer = new LEDCubeAnimationWriter(
+            new FileOutputStream( file ), new LEDCubeAnimationHeader( dim, INTERVAL, 30f )
+        );
+        try {
+            for( int ai = 0; ai < FRAMES; ai++ ) {
+                int[] leds = state.getBuffer();
+                int kind = ai % 5;
+                int changes = kind == 0 ? 0 : kind == 4 ? leds.length : 1 + random.nextInt( 6 );
+                for( int bi = 0; bi < changes; bi++ ) {
+                    leds[random.nextInt( leds.length )] = random.nextInt();
+                }
+                writer.writeFrame( state );
+                frames.add( leds.clone() );
+            }
+        }
+        finally {
+            writer.close();
+        }
+        mapped = new LEDCubeMappedAnimation( file );
+    }
+
+    /**
+     *  Closes the animation.
+     *
+     *  @throws IOException if the file could not be closed
+     */
+    @After
+    public void tearDown() throws IOException {
+        mapped.close();
+    }
+
+    /**
+     *  Reading from the start gives the written frames.
+     */
+    @Test
+    public void sequential() {
+        assertEquals( FRAMES, mapped.getFrameCount() );
+        LEDCubeState state = new LEDCubeState( dim );
+        for( int ai = 0; ai < FRAMES; ai++ ) {
+            assertTrue( mapped.next( state ) );
+            assertArrayEquals( "frame " + ai, frames.get( ai ), state.getBuffer() );
+        }
+        assertFalse( mapped.next( state ) );
+    }
+
+    /**
+     *  Every frame in random order, each read after a seek and once more
+     *  after it, across the keyframe boundaries.
+     */
+    @Test
+    public void randomSeeks() {
+        List<Integer> order = new ArrayList<Integer>();
+        for( int ai = 0; ai < FRAMES; ai++ ) {
+            order.add( ai );
+        }
+        Collections.shuffle( order, new Random( 11 ) );
+        LEDCubeState state = new LEDCubeState( dim );
+        for( int frame: order ) {
+            mapped.seek( frame );
+            assertTrue( mapped.next( state ) );
+            assertArrayEquals( "frame " + frame, frames.get( frame ), state.getBuffer() );
+            if( frame + 1 < FRAMES ) {
+                assertTrue( mapped.next( state ) );
+                assertArrayEquals( "frame " + ( frame + 1 ), frames.get( frame + 1 ), state.getBuffer() );
+            }
+        }
+        mapped.seek( FRAMES );
+        assertFalse( mapped.next( state ) );
+    }
+
+    /**
+     *  A seek decodes the frame completely even if someone else changed
+     *  the state since the last read.
+     */
+    @Test
+    public void seekIntoChangedState() {
+        LEDCubeState state = new LEDCubeState( dim );
+        for( int ai = 0; ai < INTERVAL + 3; ai++ ) {
+            mapped.next( state );
+        }
+        state.fill( 0x12345678 );
+        mapped.seek( mapped.getPosition() );
+        assertTrue( mapped.next( state ) );
+        assertArrayEquals( frames.get( INTERVAL + 3 ), state.getBuffer() );
+    }
+
+}
@@ -0,0 +1,464 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.net;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *  Streams frames over loopback through a relay that can drop and
+ *  reorder the datagrams of the server.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeStreamTest {
+
+    /**
+     *  Nanoseconds to wait for datagrams on loopback.
+     */
+    private static final long TIMEOUT = 5000000000L;
+
+    /**
+     *  The dimension of the frames, a keyframe needs several fragments.
+     */
+    private final LEDCubeDimension dim = new LEDCubeDimension( 16 );
+    /**
+     *  The server.
+     */
+    private LEDCubeStreamServer server;
+    /**
+     *  The relay between server and client.
+     */
+    private Relay relay;
+    /**
+     *  The client.
+     */
+    private LEDCubeStreamClient client;
+    /**
+     *  The frame sent by the server.
+     */
+    private LEDCubeState sent;
+    /**
+     *  The frame received by the client.
+     */
+    private LEDCubeState received;
+    /**
+     *  Creates the frames.
+     */
+    private Random random;
+
+    /**
+     *  Starts server, relay and client and waits for the subscription.
+     *
+     *  @throws IOException if a socket failed
+     */
+    @Before
+    public void setUp() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        server = new LEDCubeStreamServer( new InetSocketAddress( loopback, 0 ), dim );
+        relay = new Relay( server.getAddress() );
+        client = new LEDCubeStreamClient( relay.getAddress(), dim );
+        sent = new LEDCubeState( dim );
+        received = new LEDCubeState( dim );
+        random = new Random( 7 );
+        subscribe();
+    }
+
+    /**
+     *  Closes all sockets.
+     *
+     *  @throws IOException if a socket could not be closed
+     */
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        relay.close();
+        server.close();
+    }
+
+    /**
+     *  The first frame is a keyframe in fragments, the following frames
+     *  are deltas to the acknowledged frames.
+     *
+     *  @throws IOException if a socket failed
+     */
+    @Test
+    public void keyframesAndDeltas() throws IOException {
+        randomize( dim.getVolume() );
+        sendAndReceive();
+        assertTrue( relay.forwarded > 1 );
+        waitForAck();
+        for( int ai = 0; ai < 10; ai++ ) {
+            randomize( 20 );
+            sendAndReceive();
+            waitForAck();
+        }
+        LEDCubeStreamPeer peer = server.getPeers().iterator().next();
+        assertEquals( 11, peer.getSent() );
+        assertEquals( 1, peer.getKeyframes() );
+        assertEquals( 11, client.getFrames() );
+        assertEquals( 0, client.getLost() );
+        assertTrue( peer.getRoundTrip() >= 0 );
+    }
+
+    /**
+     *  A frame with a dropped fragment is lost, the next frame is a delta
+     *  to the last acknowledged frame and decodes again.
+     *
+     *  @throws IOException if a socket failed
+     */
+    @Test
+    public void droppedDatagram() throws IOException {
+        randomize( dim.getVolume() );
+        sendAndReceive();
+        waitForAck();
+        int acked = server.getPeers().iterator().next().getAcked();
+        randomize( 50 );
+        relay.drop = 1;
+        server.send( sent );
+        relay.pump();
+        client.poll();
+        assertEquals( 0, relay.drop );
+        randomize( 50 );
+        sendAndReceive();
+        assertEquals( 1, client.getLost() );
+        assertEquals( 1, server.getPeers().iterator().next().getKeyframes() );
+        assertEquals( acked + 2, client.getSequence() );
+    }
+
+    /**
+     *  Fragments out of order are assembled, a frame older than the newest
+     *  decoded frame is skipped.
+     *
+     *  @throws IOException if a socket failed
+     */
+    @Test
+    public void reordering() throws IOException {
+        randomize( dim.getVolume() );
+        relay.hold = true;
+        server.send( sent );
+        relay.pump();
+        relay.release( true );
+        receive();
+        assertArrayEquals( sent.getBuffer(), received.getBuffer() );
+        waitForAck();
+        // hold a frame back and let the next one pass
+        randomize( 30 );
+        relay.hold = true;
+        server.send( sent );
+        relay.pump();
+        relay.hold = false;
+        randomize( 30 );
+        sendAndReceive();
+        int newest = client.getSequence();
+        relay.release( false );
+        client.poll();
+        client.next( received );
+        assertEquals( newest, client.getSequence() );
+        assertArrayEquals( sent.getBuffer(), received.getBuffer() );
+    }
+
+    /**
+     *  A restarted server starts its sequence numbers again, the client
+     *  follows its new session.
+     *
+     *  @throws IOException if a socket failed
+     */
+    @Test
+    public void restartedServer() throws IOException {
+        for( int ai = 0; ai < 20; ai++ ) {
+            randomize( 10 );
+            sendAndReceive();
+            waitForAck();
+        }
+        int session = client.getSession();
+        SocketAddress address = server.getAddress();
+        server.close();
+        server = new LEDCubeStreamServer( address, dim );
+        relay.relink( address );
+        subscribe();
+        randomize( 10 );
+        sendAndReceive();
+        assertEquals( 0, client.getSequence() );
+        assertEquals( server.getSession(), client.getSession() );
+        assertTrue( session != client.getSession() );
+    }
+
+    /**
+     *  Waits until the server knows the client.
+     *
+     *  @throws IOException if a socket failed
+     */
+    private void subscribe() throws IOException {
+        long start = System.nanoTime();
+        while( server.getPeers().isEmpty() ) {
+            relay.resendHello( client );
+            relay.pump();
+            server.poll();
+            check( start );
+        }
+    }
+
+    /**
+     *  Sends the frame and waits until the client has it.
+     *
+     *  @throws IOException if a socket failed
+     */
+    private void sendAndReceive() throws IOException {
+        server.send( sent );
+        relay.pump();
+        receive();
+        assertArrayEquals( sent.getBuffer(), received.getBuffer() );
+    }
+
+    /**
+     *  Waits until the client decoded a new frame.
+     *
+     *  @throws IOException if a socket failed
+     */
+    private void receive() throws IOException {
+        long frames = client.getFrames();
+        long start = System.nanoTime();
+        while( client.getFrames() == frames ) {
+            relay.pump();
+            client.poll();
+            check( start );
+        }
+        client.next( received );
+    }
+
+    /**
+     *  Waits until the server got the acknowledgement of the newest frame.
+     *
+     *  @throws IOException if a socket failed
+     */
+    private void waitForAck() throws IOException {
+        long start = System.nanoTime();
+        while( server.getPeers().iterator().next().getAcked() != client.getSequence() ) {
+            relay.pump();
+            server.poll();
+            check( start );
+        }
+    }
+
+    /**
+     *  Changes random LEDs of the sent frame.
+     *
+     *  @param count the number of changed LEDs
+     */
+    private void randomize( int count ) {
+        int[] buffer = sent.getBuffer();
+        for( int ai = 0; ai < count; ai++ ) {
+            buffer[random.nextInt( buffer.length )] = random.nextInt();
+        }
+    }
+
+    /**
+     *  Fails if waiting took too long.
+     *
+     *  @param start the start of waiting in nanoseconds
+     */
+    private static void check( long start ) {
+        if( System.nanoTime() - start > TIMEOUT ) {
+            fail( "No datagram arrived on loopback." );
+        }
+        Thread.yield();
+    }
+
+    /**
+     *  Forwards datagrams between a client and a server.
+     *  Frame fragments of the server can be dropped or held back.
+     */
+    private static class Relay {
+
+        /**
+         *  The socket the client talks to.
+         */
+        private final DatagramChannel front;
+        /**
+         *  The socket that talks to the server.
+         */
+        private DatagramChannel back;
+        /**
+         *  The address of the client.
+         */
+        private SocketAddress client;
+        /**
+         *  The buffer for a datagram.
+         */
+        private final ByteBuffer buffer;
+        /**
+         *  The held back fragments of the server.
+         */
+        private final List<ByteBuffer> held;
+        /**
+         *  The number of fragments of the server to drop.
+         */
+        int drop;
+        /**
+         *  Whether fragments of the server are held back.
+         */
+        boolean hold;
+        /**
+         *  The number of fragments of the server sent to the client.
+         */
+        int forwarded;
+
+        /**
+         *  Creates a relay to a server.
+         *
+         *  @param server the address of the server
+         *  @throws IOException if a socket failed
+         */
+        Relay( SocketAddress server ) throws IOException {
+            front = DatagramChannel.open();
+            front.configureBlocking( false );
+            front.bind( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+            buffer = ByteBuffer.allocate( LEDCubeStreamProtocol.PACKET_SIZE );
+            held = new ArrayList<ByteBuffer>();
+            relink( server );
+        }
+
+        /**
+         *  @return the address for the client
+         *  @throws IOException if the socket is closed
+         */
+        SocketAddress getAddress() throws IOException {
+            return front.getLocalAddress();
+        }
+
+        /**
+         *  Talks to a new server.
+         *
+         *  @param server the address of the server
+         *  @throws IOException if a socket failed
+         */
+        void relink( SocketAddress server ) throws IOException {
+            if( back != null ) {
+                back.close();
+            }
+            back = DatagramChannel.open();
+            back.configureBlocking( false );
+            back.connect( server );
+        }
+
+        /**
+         *  Sends a hello for the client now instead of after a second.
+         *
+         *  @param target the client
+         *  @throws IOException if a socket failed
+         */
+        void resendHello( LEDCubeStreamClient target ) throws IOException {
+            ByteBuffer hello = ByteBuffer.allocate( LEDCubeStreamProtocol.PACKET_SIZE );
+            LEDCubeStreamProtocol.putHello( hello, target.getDimension() );
+            hello.flip();
+            back.write( hello );
+        }
+
+        /**
+         *  Forwards all waiting datagrams.
+         *
+         *  @throws IOException if a socket failed
+         */
+        void pump() throws IOException {
+            long idle = System.nanoTime();
+            // loopback delivers within a moment, wait a little for stragglers
+            while( System.nanoTime() - idle < 5000000L ) {
+                boolean moved = false;
+                buffer.clear();
+                SocketAddress from = front.receive( buffer );
+                if( from != null ) {
+                    client = from;
+                    buffer.flip();
+                    back.write( buffer );
+                    moved = true;
+                }
+                buffer.clear();
+                if( back.read( buffer ) > 0 ) {
+                    buffer.flip();
+                    if( drop > 0 ) {
+                        drop--;
+                    }
+                    else if( hold ) {
+                        ByteBuffer copy = ByteBuffer.allocate( buffer.remaining() );
+                        copy.put( buffer ).flip();
+                        held.add( copy );
+                    }
+                    else if( client != null ) {
+                        front.send( buffer, client );
+                        forwarded++;
+                    }
+                    moved = true;
+                }
+                if( moved ) {
+                    idle = System.nanoTime();
+                }
+                else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         *  Sends the held back fragments to the client.
+         *
+         *  @param reverse whether to send them in reverse order
+         *  @throws IOException if a socket failed
+         */
+        void release( boolean reverse ) throws IOException {
+            hold = false;
+            for( int ai = 0; ai < held.size(); ai++ ) {
+                front.send( held.get( reverse ? held.size() - 1 - ai : ai ), client );
+            }
+            held.clear();
+        }
+
+        /**
+         *  Closes the sockets.
+         *
+         *  @throws IOException if a socket could not be closed
+         */
+        void close() throws IOException {
+            front.close();
+            back.close();
+        }
+
+    }
+
+}
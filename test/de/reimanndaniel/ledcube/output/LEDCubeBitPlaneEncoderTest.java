@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.output;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Asserts the bit planes of known states and compares random states with
+ *  a straight decoder of the format.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeBitPlaneEncoderTest {
+
+    /**
+     *  The channels of each order, indexed by the order.
+     */
+    private static final String[] ORDERS = { null, "RGB", "RBG", "GRB", "GBR", "BRG", "BGR" };
+
+    /**
+     *  The random colors.
+     */
+    private final Random random = new Random( 11 );
+
+    /**
+     *  Single LEDs set in a 2x2x2 cube, 12 channels and 2 bytes per plane.
+     */
+    @Test
+    public void singleLEDs() {
+        LEDCubeDimension dim = new LEDCubeDimension( 2 );
+        LEDCubeBitPlaneEncoder encoder = new LEDCubeBitPlaneEncoder( dim );
+        assertEquals( 2, encoder.getPlaneSize() );
+        assertEquals( 2 * 8 * 2, encoder.getFrameSize() );
+        LEDCubeState state = new LEDCubeState( dim );
+        // the top bit of red of the first LED of the bottom layer
+        state.setRGBA( 0, 0, 0, 0x800000FF );
+        // the lowest bit of green of the last LED of the top layer
+        state.setRGBA( 1, 1, 1, 0x000100FF );
+        byte[] expected = new byte[32];
+        expected[0] = (byte) 0x80;
+        // layer 1, plane of bit 0, channel 10
+        expected[16 + 7 * 2 + 1] = (byte) 0x20;
+        assertBytes( expected, encoder.encode( state ) );
+    }
+
+    /**
+     *  Each order moves the channels of a LED to their place.
+     */
+    @Test
+    public void orders() {
+        LEDCubeDimension dim = new LEDCubeDimension( 1 );
+        LEDCubeState state = new LEDCubeState( dim );
+        // red, green and blue each have another bit set
+        state.setRGBA( 0, 0, 0, 0x804020FF );
+        for( int order = LEDCubeBitPlaneEncoder.OrderRGB; order <= LEDCubeBitPlaneEncoder.OrderBGR; order++ ) {
+            LEDCubeBitPlaneEncoder encoder = new LEDCubeBitPlaneEncoder( dim, 8, order, null );
+            byte[] expected = new byte[8];
+            expected[0] = (byte) ( 0x80 >>> ORDERS[order].indexOf( 'R' ) );
+            expected[1] = (byte) ( 0x80 >>> ORDERS[order].indexOf( 'G' ) );
+            expected[2] = (byte) ( 0x80 >>> ORDERS[order].indexOf( 'B' ) );
+            assertBytes( expected, encoder.encode( state ) );
+            assertRandom( encoder, null );
+        }
+    }
+
+    /**
+     *  A permuted wiring puts each LED of a layer to its output position.
+     */
+    @Test
+    public void wiring() {
+        LEDCubeDimension dim = new LEDCubeDimension( 3, 2, 2 );
+        int[] wiring = { 5, 3, 1, 0, 2, 4 };
+        LEDCubeBitPlaneEncoder encoder = new LEDCubeBitPlaneEncoder( dim, 8, LEDCubeBitPlaneEncoder.OrderRGB, wiring );
+        LEDCubeState state = new LEDCubeState( dim );
+        // LED x = 2, z = 1 is wired first, only its blue has bit 7 set
+        state.setRGBA( 2, 0, 1, 0x000080FF );
+        byte[] expected = new byte[encoder.getFrameSize()];
+        expected[0] = (byte) 0x20;
+        assertBytes( expected, encoder.encode( state ) );
+        assertRandom( encoder, wiring );
+    }
+
+    /**
+     *  A wiring that maps a LED twice is rejected.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void doubleWiring() {
+        new LEDCubeBitPlaneEncoder( new LEDCubeDimension( 3, 2, 2 ), 8, LEDCubeBitPlaneEncoder.OrderRGB, new int[] { 5, 3, 1, 0, 2, 3 } );
+    }
+
+    /**
+     *  Depth 1 keeps the top bit of each channel, depth 8 all of them.
+     */
+    @Test
+    public void depths() {
+        LEDCubeDimension dim = new LEDCubeDimension( 5, 3, 4 );
+        LEDCubeBitPlaneEncoder one = new LEDCubeBitPlaneEncoder( dim, 1, LEDCubeBitPlaneEncoder.OrderGRB, null );
+        assertEquals( 8, one.getPlaneSize() );
+        assertEquals( 3 * 8, one.getFrameSize() );
+        LEDCubeState state = new LEDCubeState( dim );
+        state.setRGBA( 0, 0, 0, 0x7F80FFFF );
+        byte[] expected = new byte[24];
+        // green, then red below half, then blue
+        expected[0] = (byte) 0xA0;
+        assertBytes( expected, one.encode( state ) );
+        assertRandom( one, null );
+        LEDCubeBitPlaneEncoder eight = new LEDCubeBitPlaneEncoder( dim, 8, LEDCubeBitPlaneEncoder.OrderGRB, null );
+        assertEquals( 3 * 8 * 8, eight.getFrameSize() );
+        assertRandom( eight, null );
+    }
+
+    /**
+     *  Asserts the bytes of an encoded frame.
+     *
+     *  @param expected the expected bytes
+     *  @param frame the encoded frame
+     */
+    private void assertBytes( byte[] expected, ByteBuffer frame ) {
+        assertEquals( 0, frame.position() );
+        assertEquals( expected.length, frame.limit() );
+        for( int ai = 0; ai < expected.length; ai++ ) {
+            assertEquals( "byte " + ai, expected[ai], frame.get( ai ) );
+        }
+    }
+
+    /**
+     *  Encodes a random state and decodes each channel bit by bit.
+     *
+     *  @param encoder the encoder
+     *  @param wiring the wiring of the encoder, null for row by row
+     */
+    private void assertRandom( LEDCubeBitPlaneEncoder encoder, int[] wiring ) {
+        LEDCubeDimension dim = encoder.getDimension();
+        int depth = encoder.getDepth();
+        String order = ORDERS[encoder.getOrder()];
+        LEDCubeState state = new LEDCubeState( dim );
+        int[] leds = state.getBuffer();
+        for( int ai = 0; ai < leds.length; ai++ ) {
+            leds[ai] = random.nextInt();
+        }
+        ByteBuffer frame = encoder.encode( state );
+        int layer = dim.getWidth() * dim.getDepth();
+        int planesize = encoder.getPlaneSize();
+        assertEquals( dim.getHeight() * depth * planesize, frame.limit() );
+        for( int y = 0; y < dim.getHeight(); y++ ) {
+            for( int pos = 0; pos < layer; pos++ ) {
+                int led = wiring == null ? pos : wiring[pos];
+                int color = state.getRGBA( led / dim.getDepth(), y, led % dim.getDepth() );
+                for( int ci = 0; ci < 3; ci++ ) {
+                    int shift = 24 - 8 * "RGB".indexOf( order.charAt( ci ) );
+                    int value = 0;
+                    for( int plane = 0; plane < depth; plane++ ) {
+                        int bit = pos * 3 + ci;
+                        int at = ( y * depth + plane ) * planesize + bit / 8;
+                        value = ( value << 1 ) | ( ( frame.get( at ) >>> ( 7 - bit % 8 ) ) & 1 );
+                    }
+                    assertEquals( ( ( color >>> shift ) & 0xFF ) >>> ( 8 - depth ), value );
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.output;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Sends frames through a non-blocking pipe that fills up, so frames are
+ *  pending and states wait for them.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeOutputTest {
+
+    /**
+     *  The dimension of the states, 12288 bytes per frame.
+     */
+    private final LEDCubeDimension dim = new LEDCubeDimension( 16 );
+    /**
+     *  The pipe to the controller.
+     */
+    private Pipe pipe;
+    /**
+     *  The output writing into the pipe.
+     */
+    private LEDCubeOutput output;
+
+    /**
+     *  Opens the pipe.
+     *
+     *  @throws IOException if the pipe could not be opened
+     */
+    @Before
+    public void open() throws IOException {
+        pipe = Pipe.open();
+        pipe.sink().configureBlocking( false );
+        pipe.source().configureBlocking( false );
+        output = new LEDCubeOutput( pipe.sink(), new LEDCubeBitPlaneEncoder( dim ) );
+    }
+
+    /**
+     *  Closes the pipe.
+     *
+     *  @throws IOException if the pipe could not be closed
+     */
+    @After
+    public void close() throws IOException {
+        output.close();
+        pipe.source().close();
+    }
+
+    /**
+     *  Only whole frames arrive, the newest waiting state is sent last and
+     *  older waiting states are dropped.
+     *
+     *  @throws IOException if the pipe failed
+     */
+    @Test
+    public void pendingAndLatest() throws IOException {
+        List<LEDCubeState> sent = new ArrayList<LEDCubeState>();
+        int color = 0;
+        // fill the pipe until a state has to wait for a pending frame
+        LEDCubeState state = state( color++ );
+        while( output.write( state ) ) {
+            sent.add( state );
+            state = state( color++ );
+            assertTrue( "the pipe never filled", sent.size() < 1000 );
+        }
+        assertEquals( 0, output.getDropped() );
+        // the waiting state is replaced twice
+        assertFalse( output.write( state( color++ ) ) );
+        assertEquals( 1, output.getDropped() );
+        LEDCubeState latest = state( color++ );
+        assertFalse( output.write( latest ) );
+        assertEquals( 2, output.getDropped() );
+        sent.add( latest );
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate( 4096 );
+        boolean done = false;
+        while( true ) {
+            buffer.clear();
+            int read = pipe.source().read( buffer );
+            received.write( buffer.array(), 0, read );
+            if( done && read == 0 ) {
+                break;
+            }
+            done = output.flush();
+        }
+
+        LEDCubeBitPlaneEncoder encoder = new LEDCubeBitPlaneEncoder( dim );
+        int size = encoder.getFrameSize();
+        byte[] bytes = received.toByteArray();
+        assertEquals( sent.size() * size, bytes.length );
+        assertEquals( sent.size(), output.getFrames() );
+        assertEquals( bytes.length, output.getBytes() );
+        for( int ai = 0; ai < sent.size(); ai++ ) {
+            ByteBuffer frame = encoder.encode( sent.get( ai ) );
+            byte[] expected = new byte[size];
+            frame.get( expected );
+            assertArrayEquals( "frame " + ai, expected, Arrays.copyOfRange( bytes, ai * size, ( ai + 1 ) * size ) );
+        }
+        // nothing is pending, so the next state is written at once
+        assertTrue( output.write( state( color ) ) );
+    }
+
+    /**
+     *  Creates a state that differs from the states of other numbers.
+     *
+     *  @param number the number of the state
+     *  @return the state
+     */
+    private LEDCubeState state( int number ) {
+        LEDCubeState state = new LEDCubeState( dim );
+        int[] leds = state.getBuffer();
+        for( int ai = 0; ai < leds.length; ai++ ) {
+            leds[ai] = ( ai * 0x9E3779B1 ) ^ ( number * 0x01000193 );
+        }
+        return state;
+    }
+
+}
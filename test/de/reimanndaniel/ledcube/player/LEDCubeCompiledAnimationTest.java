@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.player;
+
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeLight;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Asserts that compiled animations keep few checkpoints and seek to the
+ *  same frames the animation plays.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeCompiledAnimationTest {
+
+    /**
+     *  The axes of the operations.
+     */
+    private static final int[] AXES = { LEDCubeDimension.AxisX, LEDCubeDimension.AxisY, LEDCubeDimension.AxisZ };
+
+    /**
+     *  The size of the cube.
+     */
+    private final LEDCubeDimension dim = new LEDCubeDimension( 16 );
+    /**
+     *  The random colors and operations.
+     */
+    private final Random random = new Random( 5 );
+
+    /**
+     *  An animation of bulk operations only stays small.
+     */
+    @Test
+    public void operationsOnly() {
+        LEDCubeAnimation anime = new LEDCubeAnimation( state() );
+        for( int ai = 0; ai < 1000; ai++ ) {
+            anime.add( operation() );
+        }
+        LEDCubeCompiledAnimation compiled = anime.compile();
+        assertEquals( 1001, compiled.getFrameCount() );
+        assertTrue( compiled.getCheckpointCount() > 0 );
+        assertTrue( "checkpoints " + compiled.getCheckpointCount(), compiled.getCheckpointCount() <= 16 );
+        assertSeeks( anime, compiled );
+    }
+
+    /**
+     *  An animation of operations, lights, holds and states.
+     */
+    @Test
+    public void mixed() {
+        LEDCubeState current = state();
+        LEDCubeAnimation anime = new LEDCubeAnimation( current );
+        current = new LEDCubeState( current );
+        for( int ai = 0; ai < 600; ai++ ) {
+            Object element;
+            switch( ai % 4 ) {
+                case 0:
+                    element = operation();
+                    break;
+                case 1:
+                    element = new LEDCubeLight( random.nextInt( 16 ), random.nextInt( 16 ), random.nextInt( 16 ), random.nextInt() );
+                    break;
+                case 2:
+                    element = new LEDCubeHold( 1 + random.nextInt( 3 ) );
+                    break;
+                default:
+                    LEDCubeState state = new LEDCubeState( current );
+                    for( int bi = 0; bi < 300; bi++ ) {
+                        state.getBuffer()[random.nextInt( dim.getVolume() )] = random.nextInt();
+                    }
+                    element = state;
+            }
+            anime.add( element );
+            LEDCubeAnimation.apply( element, current );
+        }
+        assertSeeks( anime, anime.compile() );
+    }
+
+    /**
+     *  Asserts that random seeks give the frames the animation plays.
+     *
+     *  @param anime the animation
+     *  @param compiled the compiled animation
+     */
+    private void assertSeeks( LEDCubeAnimation anime, LEDCubeCompiledAnimation compiled ) {
+        List<int[]> frames = new ArrayList<int[]>();
+        LEDCubeAnimationSource played = anime.createSource();
+        LEDCubeState frame = new LEDCubeState( dim );
+        while( played.next( frame ) ) {
+            frames.add( frame.getBuffer().clone() );
+        }
+        assertEquals( frames.size(), compiled.getFrameCount() );
+        LEDCubeCompiledSource source = compiled.createSource();
+        for( int ai = 0; ai < frames.size(); ai++ ) {
+            assertTrue( source.next( frame ) );
+            assertArrayEquals( "frame " + ai, frames.get( ai ), frame.getBuffer() );
+        }
+        assertFalse( source.next( frame ) );
+        for( int ai = 0; ai < 100; ai++ ) {
+            int target = random.nextInt( frames.size() );
+            source.seek( target );
+            assertTrue( source.next( frame ) );
+            assertArrayEquals( "frame " + target, frames.get( target ), frame.getBuffer() );
+        }
+    }
+
+    /**
+     *  Creates a state of random colors.
+     *
+     *  @return the state
+     */
+    private LEDCubeState state() {
+        LEDCubeState state = new LEDCubeState( dim );
+        int[] leds = state.getBuffer();
+        for( int ai = 0; ai < leds.length; ai++ ) {
+            leds[ai] = random.nextInt();
+        }
+        return state;
+    }
+
+    /**
+     *  Creates a random roll, shift or copy of a layer.
+     *
+     *  @return the operation
+     */
+    private LEDCubeOperation operation() {
+        int axis = AXES[random.nextInt( AXES.length )];
+        switch( random.nextInt( 3 ) ) {
+            case 0:
+                return LEDCubeOperation.roll( axis, random.nextInt( 7 ) - 3 );
+            case 1:
+                return LEDCubeOperation.shift( axis, random.nextInt( 7 ) - 3, random.nextInt() );
+            default:
+                return LEDCubeOperation.copyLayer( axis, random.nextInt( 16 ), random.nextInt( 16 ) );
+        }
+    }
+
+}
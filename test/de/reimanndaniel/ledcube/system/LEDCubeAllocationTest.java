@@ -0,0 +1,215 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.system;
+
+import de.reimanndaniel.ledcube.player.LEDCubeAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubeCompiledAnimation;
+import de.reimanndaniel.ledcube.player.LEDCubePlayer;
+import java.lang.management.ManagementFactory;
+import java.util.Observable;
+import java.util.Observer;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Asserts that the hot paths of the cube do not allocate once warmed up.
+ *  The allocated bytes are counted per thread, so other threads like the
+ *  JIT compiler do not count.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeAllocationTest {
+
+    /**
+     *  The calls of a loop to warm it up.
+     */
+    private static final int WARMUP = 20000;
+    /**
+     *  The calls of a loop to measure.
+     */
+    private static final int CALLS = 10000;
+
+    /**
+     *  Counts the allocated bytes of a thread.
+     */
+    private com.sun.management.ThreadMXBean threads;
+    /**
+     *  The dimension of the cube.
+     */
+    private LEDCubeDimension dim;
+    /**
+     *  The cube.
+     */
+    private LEDCube cube;
+    /**
+     *  The sum of the changed LEDs the observer has seen.
+     */
+    private long seen;
+
+    /**
+     *  Creates a cube with an observer that walks each change.
+     */
+    @Before
+    public void setUp() {
+        Assume.assumeTrue( ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean );
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue( threads.isThreadAllocatedMemorySupported() );
+        threads.setThreadAllocatedMemoryEnabled( true );
+        dim = new LEDCubeDimension( 8 );
+        cube = new LEDCube( dim );
+        cube.addObserver( new Observer() {
+            @Override
+            public void update( Observable o, Object arg ) {
+                if( arg instanceof LEDCubeChange ) {
+                    LEDCubeChange change = (LEDCubeChange) arg;
+                    for( int ai = change.nextChanged( 0 ); ai >= 0; ai = change.nextChanged( ai + 1 ) ) {
+                        seen += cube.getRGBA( ai );
+                    }
+                }
+            }
+        } );
+    }
+
+    /**
+     *  Showing states that differ in some LEDs.
+     */
+    @Test
+    public void setState() {
+        final LEDCubeState even = new LEDCubeState( dim, LEDCubeColor.BLACK );
+        final LEDCubeState odd = new LEDCubeState( dim, LEDCubeColor.BLACK );
+        for( int ai = 0; ai < dim.getVolume(); ai += 7 ) {
+            odd.getBuffer()[ai] = LEDCubeColor.WHITE;
+        }
+        assertNoAllocation( new Runnable() {
+            private int count;
+            @Override
+            public void run() {
+                cube.setState( ( count++ & 1 ) == 0 ? even : odd );
+            }
+        } );
+    }
+
+    /**
+     *  Filling the cube and a state.
+     */
+    @Test
+    public void fill() {
+        final LEDCubeState state = new LEDCubeState( dim );
+        assertNoAllocation( new Runnable() {
+            private int count;
+            @Override
+            public void run() {
+                cube.fill( count );
+                state.fill( count );
+                count++;
+            }
+        } );
+    }
+
+    /**
+     *  Setting and getting single LEDs by coordinates and index.
+     */
+    @Test
+    public void setColor() {
+        assertNoAllocation( new Runnable() {
+            private int count;
+            @Override
+            public void run() {
+                int index = count % dim.getVolume();
+                cube.setColor( index, count );
+                cube.setColor( dim.getX( index ), dim.getY( index ), dim.getZ( index ), count + 1 );
+                seen += cube.getRGBA( dim.getX( index ), dim.getY( index ), dim.getZ( index ) );
+                count++;
+            }
+        } );
+    }
+
+    /**
+     *  Changes of many LEDs in one batch.
+     */
+    @Test
+    public void batch() {
+        assertNoAllocation( new Runnable() {
+            private int count;
+            @Override
+            public void run() {
+                cube.beginBatch();
+                try {
+                    for( int ai = count & 3; ai < dim.getVolume(); ai += 4 ) {
+                        cube.setColor( ai, count );
+                    }
+                }
+                finally {
+                    cube.commit();
+                }
+                count++;
+            }
+        } );
+    }
+
+    /**
+     *  Steady state playback of a compiled animation by the player.
+     */
+    @Test
+    public void playback() {
+        LEDCubeAnimation anime = new LEDCubeAnimation( new LEDCubeState( dim, LEDCubeColor.BLACK ) );
+        for( int ai = 0; ai < dim.getVolume(); ai++ ) {
+            anime.add( new LEDCubeLight( dim.getX( ai ), dim.getY( ai ), dim.getZ( ai ), LEDCubeColor.WHITE ) );
+        }
+        LEDCubeCompiledAnimation compiled = anime.compile();
+        final LEDCubePlayer player = new LEDCubePlayer( cube );
+        player.play( compiled.createSource() );
+        assertNoAllocation( new Runnable() {
+            @Override
+            public void run() {
+                player.update( 1f / 60f );
+            }
+        } );
+    }
+
+    /**
+     *  Warms up a loop and asserts that it does not allocate.
+     *  Takes the least of three measurements, so a single allocation of
+     *  the runtime does not fail the test.
+     *
+     *  @param loop the body of the loop
+     */
+    private void assertNoAllocation( Runnable loop ) {
+        long thread = Thread.currentThread().getId();
+        for( int ai = 0; ai < WARMUP; ai++ ) {
+            loop.run();
+        }
+        long least = Long.MAX_VALUE;
+        for( int round = 0; round < 3; round++ ) {
+            long before = threads.getThreadAllocatedBytes( thread );
+            for( int ai = 0; ai < CALLS; ai++ ) {
+                loop.run();
+            }
+            least = Math.min( least, threads.getThreadAllocatedBytes( thread ) - before );
+        }
+        assertEquals( "allocated bytes", 0L, least );
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2012, 2013 Daniel Reimann
+ *
+ *  This file is part of JLEDCube.
+ *
+ *  JLEDCube is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JLEDCube is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JLEDCube.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package de.reimanndaniel.ledcube.viewer;
+
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import de.reimanndaniel.ledcube.system.LEDCube;
+import de.reimanndaniel.ledcube.system.LEDCubeColor;
+import de.reimanndaniel.ledcube.system.LEDCubeDimension;
+import de.reimanndaniel.ledcube.system.LEDCubeState;
+import java.nio.FloatBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ *  Asserts the layout of the batched mesh and that the batched viewer only
+ *  rewrites the colors of changed LEDs.
+ *  Runs without a renderer, the viewer gets its mesh without painting.
+ *
+ *  @author Daniel Reimann <coding@reimanndaniel.de>
+ *  @version 0.9.0
+ *  @since 0.9.0
+ */
+public class LEDCubeBatchMeshTest {
+
+    /**
+     *  The shape of a LED, a box of 24 vertices.
+     */
+    private final Mesh led = new Box( 1.5f, 1.5f, 1.5f );
+    /**
+     *  The distance between LEDs.
+     */
+    private final float[] dist = { 25f, 25f, 25f };
+
+    /**
+     *  Every LED gets the vertices and indices of the LED shape.
+     */
+    @Test
+    public void vertices() {
+        LEDCubeDimension dim = new LEDCubeDimension( 3, 4, 5 );
+        LEDCubeBatchMesh mesh = new LEDCubeBatchMesh( dim, led, dist );
+        assertEquals( 24, mesh.getVerticesPerLED() );
+        assertEquals( dim.getVolume() * led.getVertexCount(), mesh.getVertexCount() );
+        assertEquals( dim.getVolume() * led.getTriangleCount(), mesh.getTriangleCount() );
+        assertEquals( dim.getVolume() * led.getVertexCount() * 4, mesh.getColors().capacity() );
+        // the LED with the index i in the state starts at vertex i * 24
+        FloatBuffer pos = mesh.getFloatBuffer( VertexBuffer.Type.Position );
+        FloatBuffer ledpos = led.getFloatBuffer( VertexBuffer.Type.Position );
+        int index = dim.index( 2, 1, 3 );
+        assertEquals( ledpos.get( 0 ) + 25f, pos.get( index * 24 * 3 ), 0f );
+        assertEquals( ledpos.get( 1 ) - 12.5f, pos.get( index * 24 * 3 + 1 ), 0f );
+        assertEquals( ledpos.get( 2 ) + 25f, pos.get( index * 24 * 3 + 2 ), 0f );
+    }
+
+    /**
+     *  Up to 65535 vertices the indices are shorts, beyond ints.
+     */
+    @Test
+    public void indexFormat() {
+        // 13^3 * 24 = 52728 vertices
+        LEDCubeBatchMesh small = new LEDCubeBatchMesh( new LEDCubeDimension( 13 ), led, dist );
+        assertEquals( VertexBuffer.Format.UnsignedShort, small.getBuffer( VertexBuffer.Type.Index ).getFormat() );
+        assertLastIndices( small );
+        // 14^3 * 24 = 65856 vertices
+        LEDCubeBatchMesh big = new LEDCubeBatchMesh( new LEDCubeDimension( 14 ), led, dist );
+        assertEquals( VertexBuffer.Format.UnsignedInt, big.getBuffer( VertexBuffer.Type.Index ).getFormat() );
+        assertLastIndices( big );
+    }
+
+    /**
+     *  A change of the cube rewrites the colors of the changed LEDs in the
+     *  existing buffer and keeps all others.
+     */
+    @Test
+    public void change() {
+        LEDCubeDimension dim = new LEDCubeDimension( 4 );
+        LEDCube cube = new LEDCube( dim, LEDCubeColor.BLUE );
+        LEDCubeBatchViewer viewer = new LEDCubeBatchViewer( cube, null );
+        viewer.mesh = new LEDCubeBatchMesh( dim, led, dist );
+        LEDCubeState state = new LEDCubeState( dim );
+        cube.copyState( state );
+        viewer.mesh.setColors( state.getBuffer() );
+        viewer.mesh.updateColors();
+        cube.addObserver( viewer );
+
+        FloatBuffer colors = viewer.mesh.getColors();
+        VertexBuffer buffer = viewer.mesh.getBuffer( VertexBuffer.Type.Color );
+        float[] before = new float[colors.capacity()];
+        colors.get( before );
+        int[] changed = { 0, dim.index( 1, 2, 3 ), dim.getVolume() - 1 };
+        int color = LEDCubeColor.rgba( 255, 0, 51, 255 );
+        for( int index: changed ) {
+            state.getBuffer()[index] = color;
+        }
+        cube.setState( state );
+
+        assertSame( colors, viewer.mesh.getColors() );
+        assertSame( buffer, viewer.mesh.getBuffer( VertexBuffer.Type.Color ) );
+        assertSame( colors, buffer.getData() );
+        float[] expected = before.clone();
+        for( int index: changed ) {
+            for( int ai = index * 24 * 4; ai < ( index + 1 ) * 24 * 4; ai += 4 ) {
+                expected[ai] = 1f;
+                expected[ai + 1] = 0f;
+                expected[ai + 2] = 0.2f;
+                expected[ai + 3] = 1f;
+            }
+        }
+        for( int ai = 0; ai < expected.length; ai++ ) {
+            assertEquals( "color " + ai, expected[ai], colors.get( ai ), 0f );
+        }
+    }
+
+    /**
+     *  Asserts that the indices of the last LED point to its vertices.
+     *
+     *  @param mesh the mesh
+     */
+    private void assertLastIndices( LEDCubeBatchMesh mesh ) {
+        IndexBuffer all = mesh.getIndexBuffer();
+        IndexBuffer one = led.getIndexBuffer();
+        int base = mesh.getVertexCount() - led.getVertexCount();
+        int start = all.size() - one.size();
+        for( int ai = 0; ai < one.size(); ai++ ) {
+            assertEquals( base + one.get( ai ), all.get( start + ai ) );
+        }
+    }
+
+}